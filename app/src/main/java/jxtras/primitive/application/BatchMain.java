@@ -0,0 +1,611 @@
+package jxtras.primitive.application;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import jxtras.primitive.AnnealingOptimizer;
+import jxtras.primitive.ClimbSearch;
+import jxtras.primitive.EvolutionSearch;
+import jxtras.primitive.HillClimbOptimizer;
+import jxtras.primitive.Model;
+import jxtras.primitive.Model.ShapeResult;
+import jxtras.primitive.RandomSearch;
+import jxtras.primitive.SearchStrategy;
+import jxtras.primitive.exporter.JsonExporter;
+import jxtras.primitive.exporter.SvgExporter;
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.Colour;
+
+/**
+ * Headless command-line driver that recreates a batch of images with geometric primitives.
+ * <p>
+ * The images matched by the input globs are queued and processed by a fixed number of
+ * concurrent jobs, each of which runs its own {@link Model} on the shared worker pool. For every
+ * image the requested outputs are written to the output directory, under the image's path
+ * relative to the root of its glob, and a timing summary is printed once the queue is drained.
+ * Only off-screen images are used, so it runs without a display.
+ */
+public class BatchMain {
+    private enum Format {
+        SVG, JSON, PNG
+    }
+
+    private enum Search {
+        RANDOM, HILLCLIMB, ANNEALING, EVOLUTION
+    }
+
+    /**
+     * The settings of a batch run.
+     */
+    private static class Options {
+        final List<String> inputs = new ArrayList<>();
+        Path output = Paths.get(".");
+        List<ShapeType> shapeTypes = new ArrayList<>();
+        int alpha = 128;
+        int candidates = 1000;
+        int mutations = 100;
+        int count = 100;
+        int inputSize = 256;
+        int outputSize = 1024;
+        int threads = Model.NTHREADS;
+        int jobs = 1;
+        Long seed = null;
+        boolean importanceSampling = false;
+        boolean planar = false;
+        boolean antialiasing = false;
+        Search search = Search.HILLCLIMB;
+        Set<Format> formats = EnumSet.of(Format.SVG);
+    }
+
+    /**
+     * The outcome of processing a single image.
+     */
+    private static class JobResult {
+        final Path input;
+        final String name;
+        int width, height;
+        int shapes;
+        double score;
+        long loadMillis, stepMillis, writeMillis;
+        Exception error;
+
+        JobResult(Path input, String name) {
+            this.input = input;
+            this.name = name;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            usage(System.err);
+            System.exit(2);
+            return;
+        }
+        if (options == null) {
+            usage(System.out);
+            return;
+        }
+
+        Map<Path, String> files;
+        try {
+            files = outputNames(expand(options.inputs));
+            Files.createDirectories(options.output);
+        } catch (IOException e) {
+            System.err.println("error: " + e);
+            System.exit(2);
+            return;
+        }
+        if (files.isEmpty()) {
+            System.err.println("error: no input image matched");
+            System.exit(2);
+            return;
+        }
+
+        List<JobResult> results = run(options, files);
+        Model.shutdown();
+
+        boolean failed = summarize(results, System.out);
+        try {
+            writeSummary(results, options.output.resolve("summary.csv"));
+        } catch (IOException e) {
+            System.err.println("Failed to write the summary: " + e);
+            failed = true;
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("-")) {
+                options.inputs.add(arg);
+                continue;
+            }
+            if (arg.equals("-h") || arg.equals("--help")) {
+                return null;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "-i":
+                case "--input":
+                    options.inputs.add(value);
+                    break;
+                case "-o":
+                case "--output":
+                    options.output = Paths.get(value);
+                    break;
+                case "-s":
+                case "--shapes":
+                    for (String name : value.split(",")) {
+                        options.shapeTypes.add(parseShapeType(name.trim()));
+                    }
+                    break;
+                case "-a":
+                case "--alpha":
+                    options.alpha = parseInt(arg, value, 0, 255);
+                    break;
+                case "-c":
+                case "--candidates":
+                    options.candidates = parseInt(arg, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "-m":
+                case "--mutations":
+                    options.mutations = parseInt(arg, value, 0, Integer.MAX_VALUE);
+                    break;
+                case "-n":
+                case "--count":
+                    options.count = parseInt(arg, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "-r":
+                case "--input-size":
+                    options.inputSize = parseInt(arg, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "--output-size":
+                    options.outputSize = parseInt(arg, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "-t":
+                case "--threads":
+                    options.threads = parseInt(arg, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "-j":
+                case "--jobs":
+                    options.jobs = parseInt(arg, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "--seed":
+                    try {
+                        options.seed = Long.parseLong(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("invalid value for --seed: " + value);
+                    }
+                    break;
+                case "--sampling":
+                    if (value.equalsIgnoreCase("error")) {
+                        options.importanceSampling = true;
+                    } else if (value.equalsIgnoreCase("uniform")) {
+                        options.importanceSampling = false;
+                    } else {
+                        throw new IllegalArgumentException("unknown sampling mode: " + value);
+                    }
+                    break;
+                case "--rasterization":
+                    if (value.equalsIgnoreCase("antialiased")) {
+                        options.antialiasing = true;
+                    } else if (value.equalsIgnoreCase("aliased")) {
+                        options.antialiasing = false;
+                    } else {
+                        throw new IllegalArgumentException("unknown rasterization: " + value);
+                    }
+                    break;
+                case "--search":
+                    try {
+                        options.search = Search.valueOf(value.toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("unknown search strategy: " + value);
+                    }
+                    break;
+                case "--layout":
+                    if (value.equalsIgnoreCase("planar")) {
+                        options.planar = true;
+                    } else if (value.equalsIgnoreCase("packed")) {
+                        options.planar = false;
+                    } else {
+                        throw new IllegalArgumentException("unknown pixel layout: " + value);
+                    }
+                    break;
+                case "-f":
+                case "--formats":
+                    options.formats = EnumSet.noneOf(Format.class);
+                    for (String name : value.split(",")) {
+                        try {
+                            options.formats.add(
+                                    Format.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("unknown output format: " + name);
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+        if (options.inputs.isEmpty()) {
+            throw new IllegalArgumentException("no input given");
+        }
+        if (options.shapeTypes.isEmpty()) {
+            options.shapeTypes.add(ShapeType.TRIANGLE);
+        }
+        return options;
+    }
+
+    private static ShapeType parseShapeType(String name) {
+        try {
+            return ShapeType.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown shape type: " + name);
+        }
+    }
+
+    private static int parseInt(String option, String value, int min, int max) {
+        int result;
+        try {
+            result = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid value for " + option + ": " + value);
+        }
+        if (result < min || result > max) {
+            throw new IllegalArgumentException(option + " must be in [" + min + ", " + max + "]");
+        }
+        return result;
+    }
+
+    private static void usage(PrintStream out) {
+        out.println("usage: BatchMain [options] <glob>...");
+        out.println();
+        out.println("  -i, --input <glob>       input images, e.g. 'photos/**.jpg' (repeatable)");
+        out.println("  -o, --output <dir>       output directory (default: .)");
+        out.println("  -s, --shapes <list>      comma separated shape types (default: triangle)");
+        out.println("  -a, --alpha <0-255>      shape opacity, 0 to let it mutate (default: 128)");
+        out.println("  -c, --candidates <n>     candidate shapes per step (default: 1000)");
+        out.println("  -m, --mutations <n>      hill climbing mutations per candidate");
+        out.println("                           (default: 100)");
+        out.println("  -n, --count <n>          shapes per image (default: 100)");
+        out.println("  -r, --input-size <px>    working size of the longest side (default: 256)");
+        out.println("      --output-size <px>   output size of the longest side (default: 1024)");
+        out.println("  -t, --threads <n>        search workers per image (default: processors)");
+        out.println("  -j, --jobs <n>           images processed concurrently (default: 1)");
+        out.println("      --seed <long>        seed for reproducible results");
+        out.println("      --sampling <mode>    candidate placement, uniform or error");
+        out.println("                           (default: uniform)");
+        out.println("      --rasterization <r>  shape edges, aliased or antialiased");
+        out.println("                           (default: aliased)");
+        out.println("      --layout <layout>    search pixel layout, packed or planar");
+        out.println("                           (default: packed)");
+        out.println("      --search <s>         random, hillclimb, annealing or evolution");
+        out.println("                           (default: hillclimb)");
+        out.println("  -f, --formats <list>     any of svg,json,png (default: svg)");
+    }
+
+    /**
+     * Expands the given globs into the files they match, sorted, each with its path relative
+     * to the deepest directory of its glob without a wildcard. A glob without wildcards names a
+     * single file, relative to its own directory.
+     */
+    private static Map<Path, Path> expand(List<String> globs) throws IOException {
+        Map<Path, Path> files = new TreeMap<>();
+        for (String glob : globs) {
+            int wildcard = indexOfWildcard(glob);
+            if (wildcard < 0) {
+                Path file = Paths.get(glob);
+                if (!Files.isRegularFile(file)) {
+                    throw new IOException("No such file: " + glob);
+                }
+                files.putIfAbsent(file, file.getFileName());
+                continue;
+            }
+
+            // walk from the deepest directory without a wildcard
+            int separator = Math.max(glob.lastIndexOf('/', wildcard),
+                    glob.lastIndexOf('\\', wildcard));
+            Path root = separator < 0 ? Paths.get("") : Paths.get(glob.substring(0, separator + 1));
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && matcher.matches(file)) {
+                        files.putIfAbsent(file, root.relativize(file));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return files;
+    }
+
+    /**
+     * Names the outputs of the files after their relative paths without the extension, so that
+     * the output directory mirrors the input directories. Files which would share a name, such
+     * as <code>x.png</code> and <code>x.jpg</code>, keep their extension, and the files left
+     * with the same relative path, matched by globs of different roots, are numbered in order,
+     * as <code>x-2.png</code>.
+     */
+    private static Map<Path, String> outputNames(Map<Path, Path> files) {
+        Map<String, Integer> stems = new HashMap<>();
+        for (Path relative : files.values()) {
+            stems.merge(stem(relative), 1, Integer::sum);
+        }
+        Map<Path, String> names = new LinkedHashMap<>();
+        Set<String> taken = new HashSet<>();
+        for (Map.Entry<Path, Path> entry : files.entrySet()) {
+            String stem = stem(entry.getValue());
+            String name = stems.get(stem) > 1 ? entry.getValue().toString() : stem;
+            String extension = name.substring(stem.length());
+            String unique = name;
+            for (int i = 2; !taken.add(unique); i++) {
+                unique = stem + "-" + i + extension;
+            }
+            names.put(entry.getKey(), unique);
+        }
+        return names;
+    }
+
+    private static String stem(Path path) {
+        String name = path.toString();
+        int dot = name.lastIndexOf('.');
+        // only a dot within the file name, and not leading it, starts the extension
+        if (dot > name.length() - path.getFileName().toString().length()) {
+            return name.substring(0, dot);
+        }
+        return name;
+    }
+
+    private static int indexOfWildcard(String glob) {
+        for (int i = 0; i < glob.length(); i++) {
+            switch (glob.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case '{':
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    private static List<JobResult> run(Options options, Map<Path, String> names) {
+        List<Path> files = new ArrayList<>(names.keySet());
+        ExecutorService executor =
+                Executors.newFixedThreadPool(Math.min(options.jobs, files.size()));
+        List<Future<JobResult>> futures = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            // the seed of an image only depends on its position in the sorted queue
+            Long seed = options.seed == null ? null : options.seed + i;
+            futures.add(executor.submit(() -> process(options, file, names.get(file), seed)));
+        }
+        executor.shutdown();
+
+        List<JobResult> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                break;
+            } catch (ExecutionException e) {
+                JobResult result = new JobResult(files.get(i), names.get(files.get(i)));
+                result.error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private static JobResult process(Options options, Path file, String name, Long seed) {
+        JobResult result = new JobResult(file, name);
+        try {
+            long start = System.nanoTime();
+            Bitmap target = load(file, options.inputSize);
+            result.width = target.getWidth();
+            result.height = target.getHeight();
+            int background = Colour.average(target.getPixels());
+            Model model = seed == null
+                    ? new Model(target, background, options.outputSize, options.threads)
+                    : new Model(target, background, options.outputSize, options.threads, seed);
+            model.setImportanceSampling(options.importanceSampling);
+            model.setPlanar(options.planar);
+            model.setAntialiasing(options.antialiasing);
+            model.setSearchStrategy(createSearchStrategy(options.search));
+            long loaded = System.nanoTime();
+
+            List<ShapeResult> shapes = new ArrayList<>(options.count);
+            while (shapes.size() < options.count) {
+                shapes.addAll(model.step(options.shapeTypes, options.alpha, options.candidates,
+                        options.mutations, 0));
+            }
+            result.shapes = shapes.size();
+            result.score = model.score;
+            long stepped = System.nanoTime();
+
+            write(options, name, model, shapes, background);
+            long written = System.nanoTime();
+
+            result.loadMillis = (loaded - start) / 1000000L;
+            result.stepMillis = (stepped - loaded) / 1000000L;
+            result.writeMillis = (written - stepped) / 1000000L;
+            System.out.println(String.format(Locale.ROOT, "done %s: %d shapes, score %.6f, %d ms",
+                    file, result.shapes, result.score, result.stepMillis));
+        } catch (Exception e) {
+            result.error = e;
+            System.err.println("failed " + file + ": " + e);
+        }
+        return result;
+    }
+
+    private static SearchStrategy createSearchStrategy(Search search) {
+        switch (search) {
+            case RANDOM:
+                return new RandomSearch();
+            case ANNEALING:
+                return new ClimbSearch(new AnnealingOptimizer());
+            case EVOLUTION:
+                return new EvolutionSearch();
+            default:
+                return new ClimbSearch(new HillClimbOptimizer());
+        }
+    }
+
+    /**
+     * Loads the image, scaled down so that its longest side is at most <code>size</code>
+     * pixels.
+     */
+    private static Bitmap load(Path file, int size) throws IOException {
+        BufferedImage image = ImageIO.read(file.toFile());
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + file);
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (Math.max(width, height) > size) {
+            float ratio = (float) size / Math.max(width, height);
+            width = Math.max(1, Math.round(width * ratio));
+            height = Math.max(1, Math.round(height * ratio));
+        }
+
+        // always draw into a fresh ARGB image so that the pixels are in the expected format
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = scaled.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+
+        int[] pixels = scaled.getRGB(0, 0, width, height, null, 0, width);
+        return new Bitmap(width, height, pixels, image.getColorModel().hasAlpha());
+    }
+
+    private static void write(Options options, String name, Model model, List<ShapeResult> shapes,
+            int background) throws IOException {
+        Files.createDirectories(options.output.resolve(name).getParent());
+
+        if (options.formats.contains(Format.SVG)) {
+            String svg = SvgExporter.export(shapes, model.scaledWidth, model.scaledHeight,
+                    model.scale, background);
+            writeText(options.output.resolve(name + ".svg"), svg);
+        }
+        if (options.formats.contains(Format.JSON)) {
+            writeText(options.output.resolve(name + ".json"), JsonExporter.export(shapes));
+        }
+        if (options.formats.contains(Format.PNG)) {
+            Bitmap snapshot = model.snapshot();
+            BufferedImage image = new BufferedImage(snapshot.getWidth(), snapshot.getHeight(),
+                    BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(0, 0, snapshot.getWidth(), snapshot.getHeight(), snapshot.getPixels(),
+                    0, snapshot.getWidth());
+            if (!ImageIO.write(image, "png", options.output.resolve(name + ".png").toFile())) {
+                throw new IOException("No PNG writer available");
+            }
+        }
+    }
+
+    private static void writeText(Path path, String text) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(text);
+        }
+    }
+
+    /**
+     * Prints the timing summary of the run.
+     *
+     * @return <code>true</code> if any image failed.
+     */
+    private static boolean summarize(List<JobResult> results, PrintStream out) {
+        boolean failed = false;
+        long totalMillis = 0;
+        int totalShapes = 0;
+        out.println();
+        out.println(String.format(Locale.ROOT, "%-40s %9s %7s %10s %9s %9s %9s",
+                "image", "size", "shapes", "score", "load ms", "step ms", "write ms"));
+        for (JobResult result : results) {
+            String name = result.name;
+            if (result.error != null) {
+                out.println(String.format(Locale.ROOT, "%-40s FAILED: %s", name, result.error));
+                failed = true;
+                continue;
+            }
+            out.println(String.format(Locale.ROOT, "%-40s %9s %7d %10.6f %9d %9d %9d", name,
+                    result.width + "x" + result.height, result.shapes, result.score,
+                    result.loadMillis, result.stepMillis, result.writeMillis));
+            totalMillis += result.stepMillis;
+            totalShapes += result.shapes;
+        }
+        if (totalShapes > 0) {
+            out.println(String.format(Locale.ROOT, "%d shapes in %d ms of steps, %.2f ms/shape",
+                    totalShapes, totalMillis, (double) totalMillis / totalShapes));
+        }
+        return failed;
+    }
+
+    private static void writeSummary(List<JobResult> results, Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("image,input,width,height,shapes,score,load_ms,step_ms,write_ms,error\n");
+            for (JobResult result : results) {
+                String error = result.error == null ? "" : "\"" + String.valueOf(
+                        result.error.getMessage()).replace("\"", "\"\"") + "\"";
+                writer.write(String.format(Locale.ROOT,
+                        "\"%s\",\"%s\",%d,%d,%d,%.6f,%d,%d,%d,%s\n",
+                        result.name.replace("\"", "\"\""),
+                        result.input.toString().replace("\"", "\"\""), result.width,
+                        result.height, result.shapes, result.score, result.loadMillis,
+                        result.stepMillis, result.writeMillis, error));
+            }
+        }
+    }
+}
@@ -29,7 +29,6 @@ import javax.imageio.ImageIO;
 import javax.swing.JButton;
 import javax.swing.JPanel;
 
-import jxtras.primitive.Core;
 import jxtras.primitive.Geometrizer;
 import jxtras.primitive.Model.ShapeResult;
 import jxtras.primitive.application.painter.ShapePainter;
@@ -171,7 +170,7 @@ public class Main {
                         }
                     }
                     EventQueue.invokeLater(() -> {
-                        System.out.println("Score: " + (1.0f - Core.differenceFull(runner.snapshot(), runner.target())));
+                        System.out.println("Score: " + (1.0f - runner.getScore()));
                         canvas.repaint();
                         if (results.size() >= MAX_STEPS) {
                             jbtCtrl.setEnabled(false);
@@ -268,8 +267,7 @@ public class Main {
                 g2d.setColor(Color.WHITE.brighter());
                 g2d.setFont(DIGIT_FONT);
                 g2d.drawString(String.format("%04d", results.size()), 30, 30);
-                double score =  (1.0f - Core
-                        .differenceFull(runner.snapshot(), runner.target())) * 100;
+                double score = (1.0f - runner.getScore()) * 100;
                 g2d.drawString(String.format("%02.2f", score), 150, 30);
                 g2d.setFont(BASIC_FONT);
                 g2d.drawString("SHAPES", 46, 45);
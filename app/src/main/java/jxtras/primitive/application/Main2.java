@@ -26,7 +26,6 @@ import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
-import jxtras.primitive.Core;
 import jxtras.primitive.Model;
 import jxtras.primitive.Model.ShapeResult;
 import jxtras.primitive.exporter.SvgExporter;
@@ -104,8 +103,7 @@ public class Main2 {
                     final int result = model.step(shapeType, alpha, 0);
                     EventQueue.invokeLater(() -> {
                         if (results.size() < MAX_STEPS) {
-                            System.out.println("Score: " + Core
-                                    .differenceFull(model.target, model.current));
+                            System.out.println("Score: " + model.score);
                             canvas.repaint();
                         }
                         if (results.size() >= MAX_STEPS) {
@@ -26,6 +26,7 @@ public class ShapePainter {
                 path2D.moveTo(ptrs[0], ptrs[1]);
                 path2D.curveTo(ptrs[2], ptrs[3], ptrs[4], ptrs[5], ptrs[6], ptrs[7]);
                 g2d.setColor(new java.awt.Color(color, true));
+                g2d.setStroke(new BasicStroke((float)ptrs[8], BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
                 g2d.draw(path2D);
             }
             break;
@@ -38,6 +39,7 @@ public class ShapePainter {
 
             case LINE: {
                 g2d.setColor(new java.awt.Color(color, true));
+                g2d.setStroke(new BasicStroke((float)ptrs[4], BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
                 g2d.drawLine((int)ptrs[0], (int)ptrs[1], (int)ptrs[2], (int)ptrs[3]);
             }
             break;
@@ -58,14 +60,16 @@ public class ShapePainter {
             break;
 
             case POLYLINE: {
-                final int count = ptrs.length / 2;
+                // The stroke width follows the points
+                final int count = (ptrs.length - 1) / 2;
                 final int[] xptrs = new int[count];
                 final int[] yptrs = new int[count];
-                for (int i = 0; i < ptrs.length; i += 2) {
+                for (int i = 0; i < count * 2; i += 2) {
                     xptrs[i / 2] = (int)ptrs[i + 0];
                     yptrs[i / 2] = (int)ptrs[i + 1];
                 }
                 g2d.setColor(new java.awt.Color(color, true));
+                g2d.setStroke(new BasicStroke((float)ptrs[ptrs.length - 1], BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
                 g2d.drawPolyline(xptrs, yptrs, count);
             }
             break;
@@ -0,0 +1,102 @@
+package jxtras.primitive.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jxtras.primitive.Core;
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.shape.Shape;
+import jxtras.primitive.shape.ShapeFactory;
+import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.Colour;
+import jxtras.primitive.util.RandomSource;
+
+/**
+ * Benchmarks the energy kernels of {@link Core} for a single candidate shape on lenna.png.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CoreBenchmark {
+    private static final int ALPHA = 128;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"TRIANGLE", "ELLIPSE", "RECTANGLE"})
+    public ShapeType shapeType;
+
+    private Bitmap target, current, buffer;
+    private Shape shape;
+    private List<Scanline> scanlines;
+    private final ScanlineBuffer lines = new ScanlineBuffer(4096);
+    private int color;
+    private double score;
+    private long total;
+
+    @Setup
+    public void setUp() {
+        target = Images.load("lenna.png", size);
+        current = target.copy().eraseColor(Colour.average(target.getPixels()));
+        buffer = current.copy();
+
+        RandomSource rnd = new RandomSource(42L);
+        shape = ShapeFactory.createShapeOf(shapeType, target.getWidth(), target.getHeight(), rnd);
+        for (int i = 0; i < 32; i++) {
+            shape.mutate(rnd);
+        }
+        scanlines = shape.rasterize();
+        color = Core.computeColor(target, current, scanlines, ALPHA);
+        score = Core.differenceFull(target, current);
+        total = Core.differenceTotal(target, current);
+        Core.drawLines(buffer, color, scanlines);
+    }
+
+    @Benchmark
+    public int computeColor() {
+        return Core.computeColor(target, current, scanlines, ALPHA);
+    }
+
+    @Benchmark
+    public Bitmap copyLines() {
+        Core.copyLines(buffer, current, scanlines);
+        return buffer;
+    }
+
+    @Benchmark
+    public Bitmap drawLines() {
+        Core.drawLines(buffer, color, scanlines);
+        return buffer;
+    }
+
+    @Benchmark
+    public double differencePartial() {
+        return Core.differencePartial(target, current, buffer, score, scanlines);
+    }
+
+    @Benchmark
+    public double differenceFull() {
+        return Core.differenceFull(target, current);
+    }
+
+    @Benchmark
+    public double energyReference() {
+        return Core.energy(shape, ALPHA, target, current, buffer, score);
+    }
+
+    @Benchmark
+    public double energyFused() {
+        return Core.energy(shape, ALPHA, target, current, lines, total);
+    }
+}
@@ -0,0 +1,58 @@
+package jxtras.primitive.bench;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import jxtras.primitive.image.Bitmap;
+
+/**
+ * Loads the bundled example images as {@link Bitmap}s for the benchmarks.
+ */
+final class Images {
+    private Images() {}
+
+    /**
+     * Loads the example image with the given name, scaled so that its longest side is
+     * <code>size</code> pixels.
+     *
+     * @param name The file name of the example image, e.g. <code>lenna.png</code>
+     * @param size The length in pixels of the longest side
+     * @return The opaque bitmap
+     */
+    static Bitmap load(String name, int size) {
+        BufferedImage image;
+        try (InputStream is = Images.class.getResourceAsStream("/example/" + name)) {
+            if (is == null) {
+                throw new IllegalArgumentException("No such example image: " + name);
+            }
+            image = ImageIO.read(is);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load the image: " + name, e);
+        }
+
+        float ratio = (float) size / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, Math.round(image.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = scaled.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g2d.dispose();
+        }
+
+        int[] pixels = scaled.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] |= 0xFF000000;
+        }
+        return new Bitmap(width, height, pixels, false);
+    }
+}
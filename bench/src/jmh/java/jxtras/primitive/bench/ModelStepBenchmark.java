@@ -0,0 +1,76 @@
+package jxtras.primitive.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jxtras.primitive.Model;
+import jxtras.primitive.Model.ShapeResult;
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.Colour;
+
+/**
+ * Benchmarks a full {@link Model#step(List, int, int, int, int)} with the default search
+ * settings on the bundled example images. Each iteration is a single shot of the first
+ * {@link #STEPS} steps of a model recreated with a fixed seed, so that every iteration measures
+ * the same run of steps from an empty model. The time reported is that of the whole run.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = ModelStepBenchmark.STEPS)
+@Measurement(iterations = 5, batchSize = ModelStepBenchmark.STEPS)
+@State(Scope.Thread)
+public class ModelStepBenchmark {
+    private static final List<ShapeType> SHAPE_TYPES = Arrays.asList(ShapeType.TRIANGLE);
+
+    /**
+     * The number of steps of each iteration.
+     */
+    static final int STEPS = 20;
+
+    @Param({"Up.png", "lenna.png", "monalisa.png"})
+    public String image;
+
+    @Param({"256", "512", "1024"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean planar;
+
+    @Param({"false", "true"})
+    public boolean incremental;
+
+    private Bitmap target;
+    private Model model;
+
+    @Setup(Level.Trial)
+    public void loadImage() {
+        target = Images.load(image, size);
+    }
+
+    @Setup(Level.Iteration)
+    public void createModel() {
+        int background = Colour.average(target.getPixels());
+        model = new Model(target, background, size, Model.NTHREADS, 42L);
+        model.setPlanar(planar);
+        model.setIncrementalEvaluation(incremental);
+    }
+
+    @Benchmark
+    public List<ShapeResult> step() {
+        return model.step(SHAPE_TYPES, 128, 1000, 100, 0);
+    }
+}
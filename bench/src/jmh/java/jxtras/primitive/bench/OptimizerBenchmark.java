@@ -0,0 +1,119 @@
+package jxtras.primitive.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jxtras.primitive.AnnealingOptimizer;
+import jxtras.primitive.ClimbSearch;
+import jxtras.primitive.EvolutionSearch;
+import jxtras.primitive.HillClimbOptimizer;
+import jxtras.primitive.Model;
+import jxtras.primitive.SearchStrategy;
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.Colour;
+
+/**
+ * Compares the optimizers the candidates are refined with on the bundled example images, and
+ * the evolution strategy evaluating the mutations of a single chain on all the workers. Each
+ * iteration adds the same number of shapes to a new model, with a fixed seed, and reports how
+ * much the score went down per second of CPU time taken by the whole process, which includes
+ * all the workers of the model. The time and the score of each run are reported as well.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+public class OptimizerBenchmark {
+    private static final List<ShapeType> SHAPE_TYPES = Arrays.asList(ShapeType.TRIANGLE);
+    private static final int SHAPES = 100;
+
+    @Param({"Up.png", "lenna.png", "monalisa.png"})
+    public String image;
+
+    @Param({"256"})
+    public int size;
+
+    @Param({"hillclimb", "annealing", "evolution"})
+    public String optimizer;
+
+    @Param({"1000"})
+    public int candidates;
+
+    /**
+     * The outcome of an iteration, reported next to its time.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public double score;
+        public double cpuSeconds;
+        public double scorePerCpuSecond;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            score = 0;
+            cpuSeconds = 0;
+            scorePerCpuSecond = 0;
+        }
+    }
+
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private Bitmap target;
+    private Model model;
+
+    @Setup(Level.Trial)
+    public void loadImage() {
+        target = Images.load(image, size);
+    }
+
+    @Setup(Level.Iteration)
+    public void createModel() {
+        int background = Colour.average(target.getPixels());
+        model = new Model(target, background, size, Model.NTHREADS, 42L);
+        model.setIncrementalEvaluation(true);
+        model.setSearchStrategy(createSearchStrategy(optimizer));
+    }
+
+    private static SearchStrategy createSearchStrategy(String name) {
+        switch (name) {
+            case "annealing":
+                return new ClimbSearch(new AnnealingOptimizer());
+            case "evolution":
+                return new EvolutionSearch();
+            default:
+                return new ClimbSearch(new HillClimbOptimizer());
+        }
+    }
+
+    @Benchmark
+    public double run(Outcome outcome) {
+        double before = model.score;
+        long start = os.getProcessCpuTime();
+        for (int i = 0; i < SHAPES; i++) {
+            model.step(SHAPE_TYPES, 128, candidates, 100, 0);
+        }
+        outcome.cpuSeconds = (os.getProcessCpuTime() - start) / 1e9;
+        outcome.score = model.score;
+        outcome.scorePerCpuSecond = (before - model.score) / outcome.cpuSeconds;
+        return model.score;
+    }
+}
@@ -0,0 +1,116 @@
+package jxtras.primitive.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import jxtras.primitive.raster.FillRule;
+import jxtras.primitive.raster.Rasterizer;
+import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.raster.StrokeCap;
+import jxtras.primitive.raster.StrokeJoin;
+
+/**
+ * Benchmarks the {@link Rasterizer} entry points on fixed, mid-sized primitives.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class RasterizerBenchmark {
+    private static final int WIDTH = 512;
+    private static final int HEIGHT = 512;
+
+    private final int[] polygonX = {100, 260, 300, 180, 90};
+    private final int[] polygonY = {120, 80, 240, 330, 260};
+
+    private final int[] starX = {256, 376, 62, 450, 136};
+    private final int[] starY = {40, 410, 175, 175, 410};
+
+    private final int[] polylineX = {40, 180, 210, 380, 460};
+    private final int[] polylineY = {400, 90, 300, 120, 330};
+
+    private final ScanlineBuffer lines = new ScanlineBuffer(4096);
+
+    @Benchmark
+    public List<Scanline> line() {
+        return Rasterizer.rasterizeLine(20, 40, 400, 310, WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public ScanlineBuffer lineBuffer() {
+        lines.clear();
+        Rasterizer.rasterizeLine(20, 40, 400, 310, WIDTH, HEIGHT, lines);
+        return lines;
+    }
+
+    @Benchmark
+    public List<Scanline> triangle() {
+        return Rasterizer.rasterizeTriangle(60, 30, 420, 200, 150, 380, WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public ScanlineBuffer triangleBuffer() {
+        lines.clear();
+        Rasterizer.rasterizeTriangle(60, 30, 420, 200, 150, 380, WIDTH, HEIGHT, lines);
+        return lines;
+    }
+
+    @Benchmark
+    public List<Scanline> polygon() {
+        return Rasterizer.rasterizePolygon(polygonX, polygonY, polygonX.length, WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public ScanlineBuffer polygonBuffer() {
+        lines.clear();
+        Rasterizer.rasterizePolygon(polygonX, polygonY, polygonX.length, WIDTH, HEIGHT, lines);
+        return lines;
+    }
+
+    @Benchmark
+    public ScanlineBuffer starEvenOdd() {
+        lines.clear();
+        Rasterizer.rasterizePolygon(starX, starY, starX.length, FillRule.EVEN_ODD, WIDTH, HEIGHT,
+                lines);
+        return lines;
+    }
+
+    @Benchmark
+    public ScanlineBuffer starNonZero() {
+        lines.clear();
+        Rasterizer.rasterizePolygon(starX, starY, starX.length, FillRule.NON_ZERO, WIDTH, HEIGHT,
+                lines);
+        return lines;
+    }
+
+    @Benchmark
+    public ScanlineBuffer strokeRound() {
+        lines.clear();
+        Rasterizer.rasterizeStroke(polylineX, polylineY, polylineX.length, 8.0D, StrokeCap.ROUND,
+                StrokeJoin.ROUND, WIDTH, HEIGHT, lines);
+        return lines;
+    }
+
+    @Benchmark
+    public ScanlineBuffer strokeMiter() {
+        lines.clear();
+        Rasterizer.rasterizeStroke(polylineX, polylineY, polylineX.length, 8.0D, StrokeCap.BUTT,
+                StrokeJoin.MITER, WIDTH, HEIGHT, lines);
+        return lines;
+    }
+
+    @Benchmark
+    public ScanlineBuffer cubicStroke() {
+        lines.clear();
+        Rasterizer.rasterizeCubic(40, 400, 120, 20, 380, 480, 460, 90, 8.0D, StrokeCap.ROUND,
+                StrokeJoin.ROUND, WIDTH, HEIGHT, lines);
+        return lines;
+    }
+}
@@ -0,0 +1,61 @@
+package jxtras.primitive.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.shape.Shape;
+import jxtras.primitive.shape.ShapeFactory;
+import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.RandomSource;
+
+/**
+ * Benchmarks {@link Shape#rasterize()} and {@link Shape#rasterize(ScanlineBuffer)} for every
+ * shape type. The shapes are grown by a number of mutations so that they are of a typical size
+ * for the middle of a run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ShapeBenchmark {
+    private static final int SIZE = 512;
+
+    @Param({"CIRCLE", "CUBIC_CURVE", "ELLIPSE", "LINE", "POLYGON", "POLYLINE", "QUADRATIC_CURVE",
+            "RECTANGLE", "ROTATED_ELLIPSE", "ROTATED_RECTANGLE", "TRIANGLE"})
+    public ShapeType shapeType;
+
+    private Shape shape;
+
+    private final ScanlineBuffer lines = new ScanlineBuffer(4096);
+
+    @Setup
+    public void setUp() {
+        RandomSource rnd = new RandomSource(42L);
+        shape = ShapeFactory.createShapeOf(shapeType, SIZE, SIZE, rnd);
+        for (int i = 0; i < 32; i++) {
+            shape.mutate(rnd);
+        }
+    }
+
+    @Benchmark
+    public List<Scanline> rasterize() {
+        return shape.rasterize();
+    }
+
+    @Benchmark
+    public ScanlineBuffer rasterizeBuffer() {
+        lines.clear();
+        shape.rasterize(lines);
+        return lines;
+    }
+}
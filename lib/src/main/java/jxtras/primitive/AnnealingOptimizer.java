@@ -0,0 +1,144 @@
+package jxtras.primitive;
+
+/**
+ * The <code>AnnealingOptimizer</code> refines a state by simulated annealing: a mutation which
+ * makes the state worse is still kept with probability <code>exp(-loss / temperature)</code>,
+ * so that a candidate can climb out of a local minimum, and the temperature is lowered as the
+ * search goes on until only the improvements are kept.
+ * <p>
+ * The temperatures are relative to the improvement the starting state brings to the current
+ * bitmap, so that one schedule fits any image, at any stage of the model: at temperature 1, a
+ * mutation losing that whole improvement is kept with probability <code>1 / e</code>. The
+ * temperature goes from the start temperature down to the end one over a fixed number of
+ * mutations, then the search carries on as a hill climb until the best state stops improving.
+ */
+public class AnnealingOptimizer implements Optimizer {
+    /**
+     * How the temperature goes down from the start temperature to the end one.
+     */
+    public enum Cooling {
+        /**
+         * The temperature drops by the same amount at each mutation.
+         */
+        LINEAR {
+            @Override
+            double temperature(double start, double end, double progress) {
+                return start + (end - start) * progress;
+            }
+        },
+
+        /**
+         * The temperature drops by the same factor at each mutation, spending more of the
+         * search at low temperatures.
+         */
+        EXPONENTIAL {
+            @Override
+            double temperature(double start, double end, double progress) {
+                return start * Math.pow(end / start, progress);
+            }
+        };
+
+        /**
+         * Returns the temperature once the given fraction of the schedule has gone.
+         */
+        abstract double temperature(double start, double end, double progress);
+    }
+
+    public static final double DEFAULT_START_TEMPERATURE = 0.1D;
+    public static final double DEFAULT_END_TEMPERATURE = 0.001D;
+    public static final int DEFAULT_STEPS = 200;
+
+    private final double startTemperature;
+    private final double endTemperature;
+    private final int steps;
+    private final Cooling cooling;
+
+    /**
+     * Creates an optimizer with the default, exponential, schedule.
+     */
+    public AnnealingOptimizer() {
+        this(DEFAULT_START_TEMPERATURE, DEFAULT_END_TEMPERATURE, DEFAULT_STEPS,
+                Cooling.EXPONENTIAL);
+    }
+
+    /**
+     * Creates an optimizer with the given schedule.
+     *
+     * @param startTemperature The temperature of the first mutation, relative to the
+     *                         improvement of the starting state.
+     * @param endTemperature   The temperature of the last mutation of the schedule, relative
+     *                         to the improvement of the starting state.
+     * @param steps            The number of mutations the temperature goes down over.
+     * @param cooling          How the temperature goes down.
+     */
+    public AnnealingOptimizer(double startTemperature, double endTemperature, int steps,
+            Cooling cooling) {
+        if (!(endTemperature > 0) || startTemperature < endTemperature) {
+            throw new IllegalArgumentException("temperatures must be 0 < end <= start");
+        }
+        if (steps < 0) {
+            throw new IllegalArgumentException("steps must be >= 0");
+        }
+        if (cooling == null) {
+            throw new IllegalArgumentException("cooling must not be null");
+        }
+        this.startTemperature = startTemperature;
+        this.endTemperature = endTemperature;
+        this.steps = steps;
+        this.cooling = cooling;
+    }
+
+    @Override
+    public State optimize(State state, int maxAge) {
+        State s = state.copy2();
+        State bestState = state.copy2();
+        double energy = s.energy();
+        double bestEnergy = energy;
+        // The temperatures are scaled by the improvement of the starting state, if any
+        double scale = Math.max(state.worker.score() - energy, 0.0D);
+
+        int age = 0;
+        for (int step = 0; step < steps || age < maxAge; step++) {
+            State undo = s.move();
+            double next = s.energy();
+            if (next < energy || step < steps && scale > 0 && accept(next - energy,
+                    scale * cooling.temperature(startTemperature, endTemperature,
+                            (double) step / steps), s)) {
+                energy = next;
+                if (energy < bestEnergy) {
+                    bestEnergy = energy;
+                    bestState = s.copy2();
+                    age = -1;
+                }
+            } else {
+                s.undoMove(undo);
+            }
+            age++;
+        }
+        return bestState;
+    }
+
+    /**
+     * Returns whether to keep a mutation making the state worse by <code>loss</code>, at the
+     * given absolute temperature.
+     */
+    private static boolean accept(double loss, double temperature, State state) {
+        return state.rnd.nextDouble() < Math.exp(-loss / temperature);
+    }
+
+    public double getStartTemperature() {
+        return startTemperature;
+    }
+
+    public double getEndTemperature() {
+        return endTemperature;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public Cooling getCooling() {
+        return cooling;
+    }
+}
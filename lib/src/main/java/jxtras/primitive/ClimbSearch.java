@@ -0,0 +1,73 @@
+package jxtras.primitive;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import jxtras.primitive.shape.ShapeType;
+
+/**
+ * The <code>ClimbSearch</code> refines the best of the random candidates with an
+ * {@link Optimizer}, several times over from new random candidates, and keeps the best state
+ * found. With a {@link HillClimbOptimizer}, one climb per worker, it is the default search of
+ * the model.
+ */
+public class ClimbSearch extends ParallelSearch {
+    private final Optimizer optimizer;
+
+    /**
+     * The number of climbs over all the workers, 0 for one per worker.
+     */
+    private final int climbs;
+
+    /**
+     * Creates a search running one climb per worker.
+     *
+     * @param optimizer The optimizer to refine the candidates with.
+     */
+    public ClimbSearch(Optimizer optimizer) {
+        this(optimizer, 0);
+    }
+
+    /**
+     * Creates a search running the given number of climbs, split across the workers, the random
+     * candidates being divided between the climbs.
+     *
+     * @param optimizer The optimizer to refine the candidates with.
+     * @param climbs    The number of climbs, 0 for one per worker.
+     */
+    public ClimbSearch(Optimizer optimizer, int climbs) {
+        if (optimizer == null) {
+            throw new IllegalArgumentException("optimizer must not be null");
+        }
+        if (climbs < 0) {
+            throw new IllegalArgumentException("climbs must be >= 0");
+        }
+        this.optimizer = optimizer;
+        this.climbs = climbs;
+    }
+
+    @Override
+    protected Callable<State> task(Worker worker, int index, int count,
+            List<ShapeType> shapeTypes, int alpha, int n, int age) {
+        int m = climbs == 0 ? count : climbs;
+        int wm = share(m, index, count);
+        if (wm == 0) {
+            return null;
+        }
+        int wn = Math.max(1, (n + m - 1) / m);
+        return () -> worker.bestOptimizedState(shapeTypes, alpha, wn, age, wm, optimizer);
+    }
+
+    @Override
+    public State refine(State state, int age) {
+        return optimizer.optimize(state, age);
+    }
+
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+
+    public int getClimbs() {
+        return climbs;
+    }
+}
@@ -3,16 +3,27 @@ package jxtras.primitive;
 import java.util.List;
 
 import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.image.PlanarBitmap;
+import jxtras.primitive.kernel.SpanKernel;
+import jxtras.primitive.kernel.SpanKernels;
 import jxtras.primitive.util.Colour;
 import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
 import jxtras.primitive.shape.Shape;
 import jxtras.primitive.shape.ShapeFactory;
 import jxtras.primitive.shape.ShapeType;
 import jxtras.primitive.util.Mathematics;
+import jxtras.primitive.util.RandomSource;
 
 public class Core {
     /**
-     * Calculates the color of the scanlines.
+     * The kernel running the fused, allocation-free evaluation of the scanlines.
+     */
+    private static final SpanKernel KERNEL = SpanKernels.get();
+
+    /**
+     * Calculates the color of the scanlines, each pixel weighing as much as the coverage of its
+     * scanline.
      *
      * @param target    The target image.
      * @param current   The current image.
@@ -33,27 +44,27 @@ public class Core {
                 continue;
             }
 
-            for (int x = scanline.x1; x <= scanline.x2; x++) {
-                if (x < 0 || x >= width) {
-                    continue;
-                }
-
-                int tc = target.getPixel(x, y);
+            final int offset = target.rowOffset(y);
+            final int x1 = Math.max(scanline.x1, 0);
+            final int x2 = Math.min(scanline.x2, width - 1);
+            final double w = SpanKernel.weight(scanline.alpha);
+            for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+                int tc = target.getPixelUnchecked(i);
                 int tr = Colour.red(tc);
                 int tg = Colour.green(tc);
                 int tb = Colour.blue(tc);
 
-                int cc = current.getPixel(x, y);
+                int cc = current.getPixelUnchecked(i);
                 int cr = Colour.red(cc);
                 int cg = Colour.green(cc);
                 int cb = Colour.blue(cc);
 
                 // Mix the red, green and blue components, blending by the given alpha value
-                rsum += (tr - cr) * a + cr * 0x101;
-                gsum += (tg - cg) * a + cg * 0x101;
-                bsum += (tb - cb) * a + cb * 0x101;
+                rsum += ((tr - cr) * a + cr * 0x101) * w;
+                gsum += ((tg - cg) * a + cg * 0x101) * w;
+                bsum += ((tb - cb) * a + cb * 0x101) * w;
 
-                total++;
+                total += w;
             }
         }
 
@@ -77,29 +88,6 @@ public class Core {
      * @param scanlines The scanline to draw.
      */
     public static void drawLines(Bitmap image, int color, List<Scanline> scanlines) {
-        final int m = 0xFFFF;
-
-        long sa = Colour.alpha(color);
-        long sr = Colour.red(color);
-        long sg = Colour.green(color);
-        long sb = Colour.blue(color);
-
-        // Convert the non-premultiplied 8-bits per channel ARGB to alpha-premultiplied
-        // 16-bits per channel ARGB
-        sr |= sr << 8;
-        sr *= sa;
-        sr = (sr / 255);
-
-        sg |= sg << 8;
-        sg *= sa;
-        sg = (sg / 255);
-
-        sb |= sb << 8;
-        sb *= sa;
-        sb = (sb / 255);
-
-        sa |= sa << 8;
-
         int w = image.getWidth();
         int h = image.getHeight();
         for (Scanline scanline : scanlines) {
@@ -107,39 +95,37 @@ public class Core {
             if (y < 0 || y >= h) {
                 continue;
             }
-
-            // ma is alpha-premultiplied 16-bits int
-            long ma = scanline.alpha;
-            long  a = (m - sa * ma / m) * 0x101;
-
-            long sama = sa * ma;
-            long srma = sr * ma;
-            long sgma = sg * ma;
-            long sbma = sb * ma;
-
-            for (int x = scanline.x1; x <= scanline.x2; x++) {
-                if (x < 0 || x >= w) {
-                    continue;
-                }
-
-                // Get the dst color
-                int dc = image.getPixel(x, y);
-                int da = Colour.alpha(dc);
-                int dr = Colour.red(dc);
-                int dg = Colour.green(dc);
-                int db = Colour.blue(dc);
-
+            final int x1 = Math.max(scanline.x1, 0);
+            final int x2 = Math.min(scanline.x2, w - 1);
+            if (x1 <= x2) {
                 // Blend dst and src color as (src in mask) over dst
-                int ba = Mathematics.clamp((int)((da * a + sama) / m >> 8), 0, 255);
-                int br = Mathematics.clamp((int)((dr * a + srma) / m >> 8), 0, 255);
-                int bg = Mathematics.clamp((int)((dg * a + sgma) / m >> 8), 0, 255);
-                int bb = Mathematics.clamp((int)((db * a + sbma) / m >> 8), 0, 255);
-
-                image.setPixel(x, y, Colour.argb(ba, br, bg, bb));
+                image.fillSpanBlend(y, x1, x2, color, scanline.alpha);
             }
         }
     }
 
+    /**
+     * Draws the scanlines onto an image, with the kernel selected for this JVM.
+     *
+     * @param image The image to be drawn to.
+     * @param color The color of the scanlines.
+     * @param lines The scanlines to draw.
+     */
+    public static void drawLines(Bitmap image, int color, ScanlineBuffer lines) {
+        KERNEL.drawLines(image, color, lines);
+    }
+
+    /**
+     * Draws the scanlines onto a planar image, with the kernel selected for this JVM.
+     *
+     * @param image The image to be drawn to.
+     * @param color The color of the scanlines.
+     * @param lines The scanlines to draw.
+     */
+    public static void drawLines(PlanarBitmap image, int color, ScanlineBuffer lines) {
+        KERNEL.drawLines(image, color, lines);
+    }
+
     /**
      * Copies source pixels to a destination defined by a set of scanlines.
      *
@@ -155,11 +141,10 @@ public class Core {
             if (y < 0 || y >= height) {
                 continue;
             }
-            for (int x = scanline.x1; x <= scanline.x2; x++) {
-                if (x < 0 || x >= width) {
-                    continue;
-                }
-                destination.setPixel(x, y, source.getPixel(x, y));
+            final int x1 = Math.max(scanline.x1, 0);
+            final int x2 = Math.min(scanline.x2, width - 1);
+            if (x1 <= x2) {
+                destination.copySpan(source, y, x1, x2);
             }
         }
     }
@@ -177,9 +162,10 @@ public class Core {
         int height = first.getHeight();
         double count = width * height * (first.isTranslucent() ? 4 : 3);
         for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int ac = first.getPixel(x, y);
-                int bc = second.getPixel(x, y);
+            final int offset = first.rowOffset(y);
+            for (int i = offset, end = offset + width; i < end; i++) {
+                int ac = first.getPixelUnchecked(i);
+                int bc = second.getPixelUnchecked(i);
                 if (first.isTranslucent()) {
                     int aa = Colour.alpha(ac);
                     int ar = Colour.red(ac);
@@ -205,6 +191,23 @@ public class Core {
         return Math.sqrt(total / count) / 255.0;
     }
 
+    /**
+     * Calculates the exact total squared error between two bitmaps, the sum of
+     * {@link #differenceRow(Bitmap, Bitmap, int)} over all the rows.
+     *
+     * @param first  The first bitmap.
+     * @param second The second bitmap.
+     * @return The total squared error.
+     * @see #score(Bitmap, long)
+     */
+    public static long differenceTotal(Bitmap first, Bitmap second) {
+        long total = 0L;
+        for (int y = 0; y < first.getHeight(); y++) {
+            total += differenceRow(first, second, y);
+        }
+        return total;
+    }
+
     /**
      * Calculates the root-mean-square error between the parts of the two bitmaps within the
      * scanline mask.
@@ -233,14 +236,13 @@ public class Core {
                 continue;
             }
 
-            for (int x = scanline.x1; x <= scanline.x2; x++) {
-                if (x < 0 || x >= width) {
-                    continue;
-                }
-
-                int tc = target.getPixel(x, y);
-                int bc = before.getPixel(x, y);
-                int ac = after.getPixel(x, y);
+            final int offset = target.rowOffset(y);
+            final int x1 = Math.max(scanline.x1, 0);
+            final int x2 = Math.min(scanline.x2, width - 1);
+            for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+                int tc = target.getPixelUnchecked(i);
+                int bc = before.getPixelUnchecked(i);
+                int ac = after.getPixelUnchecked(i);
 
                 if (target.isTranslucent()) {
 
@@ -290,6 +292,127 @@ public class Core {
         return result;
     }
 
+    /**
+     * Calculates the color of the scanlines directly from the raw pixel arrays.
+     * <p>
+     * Produces the same result as {@link #computeColor(Bitmap, Bitmap, List, int)}, up to the
+     * rounding of the sums, but skips the per-pixel bounds checks, the scanlines are clipped once
+     * per row instead. The channels are summed exactly and blended once at the end, which lets
+     * the SIMD kernel produce the same result.
+     *
+     * @param target  The target image.
+     * @param current The current image.
+     * @param lines   The scanlines.
+     * @param alpha   The alpha of the scanline.
+     * @return The color of the scanlines.
+     */
+    static int computeColorFused(Bitmap target, Bitmap current, ScanlineBuffer lines,
+            int alpha) {
+        return KERNEL.computeColor(target, current, lines, alpha);
+    }
+
+    /**
+     * Calculates the exact change of the total squared error between the target and the current
+     * bitmap if the scanlines were drawn onto the current bitmap with the given color.
+     * <p>
+     * The blended pixels are computed on the fly and never written anywhere. Overlapping
+     * scanlines are blended once each against the current bitmap, rather than on top of
+     * each other.
+     *
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     * @param color   The color the scanlines would be drawn with.
+     * @param lines   The scanlines.
+     * @return The change of the total squared error, negative if drawing improves the image.
+     */
+    static long differenceDelta(Bitmap target, Bitmap current, int color, ScanlineBuffer lines) {
+        return KERNEL.differenceDelta(target, current, color, lines);
+    }
+
+    /**
+     * Calculates the color of the scanlines over planar bitmaps, same as
+     * {@link #computeColorFused(Bitmap, Bitmap, ScanlineBuffer, int)}.
+     */
+    static int computeColorFused(PlanarBitmap target, PlanarBitmap current, ScanlineBuffer lines,
+            int alpha) {
+        return KERNEL.computeColor(target, current, lines, alpha);
+    }
+
+    /**
+     * Calculates the exact change of the total squared error over planar bitmaps, same as
+     * {@link #differenceDelta(Bitmap, Bitmap, int, ScanlineBuffer)}.
+     */
+    static long differenceDelta(PlanarBitmap target, PlanarBitmap current, int color,
+            ScanlineBuffer lines) {
+        return KERNEL.differenceDelta(target, current, color, lines);
+    }
+
+    /**
+     * Calculates the total squared error between a row of two bitmaps, using the same metric as
+     * {@link #differenceFull(Bitmap, Bitmap)}.
+     *
+     * @param first  The first bitmap.
+     * @param second The second bitmap.
+     * @param y      The row.
+     * @return The exact sum of the squared errors of the row.
+     */
+    public static long differenceRow(Bitmap first, Bitmap second, int y) {
+        return differenceSpan(first, second, y, 0, first.getWidth() - 1);
+    }
+
+    /**
+     * Calculates the total squared error between a span of two bitmaps, using the same metric as
+     * {@link #differenceFull(Bitmap, Bitmap)}. The span must lie within the bitmaps.
+     *
+     * @param first  The first bitmap.
+     * @param second The second bitmap.
+     * @param y      The row.
+     * @param x1     The leftmost x-coordinate of the span.
+     * @param x2     The rightmost x-coordinate of the span.
+     * @return The exact sum of the squared errors of the span.
+     */
+    public static long differenceSpan(Bitmap first, Bitmap second, int y, int x1, int x2) {
+        final int[] fp = first.getPixels();
+        final int[] sp = second.getPixels();
+        final boolean translucent = first.isTranslucent();
+
+        long total = 0L;
+        final int offset = first.rowOffset(y);
+        for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+            int ac = fp[i];
+            int bc = sp[i];
+            int ar = (ac >> 16) & 0xFF;
+            int ag = (ac >> 8) & 0xFF;
+            int ab = ac & 0xFF;
+            int br = (bc >> 16) & 0xFF;
+            int bg = (bc >> 8) & 0xFF;
+            int bb = bc & 0xFF;
+            if (translucent) {
+                int da = (ac >>> 24) - (bc >>> 24);
+                int dr = ar - br;
+                int dg = ag - bg;
+                int db = ab - bb;
+                total += (da * da + dr * dr + dg * dg + db * db);
+            } else {
+                total += Colour.distance(ar, ag, ab, br, bg, bb);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Converts a total squared error into the root-mean-square error returned by
+     * {@link #differenceFull(Bitmap, Bitmap)}.
+     *
+     * @param target The target bitmap, which determines the number of samples.
+     * @param total  The total squared error.
+     * @return The difference/error measure, in the range [0, 1].
+     */
+    public static double score(Bitmap target, long total) {
+        double count = target.getWidth() * target.getHeight() * (target.isTranslucent() ? 4 : 3);
+        return Math.sqrt(Math.max(total, 0L) / count) / 255.0;
+    }
+
     /**
      * Gets the best state using a random algorithm.
      *
@@ -298,21 +421,49 @@ public class Core {
      * @param n          The number of states to try.
      * @param target     The target bitmap.
      * @param current    The current bitmap.
-     * @param buffer     The buffer bitmap.
-     * @param lastScore  The last score recorded by the model.
+     * @param total      The exact total squared error of the current bitmap.
+     * @param rnd        The source of randomness.
+     * @return The best random state i.e. the one with the lowest energy.
+     */
+    public static State bestRandomState(List<ShapeType> shapeTypes, int alpha, int n,
+            Bitmap target, Bitmap current, long total, RandomSource rnd) {
+        return bestRandomState(shapeTypes, alpha, n, target, current, total, rnd, null);
+    }
+
+    /**
+     * Gets the best state using a random algorithm, the states are placed by the given sampler.
+     *
+     * @param shapeTypes The types of shape to use.
+     * @param alpha      The opacity of the shape.
+     * @param n          The number of states to try.
+     * @param target     The target bitmap.
+     * @param current    The current bitmap.
+     * @param total      The exact total squared error of the current bitmap.
+     * @param rnd        The source of randomness.
+     * @param sampler    The sampler to place the shapes with, <code>null</code> to place them
+     *                   uniformly.
      * @return The best random state i.e. the one with the lowest energy.
      */
     public static State bestRandomState(List<ShapeType> shapeTypes, int alpha, int n,
-            Bitmap target, Bitmap current, Bitmap buffer, double lastScore) {
+            Bitmap target, Bitmap current, long total, RandomSource rnd,
+            PositionSampler sampler) {
         State bestState = null;
         double bestEnergy = 0.0D;
 
         int width = current.getWidth();
         int height = current.getHeight();
+        ScanlineBuffer lines = new ScanlineBuffer();
         for (int i = 0; i < n; i++) {
-            Shape shape = ShapeFactory.randomShapeOf(shapeTypes, width, height);
-            State state = new State(shape, alpha, target, current, buffer);
-            double energy = state.energy(lastScore);
+            Shape shape;
+            if (sampler == null) {
+                shape = ShapeFactory.randomShapeOf(shapeTypes, width, height, rnd);
+            } else {
+                int position = sampler.next(rnd);
+                shape = ShapeFactory.randomShapeOf(shapeTypes, position % width,
+                        position / width, width, height, rnd);
+            }
+            State state = new State(shape, alpha, target, current, lines, rnd);
+            double energy = state.energy(total);
             if (i == 0 || energy < bestEnergy) {
                 bestEnergy = energy;
                 bestState = state;
@@ -330,14 +481,14 @@ public class Core {
      * @param age        The number of hillclimbing steps.
      * @param target     The target bitmap.
      * @param current    The current bitmap.
-     * @param buffer     The buffer bitmap.
-     * @param lastScore  The last score recorded by the model.
+     * @param total      The exact total squared error of the current bitmap.
+     * @param rnd        The source of randomness.
      * @return The best state acquired from hill climbing i.e. the one with the lowest energy.
      */
     public static State bestHillClimbState(List<ShapeType> shapeTypes, int alpha, int n, int age,
-            Bitmap target, Bitmap current, Bitmap buffer, double lastScore) {
-        State state = bestRandomState(shapeTypes, alpha, n, target, current, buffer, lastScore);
-        state = hillClimb(state, age, lastScore);
+            Bitmap target, Bitmap current, long total, RandomSource rnd) {
+        State state = bestRandomState(shapeTypes, alpha, n, target, current, total, rnd);
+        state = hillClimb(state, age, total);
         // System.out.println("bestHillClimbState: " + state.shape.getType());
         return state;
     }
@@ -347,10 +498,10 @@ public class Core {
      *
      * @param state     The state to optimize.
      * @param maxAge    The maximum age.
-     * @param lastScore The last score recorded by the model.
+     * @param total     The exact total squared error of the current bitmap.
      * @return The best state found from hillclimbing.
      */
-    public static State hillClimb(State state, int maxAge, double lastScore) {
+    public static State hillClimb(State state, int maxAge, long total) {
         State s = state.copy();
         State bestState = state.copy();
         double bestEnergy = state.score;
@@ -358,7 +509,7 @@ public class Core {
         int age = 0;
         while (age < maxAge) {
             State undo = s.mutate();
-            double energy = s.energy(lastScore);
+            double energy = s.energy(total);
             if (energy >= bestEnergy) {
                 s = undo;
             } else {
@@ -418,4 +569,90 @@ public class Core {
         // Get error measure between areas of current and modified buffers covered by scanlines
         return differencePartial(target, current, buffer, score, scanlines);
     }
+
+    /**
+     * Calculates a measure of the improvement adding the shape provides - lower energy is better.
+     * <p>
+     * Equivalent to {@link #energy(Shape, int, Bitmap, Bitmap, Bitmap, double)}, but the scanlines
+     * are walked twice (color, then error) over the raw pixels and no buffer bitmap is written.
+     * The energy is the score of the exact total after the change, see
+     * {@link #energyDelta(Shape, int, Bitmap, Bitmap, ScanlineBuffer)}.
+     *
+     * @param shape   The shape to check.
+     * @param alpha   The alpha of the shape.
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     * @param total   The exact total squared error of the current bitmap.
+     * @return The energy measure.
+     * @see #differenceTotal(Bitmap, Bitmap)
+     */
+    public static double energy(Shape shape, int alpha, Bitmap target, Bitmap current,
+            long total) {
+        return energy(shape, alpha, target, current, new ScanlineBuffer(), total);
+    }
+
+    /**
+     * Calculates a measure of the improvement adding the shape provides - lower energy is better.
+     * <p>
+     * The shape is rasterized into the given buffer, which is cleared first, so repeated calls
+     * with the same buffer do not allocate.
+     *
+     * @param shape   The shape to check.
+     * @param alpha   The alpha of the shape.
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     * @param lines   The scratch buffer to rasterize the shape into.
+     * @param total   The exact total squared error of the current bitmap.
+     * @return The energy measure.
+     * @see #differenceTotal(Bitmap, Bitmap)
+     */
+    public static double energy(Shape shape, int alpha, Bitmap target, Bitmap current,
+            ScanlineBuffer lines, long total) {
+        return score(target, total + energyDelta(shape, alpha, target, current, lines));
+    }
+
+    /**
+     * Calculates the exact change of the total squared error adding the shape provides - lower
+     * is better.
+     * <p>
+     * The shape is rasterized into the given buffer, which is cleared first, so repeated calls
+     * with the same buffer do not allocate.
+     *
+     * @param shape   The shape to check.
+     * @param alpha   The alpha of the shape.
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     * @param lines   The scratch buffer to rasterize the shape into.
+     * @return The change of the total squared error.
+     * @see #score(Bitmap, long)
+     */
+    public static long energyDelta(Shape shape, int alpha, Bitmap target, Bitmap current,
+            ScanlineBuffer lines) {
+        lines.clear();
+        shape.rasterize(lines);
+        lines.normalize();
+        int color = computeColorFused(target, current, lines, alpha);
+        return differenceDelta(target, current, color, lines);
+    }
+
+    /**
+     * Calculates the exact change of the total squared error adding the shape provides, over
+     * planar bitmaps. Same as
+     * {@link #energyDelta(Shape, int, Bitmap, Bitmap, ScanlineBuffer)}.
+     *
+     * @param shape   The shape to check.
+     * @param alpha   The alpha of the shape.
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     * @param lines   The scratch buffer to rasterize the shape into.
+     * @return The change of the total squared error.
+     */
+    public static long energyDelta(Shape shape, int alpha, PlanarBitmap target,
+            PlanarBitmap current, ScanlineBuffer lines) {
+        lines.clear();
+        shape.rasterize(lines);
+        lines.normalize();
+        int color = computeColorFused(target, current, lines, alpha);
+        return differenceDelta(target, current, color, lines);
+    }
 }
@@ -0,0 +1,218 @@
+package jxtras.primitive;
+
+import java.util.List;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+
+/**
+ * The <code>ErrorMap</code> keeps the exact squared error between a target and a current
+ * bitmap, broken down per row and per square tile.
+ * <p>
+ * The error is stored per cell, a cell being the part of a row that lies within one tile. When
+ * shapes are drawn onto the current bitmap only the cells they touch are summed again, so the
+ * total, row and tile errors are always exact and can be queried in constant time.
+ */
+public class ErrorMap {
+    /**
+     * The default width and height of a tile, in pixels.
+     */
+    public static final int DEFAULT_TILE_SIZE = 16;
+
+    private final Bitmap target, current;
+    private final int width, height;
+    private final int tileSize, tilesX, tilesY;
+
+    /**
+     * The error of each cell, indexed by <code>y * tilesX + tx</code>.
+     */
+    private final long[] cells;
+    private final long[] rows;
+    private final long[] tiles;
+    private long total;
+
+    /**
+     * Creates an error map with tiles of the default size.
+     *
+     * @param target  The target bitmap.
+     * @param current The current bitmap, which the map must be notified about when drawn to.
+     */
+    public ErrorMap(Bitmap target, Bitmap current) {
+        this(target, current, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Creates an error map, the initial errors are computed with a full pass over the bitmaps.
+     *
+     * @param target   The target bitmap.
+     * @param current  The current bitmap, which the map must be notified about when drawn to.
+     * @param tileSize The width and height of a tile, in pixels.
+     */
+    public ErrorMap(Bitmap target, Bitmap current, int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize must be >= 1");
+        }
+        if (target.getWidth() != current.getWidth() || target.getHeight() != current.getHeight()) {
+            throw new IllegalArgumentException("bitmaps must be of the same size");
+        }
+        this.target = target;
+        this.current = current;
+        this.width = target.getWidth();
+        this.height = target.getHeight();
+        this.tileSize = tileSize;
+        this.tilesX = (width + tileSize - 1) / tileSize;
+        this.tilesY = (height + tileSize - 1) / tileSize;
+        this.cells = new long[height * tilesX];
+        this.rows = new long[height];
+        this.tiles = new long[tilesX * tilesY];
+        for (int y = 0; y < height; y++) {
+            update(y, 0, width - 1);
+        }
+    }
+
+    /**
+     * Sums again the cells covered by the scanlines, after they have been drawn onto the current
+     * bitmap.
+     *
+     * @param scanlines The scanlines drawn onto the current bitmap.
+     */
+    public void update(List<Scanline> scanlines) {
+        for (Scanline scanline : scanlines) {
+            update(scanline.y, scanline.x1, scanline.x2);
+        }
+    }
+
+    /**
+     * Sums again the cells covered by the scanlines, after they have been drawn onto the current
+     * bitmap.
+     *
+     * @param lines The scanlines drawn onto the current bitmap.
+     */
+    public void update(ScanlineBuffer lines) {
+        for (int n = 0; n < lines.count; n++) {
+            update(lines.y[n], lines.x1[n], lines.x2[n]);
+        }
+    }
+
+    /**
+     * Sums again the cells covered by the given span of a row. Parts of the span outside the
+     * bitmaps are ignored.
+     *
+     * @param y  The row.
+     * @param x1 The leftmost x-coordinate of the span.
+     * @param x2 The rightmost x-coordinate of the span.
+     */
+    public void update(int y, int x1, int x2) {
+        if (y < 0 || y >= height) {
+            return;
+        }
+        x1 = Math.max(x1, 0);
+        x2 = Math.min(x2, width - 1);
+        if (x1 > x2) {
+            return;
+        }
+        final int ty = y / tileSize;
+        for (int tx = x1 / tileSize, end = x2 / tileSize; tx <= end; tx++) {
+            int cx1 = tx * tileSize;
+            int cx2 = Math.min(cx1 + tileSize, width) - 1;
+            long error = Core.differenceSpan(target, current, y, cx1, cx2);
+            int cell = y * tilesX + tx;
+            long delta = error - cells[cell];
+            if (delta != 0) {
+                cells[cell] = error;
+                rows[y] += delta;
+                tiles[ty * tilesX + tx] += delta;
+                total += delta;
+            }
+        }
+    }
+
+    /**
+     * Returns the exact total squared error between the bitmaps.
+     *
+     * @return The total squared error.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the root-mean-square error between the bitmaps, equal to
+     * {@link Core#differenceFull(Bitmap, Bitmap)} but computed in constant time.
+     *
+     * @return The difference/error measure, in the range [0, 1].
+     */
+    public double getScore() {
+        return Core.score(target, total);
+    }
+
+    /**
+     * Returns the exact squared error of a row.
+     *
+     * @param y The row.
+     * @return The squared error of the row.
+     */
+    public long getRowError(int y) {
+        return rows[y];
+    }
+
+    /**
+     * Returns the exact squared error of a tile.
+     *
+     * @param tx The column of the tile.
+     * @param ty The row of the tile.
+     * @return The squared error of the tile.
+     */
+    public long getTileError(int tx, int ty) {
+        return tiles[ty * tilesX + tx];
+    }
+
+    /**
+     * Copies the squared error of every row into the given array.
+     *
+     * @param dst The array to copy into, allocated if <code>null</code> or too short.
+     * @return The array holding the row errors.
+     */
+    public long[] getRowErrors(long[] dst) {
+        if (dst == null || dst.length < height) {
+            dst = new long[height];
+        }
+        System.arraycopy(rows, 0, dst, 0, height);
+        return dst;
+    }
+
+    /**
+     * Copies the squared error of every tile into the given array, in row-major order.
+     *
+     * @param dst The array to copy into, allocated if <code>null</code> or too short.
+     * @return The array holding the tile errors.
+     */
+    public long[] getTileErrors(long[] dst) {
+        if (dst == null || dst.length < tiles.length) {
+            dst = new long[tiles.length];
+        }
+        System.arraycopy(tiles, 0, dst, 0, tiles.length);
+        return dst;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getTilesX() {
+        return tilesX;
+    }
+
+    public int getTilesY() {
+        return tilesY;
+    }
+}
@@ -0,0 +1,179 @@
+package jxtras.primitive;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import jxtras.primitive.shape.ShapeType;
+
+/**
+ * The <code>EvolutionSearch</code> refines the candidates with a <code>(mu + lambda)</code>
+ * evolution strategy: each generation, <code>lambda</code> mutants of the <code>mu</code>
+ * best states so far are evaluated as one batch spread over all the workers, then the
+ * <code>mu</code> best of the parents and the mutants become the next parents. With
+ * <code>mu = 1</code> it is a <code>(1 + lambda)</code> strategy, a hill climb trying
+ * <code>lambda</code> mutations at a time.
+ * <p>
+ * A {@link ClimbSearch} only runs its climbs in parallel, each one a chain of mutations in a
+ * row. Here the mutations of a single chain are evaluated in parallel, so with enough workers a
+ * shape is found in fewer rounds. The mutants are dealt to the workers in order and each worker
+ * mutates them with its own source of randomness, so the outcome does not depend on thread
+ * scheduling. A parent wins a tie with a mutant.
+ * <p>
+ * The search stops once the best state has not improved for as many mutations as the age of a
+ * hill climb, rounded up to whole generations.
+ */
+public class EvolutionSearch implements SearchStrategy {
+    /**
+     * Orders the states by energy, the sort keeps the parents first on a tie.
+     */
+    private static final Comparator<State> BY_ENERGY =
+            Comparator.comparingDouble(State::energy);
+
+    /**
+     * The number of parents.
+     */
+    private final int mu;
+
+    /**
+     * The number of mutants per generation, 0 for one per worker.
+     */
+    private final int lambda;
+
+    /**
+     * Creates a <code>(1 + lambda)</code> strategy with one mutant per worker and generation.
+     */
+    public EvolutionSearch() {
+        this(1, 0);
+    }
+
+    /**
+     * Creates a <code>(mu + lambda)</code> strategy.
+     *
+     * @param mu     The number of parents, at least 1.
+     * @param lambda The number of mutants per generation, 0 for one per worker.
+     */
+    public EvolutionSearch(int mu, int lambda) {
+        if (mu < 1) {
+            throw new IllegalArgumentException("mu must be >= 1");
+        }
+        if (lambda < 0) {
+            throw new IllegalArgumentException("lambda must be >= 0");
+        }
+        this.mu = mu;
+        this.lambda = lambda;
+    }
+
+    @Override
+    public State search(List<Worker> workers, List<ShapeType> shapeTypes, int alpha, int n,
+            int age) {
+        // The first parents are the best random states, drawn by all the workers at once
+        List<Callable<List<State>>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers.size(); i++) {
+            Worker worker = workers.get(i);
+            int share = ParallelSearch.share(n, i, workers.size());
+            if (share == 0) {
+                continue;
+            }
+            tasks.add(() -> {
+                List<State> states = new ArrayList<>(share);
+                for (int k = 0; k < share; k++) {
+                    State state = worker.randomState(shapeTypes, alpha);
+                    state.energy();
+                    states.add(state);
+                }
+                return select(states);
+            });
+        }
+        List<State> parents = new ArrayList<>();
+        for (List<State> states : Model.runAll(tasks)) {
+            parents.addAll(states);
+        }
+        State best = evolve(workers, select(parents), age);
+        return best.worker.rescore(best);
+    }
+
+    @Override
+    public State refine(State state, int age) {
+        State best = evolve(Collections.singletonList(state.worker),
+                Collections.singletonList(state.copy2()), age);
+        return best.worker.rescore(best);
+    }
+
+    /**
+     * Evolves the parents until the best one stops improving, and returns it.
+     */
+    private State evolve(List<Worker> workers, List<State> parents, int age) {
+        final int count = workers.size();
+        final int lambda = this.lambda == 0 ? count : this.lambda;
+        final int generations = Math.max(1, (age + lambda - 1) / lambda);
+        double bestEnergy = parents.get(0).energy();
+        int stale = 0;
+        while (stale < generations) {
+            final List<State> generation = parents;
+            List<Callable<List<State>>> tasks = new ArrayList<>(count);
+            int first = 0;
+            for (int i = 0; i < count; i++) {
+                int share = ParallelSearch.share(lambda, i, count);
+                if (share == 0) {
+                    continue;
+                }
+                Worker worker = workers.get(i);
+                int from = first;
+                tasks.add(() -> mutants(worker, generation, from, share));
+                first += share;
+            }
+
+            List<State> pool = new ArrayList<>(parents.size() + lambda);
+            pool.addAll(parents);
+            for (List<State> mutants : Model.runAll(tasks)) {
+                pool.addAll(mutants);
+            }
+            parents = select(pool);
+
+            double energy = parents.get(0).energy();
+            if (energy < bestEnergy) {
+                bestEnergy = energy;
+                stale = 0;
+            } else {
+                stale++;
+            }
+        }
+        return parents.get(0);
+    }
+
+    /**
+     * Mutates and evaluates the mutants <code>from</code> to <code>from + count - 1</code> of the
+     * generation on the given worker, mutant <code>k</code> coming from parent <code>k mod
+     * mu</code>.
+     */
+    private static List<State> mutants(Worker worker, List<State> parents, int from, int count) {
+        List<State> mutants = new ArrayList<>(count);
+        for (int k = from; k < from + count; k++) {
+            State mutant = parents.get(k % parents.size()).copyTo(worker);
+            mutant.move();
+            mutant.energy();
+            mutants.add(mutant);
+        }
+        return mutants;
+    }
+
+    /**
+     * Returns the <code>mu</code> states with the lowest energy, best first.
+     */
+    private List<State> select(List<State> states) {
+        List<State> sorted = new ArrayList<>(states);
+        sorted.sort(BY_ENERGY);
+        return new ArrayList<>(sorted.subList(0, Math.min(mu, sorted.size())));
+    }
+
+    public int getMu() {
+        return mu;
+    }
+
+    public int getLambda() {
+        return lambda;
+    }
+}
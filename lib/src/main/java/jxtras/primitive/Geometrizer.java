@@ -45,6 +45,21 @@ public class Geometrizer {
         model = new Model(image, background, size);
     }
 
+    /**
+     * Creates a reproducible <code>Geometrizer</code> to be used for recreating the given image.
+     * Two geometrizers created with the same arguments produce identical results.
+     *
+     * @param image      The target image to be recreated with geometric primitives
+     * @param background The background color (in ARGB888 format) of the canvas for
+     *                   this <code>Geometrizer</code> to draw on
+     * @param size       The output image size
+     * @param numThreads The number of worker threads
+     * @param seed       The seed of the random number generator
+     */
+    public Geometrizer(Bitmap image, int background, int size, int numThreads, long seed) {
+        model = new Model(image, background, size, numThreads, seed);
+    }
+
     /**
      * Updates the model once.
      *
@@ -110,6 +125,23 @@ public class Geometrizer {
         return model.step(shapeTypes, alpha, candidateShapesPerStep, shapeMutationsPerStep, repeat);
     }
 
+    /**
+     * Updates the model once, searching with the given strategy.
+     *
+     * @param strategy               The strategy to search for the shapes with.
+     * @param shapeTypes             The types of shapes to use when generating the image.
+     * @param alpha                  The opacity of the shapes (0-255).
+     * @param candidateShapesPerStep The number of candidate shapes to try per model step.
+     * @param shapeMutationsPerStep  The number of times to mutate each candidate shape.
+     * @param repeat                 The number of extra shapes added in each iteration with reduced search (mostly good for beziers)
+     * @return A <code>ShapeResult</code> for each of the shapes just added to the model on this
+     * step.
+     * @see Model#step(SearchStrategy, List, int, int, int, int)
+     */
+    public List<ShapeResult> step(SearchStrategy strategy, List<ShapeType> shapeTypes, int alpha, int candidateShapesPerStep, int shapeMutationsPerStep, int repeat) {
+        return model.step(strategy, shapeTypes, alpha, candidateShapesPerStep, shapeMutationsPerStep, repeat);
+    }
+
     /**
      * Gets the current image with the shapes drawn on it.
      *
@@ -123,10 +155,100 @@ public class Geometrizer {
         return model.target;
     }
 
+    /**
+     * Gets the root-mean-square error between the current and the target image. It is kept up
+     * to date as shapes are added, so this does not scan the images.
+     *
+     * @return The current score.
+     */
     public double getScore() {
         return model.score;
     }
 
+    /**
+     * Sets whether candidate shapes are placed where the current image differs most from the
+     * target, rather than uniformly.
+     *
+     * @param enabled <code>true</code> to place the candidates by error.
+     * @see Model#setImportanceSampling(boolean)
+     */
+    public void setImportanceSampling(boolean enabled) {
+        model.setImportanceSampling(enabled);
+    }
+
+    /**
+     * Sets whether the search runs on planar copies of the images, one plane per channel.
+     *
+     * @param enabled <code>true</code> to search on planar images.
+     * @see Model#setPlanar(boolean)
+     */
+    public void setPlanar(boolean enabled) {
+        model.setPlanar(enabled);
+    }
+
+    /**
+     * Sets whether the energy of rectangles is estimated in constant time during the hill
+     * climbs, exactly but for the per-pixel rounding of the blend and of the color distance.
+     *
+     * @param enabled <code>true</code> to estimate the energy of rectangles.
+     * @see Model#setRectangleEstimation(boolean)
+     */
+    public void setRectangleEstimation(boolean enabled) {
+        model.setRectangleEstimation(enabled);
+    }
+
+    /**
+     * Sets whether the candidates are evaluated from the pixels their mutations changed, when
+     * their color is unchanged.
+     *
+     * @param enabled <code>true</code> to evaluate the candidates incrementally.
+     * @see Model#setIncrementalEvaluation(boolean)
+     */
+    public void setIncrementalEvaluation(boolean enabled) {
+        model.setIncrementalEvaluation(enabled);
+    }
+
+    /**
+     * Sets whether the shapes are rasterized with anti-aliasing, matching the rendering of the
+     * exported SVG more closely.
+     *
+     * @param enabled <code>true</code> to rasterize the shapes with anti-aliasing.
+     * @see Model#setAntialiasing(boolean)
+     */
+    public void setAntialiasing(boolean enabled) {
+        model.setAntialiasing(enabled);
+    }
+
+    /**
+     * Sets the strategy the shapes are searched for with.
+     *
+     * @param strategy The search strategy, e.g. a {@link RandomSearch}.
+     * @see Model#setSearchStrategy(SearchStrategy)
+     */
+    public void setSearchStrategy(SearchStrategy strategy) {
+        model.setSearchStrategy(strategy);
+    }
+
+    /**
+     * Sets the optimizer the candidate shapes are refined with.
+     *
+     * @param optimizer The optimizer, e.g. an {@link AnnealingOptimizer}.
+     * @see Model#setOptimizer(Optimizer)
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        model.setOptimizer(optimizer);
+    }
+
+    /**
+     * Gets the per-row and per-tile breakdown of the error between the current and the target
+     * image.
+     *
+     * @return The error map.
+     */
+    public ErrorMap getErrorMap() {
+        return model.getErrorMap();
+    }
+
     public Model getModel() {
         return model;
     }
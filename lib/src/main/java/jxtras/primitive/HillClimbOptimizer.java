@@ -0,0 +1,13 @@
+package jxtras.primitive;
+
+/**
+ * The <code>HillClimbOptimizer</code> only ever keeps the mutations which improve the state,
+ * see {@link Core#hillClimb2(State, int)}. It is fast but greedy, so a candidate stops at the
+ * first local minimum it runs into.
+ */
+public class HillClimbOptimizer implements Optimizer {
+    @Override
+    public State optimize(State state, int maxAge) {
+        return Core.hillClimb2(state, maxAge);
+    }
+}
@@ -15,9 +15,13 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Consumer;
 
 import jxtras.primitive.image.Bitmap;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.image.PlanarBitmap;
+import jxtras.primitive.kernel.IntegralImages;
+import jxtras.primitive.kernel.RowSums;
+import jxtras.primitive.raster.ScanlineBuffer;
 import jxtras.primitive.shape.Shape;
 import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.RandomSource;
 
 public class Model {
     /**
@@ -64,14 +68,53 @@ public class Model {
     public  Bitmap current;
 
     /**
-     * The buffered image.
+     * Score derived from calculating the difference between bitmaps.
      */
-    public  Bitmap buffer;
+    public double score;
 
     /**
-     * Score derived from calculating the difference between bitmaps.
+     * The exact per-row and per-tile error between the target and the current bitmap, the score
+     * is derived from it.
      */
-    public double score;
+    ErrorMap errors;
+
+    /**
+     * Whether the random candidates are placed where the error is, rather than uniformly.
+     */
+    boolean importanceSampling;
+
+    /**
+     * The planar copies of the target and the current image the search runs on, or
+     * <code>null</code> to run it on the packed images.
+     */
+    PlanarBitmap planarTarget, planarCurrent;
+
+    /**
+     * The per-row prefix sums of the target and the current image, the colors of the shapes
+     * are computed from them in time proportional to their height rather than their area.
+     */
+    RowSums targetSums, currentSums;
+
+    /**
+     * The summed-area tables the energy of rectangles is estimated with, <code>null</code> to
+     * compute it exactly.
+     */
+    IntegralImages integrals;
+
+    /**
+     * Whether the workers evaluate the candidates from their difference with the last one.
+     */
+    boolean incrementalEvaluation;
+
+    /**
+     * The strategy the steps search for the next shape with.
+     */
+    SearchStrategy searchStrategy = new ClimbSearch(new HillClimbOptimizer());
+
+    /**
+     * The scratch buffer the added shapes are rasterized into.
+     */
+    private final ScanlineBuffer lines = new ScanlineBuffer();
 
     int background;
 
@@ -81,33 +124,28 @@ public class Model {
      * Model for the optimization/fitting algorithm.
      */
     public Model(Bitmap image, int background, int size) {
-        this.target = image;
-        this.current = image.copy().eraseColor(background);
-        this.buffer = image.copy().eraseColor(background);
-
-        this.width = image.getWidth();
-        this.height = image.getHeight();
-        float aspectRatio = (float) width / (float) height;
-        int sw, sh;
-        float scale;
-        if (aspectRatio >= 1) {
-            sw = size;
-            sh = (int)((float) size / aspectRatio);
-            scale = (float) size / (float) width;
-        } else {
-            sw = (int) (size * aspectRatio);
-            sh = size;
-            scale = (float) size / (float) height;
-        }
+        this(image, background, size, NTHREADS);
+    }
 
-        this.scaledWidth = sw;
-        this.scaledHeight = sh;
-        this.scale = scale;
+    /**
+     * Model for the optimization/fitting algorithm, searching with the given number of workers.
+     */
+    public Model(Bitmap image, int background, int size, int numOfWorkers) {
+        this(image, background, size, numOfWorkers, new RandomSource());
+    }
 
-        this.score = Core.differenceFull(target, current);
+    /**
+     * Model for the optimization/fitting algorithm, searching with the given number of workers.
+     * Given the same seed and number of workers, the model adds the same shapes.
+     */
+    public Model(Bitmap image, int background, int size, int numOfWorkers, long seed) {
+        this(image, background, size, numOfWorkers, new RandomSource(seed));
     }
 
-    public Model(Bitmap image, int background, int size, int numOfWorkers) {
+    private Model(Bitmap image, int background, int size, int numOfWorkers, RandomSource rnd) {
+        if (numOfWorkers < 1) {
+            throw new IllegalArgumentException("At least one worker must be specified");
+        }
         this.width = image.getWidth();
         this.height = image.getHeight();
         float aspectRatio = (float) width / (float) height;
@@ -129,19 +167,20 @@ public class Model {
         this.background = background;
         this.target = image;
         this.current = image.copy().eraseColor(background);
-        this.score = Core.differenceFull(target, current);
+        this.errors = new ErrorMap(target, current);
+        this.score = errors.getScore();
+        this.targetSums = new RowSums(target);
+        this.currentSums = new RowSums(current);
         for (int i = 0; i < numOfWorkers; i++) {
-            Worker worker = new Worker(target);
+            // Each worker owns a stream split off in order, independent of thread scheduling
+            Worker worker = new Worker(target, rnd.split());
+            worker.setRowSums(targetSums, currentSums);
             workers.add(worker);
         }
     }
 
     public void add(Shape shape, int alpha) {
-        Bitmap before = current.copy();
-        List<Scanline> scanlines = shape.rasterize();
-        int color = Core.computeColor(target, current, scanlines, alpha);
-        Core.drawLines(current, color, scanlines);
-        score = Core.differencePartial(target, before, current, score, scanlines);
+        int color = draw(shape, alpha);
 
         System.out.println("result: " + Arrays.toString(shape.raw()));
         results.add(new ShapeResult(score, color, shape));
@@ -151,7 +190,7 @@ public class Model {
         State state = runWorkers(shapeType, alpha, 1000, 100, 16);
         add(state.shape, state.alpha);
         for (int i = 0; i < repeat; i++) {
-            state.worker.init(current, score);
+            state.worker.init(current, errors.getTotal());
             double a = state.energy();
             state = Core.hillClimb2(state, 100);
             double b = state.energy();
@@ -219,6 +258,30 @@ public class Model {
         return THREAD_POOL.invokeAll(tasks);
     }
 
+    /**
+     * Runs the tasks on the thread pool, waiting for all of them, and returns their results in
+     * task order.
+     *
+     * @param <T>   The type of the results.
+     * @param tasks The tasks to run.
+     * @return The results of the tasks.
+     * @throws IllegalStateException If a task failed or the wait was interrupted.
+     */
+    public static <T> List<T> runAll(List<? extends Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
     /**
      * Returns the number of available processors
      *
@@ -239,10 +302,11 @@ public class Model {
             wm++;
         }
         final int wwm = wm;
+        PositionSampler sampler = importanceSampling ? new PositionSampler(errors) : null;
         List<Callable<State>> callables = new ArrayList<>();
         for (int i = 0; i < wn; i++) {
             Worker worker = workers.get(i);
-            worker.init(current, score);
+            worker.init(current, errors.getTotal(), sampler);
             callables.add(() -> worker.bestHillClimbState(shapeType, alpha, n, age, wwm));
         }
 
@@ -275,6 +339,44 @@ public class Model {
         return bestState;
     }
 
+    /**
+     * Runs <code>m</code> hill climbs split across the workers, the <code>n</code> random
+     * candidates are divided between the hill climbs.
+     * <p>
+     * The best state of each worker is reduced in worker order, so for a given set of worker
+     * results the outcome does not depend on thread scheduling.
+     *
+     * @param shapeTypes The shape types to use.
+     * @param alpha      The alpha of the shape.
+     * @param n          The total number of random candidates to try.
+     * @param age        The number of mutations to apply to each hill climb.
+     * @param m          The number of hill climbs.
+     * @return The best state found by the workers.
+     */
+    public State runWorkers(List<ShapeType> shapeTypes, int alpha, int n, int age, int m) {
+        return search(new ClimbSearch(new HillClimbOptimizer(), m), shapeTypes, alpha, n, age);
+    }
+
+    /**
+     * Prepares the workers against the current image and runs the search strategy with them.
+     *
+     * @param strategy   The search strategy.
+     * @param shapeTypes The shape types to use.
+     * @param alpha      The alpha of the shape.
+     * @param n          The total number of random candidates to try.
+     * @param age        The number of mutations to apply to each candidate.
+     * @return The best state found by the strategy.
+     */
+    public State search(SearchStrategy strategy, List<ShapeType> shapeTypes, int alpha, int n,
+            int age) {
+        // Built once per step from the current errors, then shared read-only by the workers
+        PositionSampler sampler = importanceSampling ? new PositionSampler(errors) : null;
+        for (Worker worker : workers) {
+            worker.init(current, errors.getTotal(), sampler);
+        }
+        return strategy.search(workers, shapeTypes, alpha, n, age);
+    }
+
     /**
      * Steps the optimization/fitting algorithm.
      *
@@ -286,15 +388,35 @@ public class Model {
      * model in this step.
      */
     public List<ShapeResult> step(List<ShapeType> shapeTypes, int alpha, int n, int age, int repeat) {
-        State state = Core.bestHillClimbState(shapeTypes, alpha, n, age, target, current, buffer, score);
+        return step(searchStrategy, shapeTypes, alpha, n, age, repeat);
+    }
+
+    /**
+     * Steps the optimization/fitting algorithm with the given search strategy, rather than the
+     * one set on the model.
+     *
+     * @param strategy   The search strategy.
+     * @param shapeTypes The shape types to use.
+     * @param alpha      The alpha of the shape.
+     * @param n          The number of shapes to try.
+     * @param age        The number of mutations to apply to each shape.
+     * @param repeat     The number of times to add the last shape again, refined by the
+     *                   strategy, while that improves the score.
+     * @return The data about the shapes just added to the model in this step.
+     */
+    public List<ShapeResult> step(SearchStrategy strategy, List<ShapeType> shapeTypes, int alpha,
+            int n, int age, int repeat) {
+        State state = search(strategy, shapeTypes, alpha, n, age);
 
         List<ShapeResult> results = new ArrayList<>(1 + repeat);
 
         results.add(addShape(state.shape, state.alpha));
         for (int i = 0; i < repeat; i++) {
-            //state.worker.init(current, score);
+            // The current bitmap has changed, so the cached score is stale
+            state.worker.init(current, errors.getTotal());
+            state.score = -1;
             double a = state.energy();
-            state = Core.hillClimb(state, age, score);
+            state = strategy.refine(state, age);
             double b = state.energy();
             if (a == b) {
                 break;
@@ -312,14 +434,199 @@ public class Model {
      * @return Data about the shape just added to the model.
      */
     public ShapeResult addShape(Shape shape, int alpha) {
-        Bitmap before = current.copy();
-        List<Scanline> scanlines = shape.rasterize();
-        int color = Core.computeColor(target, current, scanlines, alpha);
-        Core.drawLines(current, color, scanlines);
+        int color = draw(shape, alpha);
+        return new ShapeResult(score, color, shape);
+    }
 
-        score = Core.differencePartial(target, before, current, score, scanlines);
+    /**
+     * Draws the shape onto the current bitmap, with the color that best fits the target, and
+     * updates the errors.
+     *
+     * @param shape The shape to draw.
+     * @param alpha The alpha/opacity of the shape.
+     * @return The color the shape was drawn with.
+     */
+    private int draw(Shape shape, int alpha) {
+        lines.clear();
+        shape.rasterize(lines);
+        lines.normalize();
+        int color = RowSums.computeColor(targetSums, currentSums, lines, alpha);
+        if (planarCurrent != null) {
+            Core.drawLines(planarCurrent, color, lines);
+            // Only the touched pixels are converted back, the packed image stays the reference
+            planarCurrent.write(current, lines);
+        } else {
+            Core.drawLines(current, color, lines);
+        }
+        currentSums.update(current, lines);
+        if (integrals != null) {
+            integrals.update(current, lines);
+        }
+        updateErrors(lines);
+        return color;
+    }
 
-        return new ShapeResult(score, color, shape);
+    /**
+     * Updates the errors of the area touched by the scanlines just drawn onto the current
+     * bitmap, and the score accordingly. The errors are summed exactly, so the score does not
+     * drift however many shapes are added.
+     *
+     * @param lines The scanlines drawn onto the current bitmap.
+     */
+    private void updateErrors(ScanlineBuffer lines) {
+        errors.update(lines);
+        score = errors.getScore();
+    }
+
+    /**
+     * Sets whether the random candidates of each step are placed with a probability
+     * proportional to the error around them, rather than uniformly over the image. This
+     * focuses the search on the areas which are still poorly fitted, so fewer candidates are
+     * needed for the same improvement late in a run.
+     *
+     * @param enabled <code>true</code> to place the candidates where the error is.
+     */
+    public void setImportanceSampling(boolean enabled) {
+        this.importanceSampling = enabled;
+    }
+
+    public boolean isImportanceSampling() {
+        return importanceSampling;
+    }
+
+    /**
+     * Sets whether the search runs on planar copies of the target and the current image, which
+     * keep each channel in its own plane of bytes, rather than on the packed ARGB images. The
+     * results are the same either way, the planar layout is friendlier to the SIMD kernels.
+     * <p>
+     * The packed {@link #current} image is kept up to date as shapes are added.
+     *
+     * @param enabled <code>true</code> to run the search on planar images.
+     */
+    public void setPlanar(boolean enabled) {
+        if (enabled == isPlanar()) {
+            return;
+        }
+        if (enabled) {
+            planarTarget = new PlanarBitmap(target);
+            planarCurrent = new PlanarBitmap(current);
+        } else {
+            planarTarget = null;
+            planarCurrent = null;
+        }
+        for (Worker worker : workers) {
+            worker.setPlanar(planarTarget, planarCurrent);
+        }
+    }
+
+    public boolean isPlanar() {
+        return planarCurrent != null;
+    }
+
+    /**
+     * Sets whether the hill climbs estimate the energy of rectangles in constant time from
+     * summed-area tables of the target and the current image, rather than computing it pixel
+     * by pixel. The estimate only leaves out the per-pixel rounding of the blend and of the
+     * color distance, see {@link IntegralImages}. The state each hill climb ends with is
+     * scored again exactly, and the shapes are always drawn and scored exactly, but the
+     * estimate may lead the climbs along a slightly different path. Only supported for opaque
+     * targets.
+     *
+     * @param enabled <code>true</code> to estimate the energy of rectangles.
+     */
+    public void setRectangleEstimation(boolean enabled) {
+        if (enabled == isRectangleEstimation()) {
+            return;
+        }
+        if (enabled && target.isTranslucent()) {
+            throw new IllegalArgumentException("rectangle estimation needs an opaque target");
+        }
+        integrals = enabled ? new IntegralImages(target, current) : null;
+        for (Worker worker : workers) {
+            worker.setIntegralImages(integrals);
+        }
+    }
+
+    public boolean isRectangleEstimation() {
+        return integrals != null;
+    }
+
+    /**
+     * Sets whether the workers evaluate each candidate from its difference with the one they
+     * evaluated last. When both have the same color, only the pixels the mutation gained or
+     * lost are visited rather than the whole shape. The energies, and so the shapes found, are
+     * exactly the same either way.
+     *
+     * @param enabled <code>true</code> to evaluate the candidates incrementally.
+     */
+    public void setIncrementalEvaluation(boolean enabled) {
+        this.incrementalEvaluation = enabled;
+        for (Worker worker : workers) {
+            worker.setIncremental(enabled);
+        }
+    }
+
+    public boolean isIncrementalEvaluation() {
+        return incrementalEvaluation;
+    }
+
+    /**
+     * Sets the strategy the steps search for the next shape with. The default is a
+     * {@link ClimbSearch} with a {@link HillClimbOptimizer}, one hill climb per worker.
+     *
+     * @param strategy The search strategy.
+     */
+    public void setSearchStrategy(SearchStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy must not be null");
+        }
+        this.searchStrategy = strategy;
+    }
+
+    public SearchStrategy getSearchStrategy() {
+        return searchStrategy;
+    }
+
+    /**
+     * Sets the optimizer the workers refine the best of their random candidates with, and the
+     * shapes added again by a step with repeats. The default {@link HillClimbOptimizer} is
+     * greedy; an {@link AnnealingOptimizer} also explores worse mutations early on, so a
+     * candidate is less likely to stop at a local minimum. Same as setting a
+     * {@link ClimbSearch} with the optimizer as the search strategy.
+     *
+     * @param optimizer The optimizer, shared by the workers.
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        setSearchStrategy(new ClimbSearch(optimizer));
+    }
+
+    /**
+     * Sets whether the shapes are rasterized with anti-aliasing, both when evaluating the
+     * candidates and when drawing them. Their edge pixels are then blended in proportion to the
+     * fraction of their area inside the shape, as a renderer draws the exported SVG, rather than
+     * all or nothing by their center. Rectangles, whose edges lie on pixel boundaries, are not
+     * affected.
+     *
+     * @param enabled <code>true</code> to rasterize the shapes with anti-aliasing.
+     */
+    public void setAntialiasing(boolean enabled) {
+        lines.antialias = enabled;
+        for (Worker worker : workers) {
+            worker.setAntialias(enabled);
+        }
+    }
+
+    public boolean isAntialiasing() {
+        return lines.antialias;
+    }
+
+    /**
+     * Gets the exact per-row and per-tile error between the target and the current image.
+     *
+     * @return The error map, updated as shapes are added.
+     */
+    public ErrorMap getErrorMap() {
+        return errors;
     }
 
     /**
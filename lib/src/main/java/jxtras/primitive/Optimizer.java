@@ -0,0 +1,25 @@
+package jxtras.primitive;
+
+/**
+ * The <code>Optimizer</code> refines a candidate state by mutating its shape, keeping the best
+ * state it comes across. The workers run one optimizer per candidate, from the best of their
+ * random states.
+ * <p>
+ * An optimizer is shared by all the workers of a model, so it must not keep any state of its
+ * own between two calls: the state it is given brings the worker to evaluate its mutations with
+ * and the source of randomness to draw them from.
+ *
+ * @see HillClimbOptimizer
+ * @see AnnealingOptimizer
+ */
+public interface Optimizer {
+    /**
+     * Refines the state, which is left unchanged.
+     *
+     * @param state  The state to start from, bound to a worker.
+     * @param maxAge The number of mutations in a row not improving the best state after which
+     *               the search stops.
+     * @return The best state found, or a copy of the given one if none is better.
+     */
+    State optimize(State state, int maxAge);
+}
@@ -0,0 +1,75 @@
+package jxtras.primitive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import jxtras.primitive.shape.ShapeType;
+
+/**
+ * The <code>ParallelSearch</code> runs an independent search on each worker, all at once on
+ * the pool of the model, and keeps the best of their states.
+ * <p>
+ * The states are reduced in worker order, so for a given set of worker results the outcome does
+ * not depend on thread scheduling.
+ */
+public abstract class ParallelSearch implements SearchStrategy {
+    @Override
+    public State search(List<Worker> workers, List<ShapeType> shapeTypes, int alpha, int n,
+            int age) {
+        List<Callable<State>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers.size(); i++) {
+            Callable<State> task = task(workers.get(i), i, workers.size(), shapeTypes, alpha, n,
+                    age);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return best(tasks);
+    }
+
+    /**
+     * Creates the search of a worker.
+     *
+     * @param worker     The worker to search with.
+     * @param index      The index of the worker.
+     * @param count      The number of workers.
+     * @param shapeTypes The types of shape to use.
+     * @param alpha      The opacity of the shape, 0 to let it mutate.
+     * @param n          The number of random candidates to try, over all the workers.
+     * @param age        The number of mutations in a row not improving a candidate after which
+     *                   it is no longer refined.
+     * @return The task returning the best state of the worker, <code>null</code> if it has
+     * nothing to do.
+     */
+    protected abstract Callable<State> task(Worker worker, int index, int count,
+            List<ShapeType> shapeTypes, int alpha, int n, int age);
+
+    /**
+     * Runs the tasks on the pool of the model and returns the state with the lowest energy, the
+     * first one in task order on a tie.
+     *
+     * @param tasks The tasks, each one running on a worker of its own.
+     * @return The best state, <code>null</code> if there is no task.
+     */
+    protected static State best(List<Callable<State>> tasks) {
+        State bestState = null;
+        double bestEnergy = 0.0D;
+        for (State state : Model.runAll(tasks)) {
+            double energy = state.energy();
+            if (bestState == null || energy < bestEnergy) {
+                bestEnergy = energy;
+                bestState = state;
+            }
+        }
+        return bestState;
+    }
+
+    /**
+     * Returns the share of <code>total</code> of the worker, the remainder going to the first
+     * workers.
+     */
+    protected static int share(int total, int index, int count) {
+        return total / count + (index < total % count ? 1 : 0);
+    }
+}
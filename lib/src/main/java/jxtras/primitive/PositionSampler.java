@@ -0,0 +1,68 @@
+package jxtras.primitive;
+
+import jxtras.primitive.util.AliasTable;
+import jxtras.primitive.util.RandomSource;
+
+/**
+ * The <code>PositionSampler</code> draws the initial position of candidate shapes from the error
+ * distribution of an {@link ErrorMap}, so that most of the candidates land where the current
+ * bitmap is still far from the target.
+ * <p>
+ * A tile is picked with a probability proportional to its error, then a pixel is picked
+ * uniformly within it. Every tile gets a small share of the mean error on top of its own, so
+ * well fitted areas are still explored now and then. A tile whose error is negative, which the
+ * red-mean distance allows, only gets that share. A sampler is a snapshot of the map at the
+ * time it is created and can be shared by all the workers of a step.
+ */
+public class PositionSampler {
+    /**
+     * The share of the mean tile error added to every tile.
+     */
+    private static final double FLOOR = 0.1D;
+
+    private final int width, height;
+    private final int tileSize, tilesX;
+    private final AliasTable table;
+
+    /**
+     * Creates a sampler from the current state of the error map.
+     *
+     * @param errors The error map.
+     */
+    public PositionSampler(ErrorMap errors) {
+        this.width = errors.getWidth();
+        this.height = errors.getHeight();
+        this.tileSize = errors.getTileSize();
+        this.tilesX = errors.getTilesX();
+
+        int count = tilesX * errors.getTilesY();
+        long[] weights = errors.getTileErrors(null);
+        // The red-mean distance goes negative between saturated colors, such tiles weigh nothing
+        // and are left to the floor
+        long sum = 0L;
+        for (int i = 0; i < count; i++) {
+            weights[i] = Math.max(weights[i], 0L);
+            sum += weights[i];
+        }
+        long floor = (long) (FLOOR * sum / count);
+        for (int i = 0; i < count; i++) {
+            weights[i] += floor;
+        }
+        this.table = new AliasTable(weights, count);
+    }
+
+    /**
+     * Samples a position, weighted by the error around it.
+     *
+     * @param rnd The source of randomness.
+     * @return The position as a pixel index, i.e. <code>y * width + x</code>.
+     */
+    public int next(RandomSource rnd) {
+        int tile = table.next(rnd);
+        int x0 = (tile % tilesX) * tileSize;
+        int y0 = (tile / tilesX) * tileSize;
+        int x = x0 + rnd.nextInt(Math.min(tileSize, width - x0));
+        int y = y0 + rnd.nextInt(Math.min(tileSize, height - y0));
+        return y * width + x;
+    }
+}
@@ -0,0 +1,27 @@
+package jxtras.primitive;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import jxtras.primitive.shape.ShapeType;
+
+/**
+ * The <code>RandomSearch</code> keeps the best of the random candidates, without refining it.
+ * It is the cheapest strategy per candidate, and a baseline for the others.
+ */
+public class RandomSearch extends ParallelSearch {
+    @Override
+    protected Callable<State> task(Worker worker, int index, int count,
+            List<ShapeType> shapeTypes, int alpha, int n, int age) {
+        int share = share(n, index, count);
+        if (share == 0) {
+            return null;
+        }
+        return () -> worker.rescore(worker.bestRandomState(shapeTypes, alpha, share));
+    }
+
+    @Override
+    public State refine(State state, int age) {
+        return state.copy2();
+    }
+}
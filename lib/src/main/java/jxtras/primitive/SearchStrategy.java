@@ -0,0 +1,46 @@
+package jxtras.primitive;
+
+import java.util.List;
+
+import jxtras.primitive.shape.ShapeType;
+
+/**
+ * The <code>SearchStrategy</code> finds the shape a model adds next. The model prepares its
+ * workers against the current bitmap, then hands them to the strategy, which decides how to
+ * generate and refine the candidates and how to spread the work over them. The workers bring
+ * the energy kernels, so every strategy evaluates the candidates the same way, with the same
+ * settings of the model.
+ * <p>
+ * A worker is not thread-safe: a strategy may run each worker in its own task on the
+ * {@link Model#invokeAll(java.util.Collection) pool}, but never one worker in two tasks at a
+ * time. A strategy is not tied to a model and should keep no state between two calls.
+ *
+ * @see RandomSearch
+ * @see ClimbSearch
+ */
+public interface SearchStrategy {
+    /**
+     * Searches for the best state to add to the current bitmap.
+     *
+     * @param workers    The workers of the model, ready to evaluate candidates.
+     * @param shapeTypes The types of shape to use.
+     * @param alpha      The opacity of the shape, 0 to let it mutate.
+     * @param n          The number of random candidates to try, over all the workers.
+     * @param age        The number of mutations in a row not improving a candidate after which
+     *                   it is no longer refined.
+     * @return The best state found, bound to the worker which found it and scored exactly.
+     */
+    State search(List<Worker> workers, List<ShapeType> shapeTypes, int alpha, int n, int age);
+
+    /**
+     * Refines a state which was just added, to add it once more, see the repeats of
+     * {@link Model#step(SearchStrategy, List, int, int, int, int)}. The worker of the state is
+     * ready to evaluate candidates against the new current bitmap.
+     *
+     * @param state The state to start from, left unchanged.
+     * @param age   The number of mutations in a row not improving the state after which the
+     *              search stops.
+     * @return The best state found, or a copy of the given one if none is better.
+     */
+    State refine(State state, int age);
+}
@@ -1,10 +1,10 @@
 package jxtras.primitive;
 
-import java.util.Random;
-
 import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.raster.ScanlineBuffer;
 import jxtras.primitive.shape.Shape;
 import jxtras.primitive.util.Mathematics;
+import jxtras.primitive.util.RandomSource;
 
 public class State {
     Worker worker;
@@ -27,7 +27,12 @@ public class State {
 
     Bitmap target;
     Bitmap current;
-    Bitmap buffer;
+    ScanlineBuffer lines;
+
+    /**
+     * The source of randomness used to mutate the state.
+     */
+    RandomSource rnd;
 
     public State(Worker worker, Shape shape, int alpha) {
         boolean mutateAlpha = false;
@@ -40,6 +45,7 @@ public class State {
         this.alpha = alpha;
         this.mutateAlpha = mutateAlpha;
         this.score = -1;
+        this.rnd = worker.rnd;
     }
 
     private State(Worker worker, Shape shape, int alpha, boolean mutateAlpha, double score) {
@@ -48,6 +54,7 @@ public class State {
         this.alpha = alpha;
         this.mutateAlpha = mutateAlpha;
         this.score = score;
+        this.rnd = worker.rnd;
     }
 
     public double energy() {
@@ -61,9 +68,8 @@ public class State {
     }
 
     public State move() {
-        Random rnd = worker.rnd;
         State oldState = copy2();
-        shape.mutate();
+        shape.mutate(rnd);
         if (mutateAlpha) {
             alpha = Mathematics.clamp(alpha + rnd.nextInt(21) - 10, 1, 255);
         }
@@ -81,6 +87,17 @@ public class State {
         return new State(worker, shape.copy(), alpha, mutateAlpha, score);
     }
 
+    /**
+     * Creates a copy of the state bound to the given worker, which evaluates and mutates it from
+     * then on. The score is kept, the workers of a model share the same current bitmap.
+     *
+     * @param worker The worker to bind the copy to.
+     * @return The copy of the state.
+     */
+    public State copyTo(Worker worker) {
+        return new State(worker, shape.copy(), alpha, mutateAlpha, score);
+    }
+
     /**
      * Create a new state.
      *
@@ -88,17 +105,31 @@ public class State {
      * @param alpha   The color alpha of the geometric shape.
      * @param target  The target bitmap.
      * @param current The current bitmap.
-     * @param buffer  The buffer bitmap.
+     * @param lines   The scratch scanline buffer.
+     * @param rnd     The source of randomness.
      */
     private State(Shape shape, int alpha, boolean mutateAlpha, double score, Bitmap target,
-            Bitmap current, Bitmap buffer) {
+            Bitmap current, ScanlineBuffer lines, RandomSource rnd) {
         this.shape = shape;
         this.alpha = alpha;
         this.mutateAlpha = mutateAlpha;
         this.score = score;
         this.target = target;
         this.current = current;
-        this.buffer = buffer;
+        this.lines = lines;
+        this.rnd = rnd;
+    }
+
+    /**
+     * Create a new state.
+     *
+     * @param shape   A geometric shape.
+     * @param alpha   The color alpha of the geometric shape.
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     */
+    public State(Shape shape, int alpha, Bitmap target, Bitmap current) {
+        this(shape, alpha, target, current, new ScanlineBuffer(), new RandomSource());
     }
 
     /**
@@ -108,9 +139,11 @@ public class State {
      * @param alpha   The color alpha of the geometric shape.
      * @param target  The target bitmap.
      * @param current The current bitmap.
-     * @param buffer  The buffer bitmap.
+     * @param lines   The scratch scanline buffer, shared by the copies of this state.
+     * @param rnd     The source of randomness, shared by the copies of this state.
      */
-    public State(Shape shape, int alpha, Bitmap target, Bitmap current, Bitmap buffer) {
+    public State(Shape shape, int alpha, Bitmap target, Bitmap current, ScanlineBuffer lines,
+            RandomSource rnd) {
         this.shape = shape;
 //        if (alpha == 0) {
 //            this.alpha = 128;
@@ -123,22 +156,23 @@ public class State {
 
         this.target = target;
         this.current = current;
-        this.buffer = buffer;
+        this.lines = lines;
+        this.rnd = rnd;
     }
 
     /**
      * Calculates a measure of the improvement drawing the shape to the current bitmap will have.
      * The lower the energy, the better. The score is cached, set it to < 0 to recalculate it.
      *
-     * @param lastScore The last score recorded by the model.
+     * @param total The exact total squared error of the current bitmap.
      * @return The energy measure.
      */
-    public double energy(double lastScore) {
+    public double energy(long total) {
         if (score >= 0) {
             throw new IllegalStateException("Score was not reset");
         }
         if (score < 0) {
-            score = Core.energy(shape, alpha, target, current, buffer, lastScore);
+            score = Core.energy(shape, alpha, target, current, lines, total);
         }
         return score;
     }
@@ -150,7 +184,7 @@ public class State {
      */
     public State mutate() {
         State oldState = copy();
-        shape.mutate();
+        shape.mutate(rnd);
 //        if (mutateAlpha) {
 //            alpha = Util.clampInt(alpha + Util.getRandom().nextInt(21) - 10, 1, 255);
 //        }
@@ -165,6 +199,6 @@ public class State {
      * @return The cloned state.
      */
     public State copy() {
-        return new State(shape.copy(), alpha, mutateAlpha, score, target, current, buffer);
+        return new State(shape.copy(), alpha, mutateAlpha, score, target, current, lines, rnd);
     }
 }
@@ -1,57 +1,316 @@
 package jxtras.primitive;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.image.PlanarBitmap;
+import jxtras.primitive.kernel.IntegralImages;
+import jxtras.primitive.kernel.RowSums;
 import jxtras.primitive.raster.Rasterizer;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.raster.ScanlineDiff;
+import jxtras.primitive.shape.Rectangle;
 import jxtras.primitive.shape.Shape;
 import jxtras.primitive.shape.ShapeFactory;
 import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.RandomSource;
 
 public class Worker {
     private int width, height;
 
-    private Bitmap target, current, buffer;
+    private Bitmap target, current;
 
     private Rasterizer rasterizer;
 
-    private List<Scanline> scanlines;
+    private ScanlineBuffer lines;
 
-     Random rnd;
+    final RandomSource rnd;
 
-    private double score;
+    /**
+     * The exact total squared error of the current bitmap.
+     */
+    private long total;
+
+    /**
+     * Where to place the random candidates, <code>null</code> to place them uniformly.
+     */
+    private PositionSampler sampler;
+
+    /**
+     * The planar copies of the target and the current bitmap to evaluate the candidates on,
+     * <code>null</code> to evaluate them on the packed bitmaps.
+     */
+    private PlanarBitmap planarTarget, planarCurrent;
+
+    /**
+     * The per-row prefix sums of the target and the current bitmap to compute the colors of the
+     * candidates with, <code>null</code> to sum the pixels instead.
+     */
+    private RowSums targetSums, currentSums;
+
+    /**
+     * The summed-area tables to estimate the energy of rectangles with, <code>null</code> to
+     * compute it exactly.
+     */
+    private IntegralImages integrals;
+
+    /**
+     * Whether the candidates are evaluated from their difference with the last one.
+     */
+    private boolean incremental;
+
+    /**
+     * The last evaluated candidate: its scanlines, its color and the change of the error
+     * drawing it would make. Only valid while <code>evaluated</code> is set, i.e. until the
+     * current bitmap changes.
+     */
+    private ScanlineBuffer previous;
+    private int previousColor;
+    private long previousDelta;
+    private boolean evaluated;
+
+    /**
+     * The scratch state of the incremental evaluation.
+     */
+    private ScanlineDiff diff;
+    private ScanlineBuffer added, removed;
 
      int counter;
 
     public Worker(Bitmap target) {
+        this(target, new RandomSource());
+    }
+
+    /**
+     * Creates a worker for the given target, drawing all its random numbers from the given
+     * source, which must not be shared with another worker.
+     *
+     * @param target The target bitmap.
+     * @param rnd    The source of randomness owned by this worker.
+     */
+    public Worker(Bitmap target, RandomSource rnd) {
         this.width = target.getWidth();
         this.height = target.getHeight();
         this.target = target;
-        this.buffer = target.copy().eraseColor(0);
         this.rasterizer = new Rasterizer(width, height);
-        this.scanlines = new ArrayList<Scanline>(4096);
+        this.lines = new ScanlineBuffer(4096);
         // heatmap
-        this.rnd = new Random();
+        this.rnd = rnd;
+    }
+
+    /**
+     * Prepares the worker for a new search against the given current bitmap.
+     *
+     * @param current The current bitmap.
+     * @param total   The exact total squared error between the target and the current bitmap.
+     */
+    public void init(Bitmap current, long total) {
+        init(current, total, null);
     }
 
-    public void init(Bitmap current, double score) {
+    /**
+     * Prepares the worker for a new search against the given current bitmap.
+     *
+     * @param current The current bitmap.
+     * @param total   The exact total squared error between the target and the current bitmap.
+     * @param sampler The sampler to place the random candidates with, <code>null</code> to
+     *                place them uniformly.
+     */
+    public void init(Bitmap current, long total, PositionSampler sampler) {
         this.current = current;
-        this.score = score;
+        this.total = total;
+        this.sampler = sampler;
         this.counter = 0;
+        this.evaluated = false;
         // heatmap.clear()
     }
 
+    /**
+     * Sets the planar copies of the target and the current bitmap to evaluate the candidates
+     * on. The copies must be kept in sync with the packed bitmaps by the caller.
+     *
+     * @param target  The planar target, or <code>null</code> to use the packed bitmaps.
+     * @param current The planar current bitmap, or <code>null</code> to use the packed bitmaps.
+     */
+    void setPlanar(PlanarBitmap target, PlanarBitmap current) {
+        this.planarTarget = target;
+        this.planarCurrent = current;
+    }
+
+    /**
+     * Sets the per-row prefix sums of the target and the current bitmap, so that the color of
+     * a candidate costs one lookup per scanline. The sums must be kept in sync with the bitmaps
+     * by the caller.
+     *
+     * @param target  The sums of the target, or <code>null</code> to sum the pixels instead.
+     * @param current The sums of the current bitmap, or <code>null</code> to sum the pixels
+     *                instead.
+     */
+    void setRowSums(RowSums target, RowSums current) {
+        this.targetSums = target;
+        this.currentSums = current;
+    }
+
+    /**
+     * Sets the summed-area tables to estimate the energy of rectangles with in constant time.
+     * The hill climbs then rank the mutations of rectangles by their estimated energy, and the
+     * state each one ends with is scored again exactly. The tables must be kept in sync with
+     * the current bitmap by the caller.
+     *
+     * @param integrals The tables, or <code>null</code> to always compute the energy exactly.
+     */
+    void setIntegralImages(IntegralImages integrals) {
+        this.integrals = integrals;
+    }
+
+    /**
+     * Sets whether the candidates are evaluated incrementally. The hill climbs mutate one part
+     * of a shape at a time, so consecutive candidates mostly cover the same pixels. The worker
+     * then remembers the last evaluated candidate and, if the new one has the same color, only
+     * visits the pixels it gained or lost to update the change of the error. Otherwise the error
+     * is evaluated over the whole shape. Either way the energy is exactly the same as without
+     * it.
+     * <p>
+     * The color itself is computed from the per-row prefix sums, already in time proportional
+     * to the height of the shape, so this needs {@link #setRowSums(RowSums, RowSums)}.
+     *
+     * @param enabled <code>true</code> to evaluate the candidates incrementally.
+     */
+    void setIncremental(boolean enabled) {
+        this.incremental = enabled;
+        this.evaluated = false;
+        if (enabled && diff == null) {
+            this.diff = new ScanlineDiff();
+            this.previous = new ScanlineBuffer(4096);
+            this.previous.antialias = lines.antialias;
+            this.added = new ScanlineBuffer();
+            this.removed = new ScanlineBuffer();
+        }
+    }
+
+    /**
+     * Sets whether the candidates are rasterized with anti-aliasing, their edge pixels being
+     * covered by the fraction of their area inside the shape, as a renderer of the exported
+     * SVG would draw them.
+     *
+     * @param enabled <code>true</code> to rasterize the candidates with anti-aliasing.
+     */
+    void setAntialias(boolean enabled) {
+        this.lines.antialias = enabled;
+        if (previous != null) {
+            this.previous.antialias = enabled;
+        }
+        this.evaluated = false;
+    }
+
+    /**
+     * Returns the score of the current bitmap, the energy of a candidate which would not change
+     * it.
+     *
+     * @return The score of the current bitmap.
+     */
+    double score() {
+        return Core.score(target, total);
+    }
+
     public double energy(Shape shape, int alpha) {
+        if (integrals != null && shape instanceof Rectangle) {
+            this.counter++;
+            Rectangle rectangle = (Rectangle) shape;
+            if (rectangle.isEmpty()) {
+                return Core.score(target, total);
+            }
+            int x1 = rectangle.getLeft(), y1 = rectangle.getTop();
+            int x2 = rectangle.getRight(), y2 = rectangle.getBottom() - 1;
+            int color = integrals.computeColor(x1, y1, x2, y2, alpha);
+            long estimate = total + integrals.estimateDelta(x1, y1, x2, y2, color);
+            return Core.score(target, Math.max(estimate, 0L));
+        }
+        return exactEnergy(shape, alpha);
+    }
+
+    /**
+     * Calculates the energy of the shape exactly, bypassing any estimate.
+     *
+     * @param shape The shape to check.
+     * @param alpha The alpha of the shape.
+     * @return The energy measure.
+     */
+    public double exactEnergy(Shape shape, int alpha) {
         this.counter++;
-        List<Scanline> scanlines = shape.rasterize();
         // heatmap.add(scanlines);
-        int color = Core.computeColor(target, current, scanlines, alpha);
-        Core.copyLines(buffer, current, scanlines);
-        Core.drawLines(buffer, color, scanlines);
-        return Core.differencePartial(target, current, buffer, score, scanlines);
+        lines.clear();
+        shape.rasterize(lines);
+        lines.normalize();
+        if (incremental && targetSums != null) {
+            return Core.score(target, total + incrementalDelta(alpha));
+        }
+        int color = computeColor(alpha);
+        return Core.score(target, total + differenceDelta(color, lines));
+    }
+
+    /**
+     * Calculates the change of the error for the scanlines, from their difference with those of
+     * the last evaluated candidate if it has the same color, then remembers them in its place.
+     */
+    private long incrementalDelta(int alpha) {
+        final int color = RowSums.computeColor(targetSums, currentSums, lines, alpha);
+        long delta = 0;
+        boolean updated = false;
+        if (evaluated && color == previousColor) {
+            added.clear();
+            removed.clear();
+            long changed = diff.diff(previous, lines, width, height, added, removed);
+            if (changed < area(lines)) {
+                delta = previousDelta + differenceDelta(color, added)
+                        - differenceDelta(color, removed);
+                updated = true;
+            }
+        }
+        if (!updated) {
+            delta = differenceDelta(color, lines);
+        }
+
+        // The scanlines of this candidate become the base of the next one
+        ScanlineBuffer swap = previous;
+        previous = lines;
+        lines = swap;
+        previousColor = color;
+        previousDelta = delta;
+        evaluated = true;
+        return delta;
+    }
+
+    /**
+     * Returns the number of pixels the scanlines cover within the bitmaps.
+     */
+    private long area(ScanlineBuffer lines) {
+        long area = 0;
+        for (int n = 0; n < lines.count; n++) {
+            if (lines.y[n] >= 0 && lines.y[n] < height) {
+                int x1 = Math.max(lines.x1[n], 0);
+                int x2 = Math.min(lines.x2[n], width - 1);
+                area += Math.max(x2 - x1 + 1, 0);
+            }
+        }
+        return area;
+    }
+
+    private int computeColor(int alpha) {
+        if (targetSums != null) {
+            return RowSums.computeColor(targetSums, currentSums, lines, alpha);
+        }
+        if (planarTarget != null) {
+            return Core.computeColorFused(planarTarget, planarCurrent, lines, alpha);
+        }
+        return Core.computeColorFused(target, current, lines, alpha);
+    }
+
+    private long differenceDelta(int color, ScanlineBuffer lines) {
+        if (planarTarget != null) {
+            return Core.differenceDelta(planarTarget, planarCurrent, color, lines);
+        }
+        return Core.differenceDelta(target, current, color, lines);
     }
 
     public State bestHillClimbState(ShapeType shapeType, int alpha, int n /* 1000 */, int age /* 100 */, int m /* 16 */) {
@@ -60,7 +319,86 @@ public class Worker {
         for (int i = 0; i < m; i++) {
             State state = bestRandomState(shapeType, alpha, n);
             double before = state.energy();
-            state = Core.hillClimb2(state, age);
+            state = rescore(Core.hillClimb2(state, age));
+            double energy = state.energy();
+            if (i == 0 || energy < bestEnergy) {
+                bestEnergy = energy;
+                bestState = state;
+            }
+        }
+        return bestState;
+    }
+
+    /**
+     * Gets the best state by running <code>m</code> hill climbs, each one starting from the best
+     * of <code>n</code> random states made of the given shape types.
+     *
+     * @param shapeTypes The types of shape to use.
+     * @param alpha      The opacity of the shape.
+     * @param n          The number of random states to generate per hill climb.
+     * @param age        The number of hillclimbing steps.
+     * @param m          The number of hill climbs to run.
+     * @return The best state found i.e. the one with the lowest energy.
+     */
+    public State bestHillClimbState(List<ShapeType> shapeTypes, int alpha, int n, int age, int m) {
+        return bestOptimizedState(shapeTypes, alpha, n, age, m, new HillClimbOptimizer());
+    }
+
+    /**
+     * Gets the best state by running <code>m</code> searches of the given optimizer, each one
+     * starting from the best of <code>n</code> random states made of the given shape types.
+     *
+     * @param shapeTypes The types of shape to use.
+     * @param alpha      The opacity of the shape.
+     * @param n          The number of random states to generate per search.
+     * @param age        The number of mutations without improvement ending a search.
+     * @param m          The number of searches to run.
+     * @param optimizer  The optimizer to refine the random states with.
+     * @return The best state found i.e. the one with the lowest energy, scored exactly.
+     */
+    public State bestOptimizedState(List<ShapeType> shapeTypes, int alpha, int n, int age, int m,
+            Optimizer optimizer) {
+        double bestEnergy = 0.0D;
+        State bestState = null;
+        for (int i = 0; i < m; i++) {
+            State state = bestRandomState(shapeTypes, alpha, n);
+            state = rescore(optimizer.optimize(state, age));
+            double energy = state.energy();
+            if (i == 0 || energy < bestEnergy) {
+                bestEnergy = energy;
+                bestState = state;
+            }
+        }
+        return bestState;
+    }
+
+    /**
+     * Replaces the estimated energy of the state, if any, by its exact energy so that the
+     * states found by different hill climbs and workers compare fairly.
+     *
+     * @param state The state to score exactly.
+     * @return The same state.
+     */
+    public State rescore(State state) {
+        if (integrals != null && state.shape instanceof Rectangle) {
+            state.score = exactEnergy(state.shape, state.alpha);
+        }
+        return state;
+    }
+
+    /**
+     * Gets the best of <code>n</code> random states made of the given shape types.
+     *
+     * @param shapeTypes The types of shape to use.
+     * @param alpha      The opacity of the shape.
+     * @param n          The number of random states to generate.
+     * @return The best random state i.e. the one with the lowest energy.
+     */
+    public State bestRandomState(List<ShapeType> shapeTypes, int alpha, int n) {
+        double bestEnergy = 0.0D;
+        State bestState = null;
+        for (int i = 0; i < n; i++) {
+            State state = randomState(shapeTypes, alpha);
             double energy = state.energy();
             if (i == 0 || energy < bestEnergy) {
                 bestEnergy = energy;
@@ -84,7 +422,32 @@ public class Worker {
         return bestState;
     }
 
+    /**
+     * Creates a random state made of one of the given shape types, placed by the sampler of
+     * the search if any.
+     *
+     * @param shapeTypes The types of shape to use.
+     * @param alpha      The opacity of the shape.
+     * @return The random state, bound to this worker.
+     */
+    public State randomState(List<ShapeType> shapeTypes, int alpha) {
+        Shape shape;
+        if (sampler == null) {
+            shape = ShapeFactory.randomShapeOf(shapeTypes, width, height, rnd);
+        } else {
+            int position = sampler.next(rnd);
+            shape = ShapeFactory.randomShapeOf(shapeTypes, position % width, position / width,
+                    width, height, rnd);
+        }
+        return new State(this, shape, alpha);
+    }
+
     private State randomState(ShapeType shapeType, int alpha) {
-        return new State(this, ShapeFactory.createShapeOf(shapeType, width, height), alpha);
+        if (sampler == null) {
+            return new State(this, ShapeFactory.createShapeOf(shapeType, width, height, rnd), alpha);
+        }
+        int position = sampler.next(rnd);
+        return new State(this, ShapeFactory.createShapeOf(shapeType, position % width,
+                position / width, width, height, rnd), alpha);
     }
 }
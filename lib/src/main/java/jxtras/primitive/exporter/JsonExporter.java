@@ -9,10 +9,17 @@ import jxtras.primitive.shape.ShapeType;
 /**
  * Exports the shape data as JSON.
  */
-class JsonExporter {
+public class JsonExporter {
+    /**
+     * Exports the shapes to a JSON object, keyed by the order in which they were added.
+     *
+     * @param shapes The shape data to export
+     * @return A string representing the JSON object
+     */
     public static String export(List<ShapeResult> shapes) {
         // @formatter:off
         StringBuilder result = new StringBuilder();
+        result.append("{\n");
 
         for (int i = 0, count = shapes.size(); i < count; i++) {
             ShapeResult shape = shapes.get(i);
@@ -20,8 +27,8 @@ class JsonExporter {
             double[] data = shape.shape.raw();
             int color = shape.color;
             double score = shape.score;
-            result.append("    shape_" + i + "\":{\n");
-            result.append("        \"type\":" + type + ",\n");
+            result.append("    \"shape_" + i + "\":{\n");
+            result.append("        \"type\":\"" + type + "\",\n");
 
             result.append("        \"data\":" + "[");
             for (int item = 0; item < data.length; item++) {
@@ -79,7 +79,9 @@ public class SvgExporter {
             case POLYLINE:
             case QUADRATIC_CURVE:
             case CUBIC_CURVE:
-                return "fill=\"none\" " + strokeForColor(result.color) + " " + strokeOpacityForAlpha(alpha);
+                // The strokes are rasterized with round caps and joins
+                return "fill=\"none\" " + strokeForColor(result.color) + " " + strokeOpacityForAlpha(alpha)
+                        + " stroke-linecap=\"round\" stroke-linejoin=\"round\"";
             default:
                 return fillForColor(result.color) + " " + fillOpacityForAlpha(alpha);
         }
@@ -133,6 +133,111 @@ public class Bitmap {
         pixels[y * width + x] = color;
     }
 
+    /**
+     * Returns the index in {@link #getPixels()} of the first pixel of the given row.
+     *
+     * @param y The y coordinate (0...height-1) of the row
+     * @return The offset of the row
+     */
+    public final int rowOffset(int y) {
+        return y * width;
+    }
+
+    /**
+     * Returns the color at the specified index of the pixel array, without checking the bounds.
+     * The index is usually computed as <code>rowOffset(y) + x</code>.
+     *
+     * @param index The index (0...width*height-1) of the pixel to return
+     * @return The argb {@link Colour} at the specified index
+     */
+    public final int getPixelUnchecked(int index) {
+        return pixels[index];
+    }
+
+    /**
+     * Writes the color at the specified index of the pixel array, without checking the bounds.
+     *
+     * @param index The index (0...width*height-1) of the pixel to replace
+     * @param color The ARGB color to write into the bitmap
+     */
+    public final void setPixelUnchecked(int index, int color) {
+        pixels[index] = color;
+    }
+
+    /**
+     * Copies the pixels <code>[x1, x2]</code> of row <code>y</code> from the source bitmap,
+     * which must have the same dimensions. The span is trusted to be within the bounds.
+     *
+     * @param src The bitmap to copy the pixels from
+     * @param y   The y coordinate of the row
+     * @param x1  The leftmost x coordinate, inclusive
+     * @param x2  The rightmost x coordinate, inclusive
+     */
+    public void copySpan(Bitmap src, int y, int x1, int x2) {
+        final int offset = y * width + x1;
+        System.arraycopy(src.pixels, offset, pixels, offset, x2 - x1 + 1);
+    }
+
+    /**
+     * Blends the color over the pixels <code>[x1, x2]</code> of row <code>y</code>. The span is
+     * trusted to be within the bounds.
+     *
+     * @param y     The y coordinate of the row
+     * @param x1    The leftmost x coordinate, inclusive
+     * @param x2    The rightmost x coordinate, inclusive
+     * @param color The non-premultiplied ARGB color to blend
+     */
+    public void fillSpanBlend(int y, int x1, int x2, int color) {
+        fillSpanBlend(y, x1, x2, color, 0xFFFF);
+    }
+
+    /**
+     * Blends the color, masked by the coverage, over the pixels <code>[x1, x2]</code> of row
+     * <code>y</code>. The span is trusted to be within the bounds.
+     *
+     * @param y     The y coordinate of the row
+     * @param x1    The leftmost x coordinate, inclusive
+     * @param x2    The rightmost x coordinate, inclusive
+     * @param color The non-premultiplied ARGB color to blend
+     * @param mask  The alpha-premultiplied 16-bits coverage of the span
+     */
+    public void fillSpanBlend(int y, int x1, int x2, int color, int mask) {
+        final int m = 0xFFFF;
+
+        // Convert the non-premultiplied 8-bits per channel ARGB to alpha-premultiplied
+        // 16-bits per channel ARGB
+        long sa = color >>> 24;
+        long sr = (color >> 16) & 0xFF;
+        long sg = (color >> 8) & 0xFF;
+        long sb = color & 0xFF;
+        sr = (sr | sr << 8) * sa / 255;
+        sg = (sg | sg << 8) * sa / 255;
+        sb = (sb | sb << 8) * sa / 255;
+        sa |= sa << 8;
+
+        long ma = mask;
+        long a = (m - sa * ma / m) * 0x101;
+        long sama = sa * ma;
+        long srma = sr * ma;
+        long sgma = sg * ma;
+        long sbma = sb * ma;
+
+        final int[] pixels = this.pixels;
+        final int offset = y * width;
+        for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+            int dc = pixels[i];
+            int ba = clamp255((((dc >>> 24) * a + sama) / m) >> 8);
+            int br = clamp255(((((dc >> 16) & 0xFF) * a + srma) / m) >> 8);
+            int bg = clamp255(((((dc >> 8) & 0xFF) * a + sgma) / m) >> 8);
+            int bb = clamp255((((dc & 0xFF) * a + sbma) / m) >> 8);
+            pixels[i] = (ba << 24) | (br << 16) | (bg << 8) | bb;
+        }
+    }
+
+    private static int clamp255(long v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : (int) v);
+    }
+
     /**
      * Tries to make a new bitmap which has the same dimensions and pixels as the original.
      *
@@ -0,0 +1,328 @@
+package jxtras.primitive.image;
+
+import java.util.Arrays;
+
+import jxtras.primitive.raster.ScanlineBuffer;
+
+/**
+ * A bitmap which stores each channel in its own plane of bytes, rather than packing the four
+ * channels of a pixel into an integer as {@link Bitmap} does.
+ * <p>
+ * The loops over the pixels then read each channel straight from its plane, without shifting
+ * and masking, which makes them easy to vectorize, and the alpha plane need not be read at all
+ * when the bitmap is opaque. The planar bitmap is only used internally by the search, the
+ * pixels are converted from and to packed ARGB at the edges.
+ */
+public class PlanarBitmap {
+
+    /**
+     * The width of this <code>PlanarBitmap</code>
+     */
+    private final int width;
+
+    /**
+     * The height of this <code>PlanarBitmap</code>
+     */
+    private final int height;
+
+    /**
+     * The planes of the alpha, red, green and blue channels, indexed like the pixels of a
+     * {@link Bitmap}.
+     */
+    private final byte[] alpha, red, green, blue;
+
+    /**
+     * Represents image data that contains or might contain arbitrary
+     * alpha values between and including 0 and 255.
+     */
+    private final boolean isTranslucent;
+
+    /**
+     * Creates a planar bitmap of the given dimensions, with all its pixels transparent black.
+     *
+     * @param width         The width of the bitmap
+     * @param height        The height of the bitmap
+     * @param isTranslucent Whether the bitmap might contain alpha values other than 255
+     * @throws IllegalArgumentException
+     */
+    public PlanarBitmap(int width, int height, boolean isTranslucent) {
+        if (width < 0) {
+            throw new IllegalArgumentException("width must be >= 0");
+        }
+        if (height < 0) {
+            throw new IllegalArgumentException("height must be >= 0");
+        }
+        this.width = width;
+        this.height = height;
+        this.alpha = new byte[width * height];
+        this.red = new byte[width * height];
+        this.green = new byte[width * height];
+        this.blue = new byte[width * height];
+        this.isTranslucent = isTranslucent;
+    }
+
+    /**
+     * Creates a planar bitmap with the same dimensions and pixels as the given bitmap.
+     *
+     * @param bitmap The bitmap to convert
+     */
+    public PlanarBitmap(Bitmap bitmap) {
+        this(bitmap.getWidth(), bitmap.getHeight(), bitmap.isTranslucent());
+        read(bitmap);
+    }
+
+    /**
+     * Returns the width of the <code>PlanarBitmap</code>.
+     *
+     * @return the width of this <code>PlanarBitmap</code>
+     */
+    public final int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the <code>PlanarBitmap</code>.
+     *
+     * @return the height of this <code>PlanarBitmap</code>
+     */
+    public final int getHeight() {
+        return height;
+    }
+
+    /**
+     * Represents image data that contains or might contain arbitrary
+     * alpha values between and including 0 and 255.
+     */
+    public boolean isTranslucent() {
+        return isTranslucent;
+    }
+
+    /**
+     * Returns the index in the planes of the first pixel of the given row.
+     *
+     * @param y The y coordinate (0...height-1) of the row
+     * @return The offset of the row
+     */
+    public final int rowOffset(int y) {
+        return y * width;
+    }
+
+    /**
+     * Returns the packed ARGB color at the specified location.
+     *
+     * @param x The x coordinate (0...width-1) of the pixel to return
+     * @param y The y coordinate (0...height-1) of the pixel to return
+     * @return The argb color at the specified coordinate
+     * @throws IllegalArgumentException if x, y exceed the bitmap's bounds
+     */
+    public int getPixel(int x, int y) {
+        checkBounds(x, y);
+        return getPixelUnchecked(y * width + x);
+    }
+
+    /**
+     * Writes the packed ARGB color into the bitmap at the x,y coordinate.
+     *
+     * @param x     The x coordinate of the pixel to replace (0...width-1)
+     * @param y     The y coordinate of the pixel to replace (0...height-1)
+     * @param color The ARGB color to write into the bitmap
+     * @throws IllegalArgumentException if x, y are outside of the bitmap's bounds.
+     */
+    public void setPixel(int x, int y, int color) {
+        checkBounds(x, y);
+        setPixelUnchecked(y * width + x, color);
+    }
+
+    private void checkBounds(int x, int y) {
+        if (x < 0) {
+            throw new IllegalArgumentException("x must be >= 0");
+        }
+        if (y < 0) {
+            throw new IllegalArgumentException("y must be >= 0");
+        }
+        if (x >= getWidth()) {
+            throw new IllegalArgumentException("x must be < bitmap.width()");
+        }
+        if (y >= getHeight()) {
+            throw new IllegalArgumentException("y must be < bitmap.height()");
+        }
+    }
+
+    /**
+     * Returns the packed ARGB color at the specified index of the planes, without checking the
+     * bounds.
+     *
+     * @param index The index (0...width*height-1) of the pixel to return
+     * @return The argb color at the specified index
+     */
+    public final int getPixelUnchecked(int index) {
+        return (alpha[index] & 0xFF) << 24 | (red[index] & 0xFF) << 16
+                | (green[index] & 0xFF) << 8 | (blue[index] & 0xFF);
+    }
+
+    /**
+     * Writes the packed ARGB color at the specified index of the planes, without checking the
+     * bounds.
+     *
+     * @param index The index (0...width*height-1) of the pixel to replace
+     * @param color The ARGB color to write into the bitmap
+     */
+    public final void setPixelUnchecked(int index, int color) {
+        alpha[index] = (byte) (color >>> 24);
+        red[index] = (byte) (color >> 16);
+        green[index] = (byte) (color >> 8);
+        blue[index] = (byte) color;
+    }
+
+    /**
+     * Converts all the pixels of the given bitmap, which must have the same dimensions, into
+     * the planes.
+     *
+     * @param src The bitmap to read the pixels from
+     */
+    public void read(Bitmap src) {
+        checkSize(src);
+        final int[] pixels = src.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            setPixelUnchecked(i, pixels[i]);
+        }
+    }
+
+    /**
+     * Converts all the pixels of the planes into the given bitmap, which must have the same
+     * dimensions.
+     *
+     * @param dst The bitmap to write the pixels to
+     */
+    public void write(Bitmap dst) {
+        checkSize(dst);
+        final int[] pixels = dst.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = getPixelUnchecked(i);
+        }
+    }
+
+    /**
+     * Converts the pixels covered by the scanlines into the given bitmap, which must have the
+     * same dimensions. Used to bring a packed copy up to date after drawing onto the planes.
+     *
+     * @param dst   The bitmap to write the pixels to
+     * @param lines The scanlines, which may lie partly outside of the bitmaps
+     */
+    public void write(Bitmap dst, ScanlineBuffer lines) {
+        checkSize(dst);
+        final int[] pixels = dst.getPixels();
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            for (int i = y * width + x1, end = y * width + x2; i <= end; i++) {
+                pixels[i] = getPixelUnchecked(i);
+            }
+        }
+    }
+
+    private void checkSize(Bitmap bitmap) {
+        if (bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            throw new IllegalArgumentException("bitmaps must be of the same size");
+        }
+    }
+
+    /**
+     * Blends the color, masked by the coverage, over the pixels <code>[x1, x2]</code> of row
+     * <code>y</code>, with the same arithmetic as {@link Bitmap#fillSpanBlend(int, int, int,
+     * int, int)}. The span is trusted to be within the bounds.
+     *
+     * @param y     The y coordinate of the row
+     * @param x1    The leftmost x coordinate, inclusive
+     * @param x2    The rightmost x coordinate, inclusive
+     * @param color The non-premultiplied ARGB color to blend
+     * @param mask  The alpha-premultiplied 16-bits coverage of the span
+     */
+    public void fillSpanBlend(int y, int x1, int x2, int color, int mask) {
+        final int m = 0xFFFF;
+
+        long sa = color >>> 24;
+        long sr = (color >> 16) & 0xFF;
+        long sg = (color >> 8) & 0xFF;
+        long sb = color & 0xFF;
+        sr = (sr | sr << 8) * sa / 255;
+        sg = (sg | sg << 8) * sa / 255;
+        sb = (sb | sb << 8) * sa / 255;
+        sa |= sa << 8;
+
+        long ma = mask;
+        long a = (m - sa * ma / m) * 0x101;
+        long sama = sa * ma;
+        long srma = sr * ma;
+        long sgma = sg * ma;
+        long sbma = sb * ma;
+
+        final int offset = y * width;
+        for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+            alpha[i] = (byte) clamp255((((alpha[i] & 0xFF) * a + sama) / m) >> 8);
+            red[i] = (byte) clamp255((((red[i] & 0xFF) * a + srma) / m) >> 8);
+            green[i] = (byte) clamp255((((green[i] & 0xFF) * a + sgma) / m) >> 8);
+            blue[i] = (byte) clamp255((((blue[i] & 0xFF) * a + sbma) / m) >> 8);
+        }
+    }
+
+    private static int clamp255(long v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : (int) v);
+    }
+
+    /**
+     * Makes a new planar bitmap which has the same dimensions and pixels as the original.
+     *
+     * @return The new bitmap.
+     */
+    public PlanarBitmap copy() {
+        PlanarBitmap copy = new PlanarBitmap(width, height, isTranslucent);
+        System.arraycopy(alpha, 0, copy.alpha, 0, alpha.length);
+        System.arraycopy(red, 0, copy.red, 0, red.length);
+        System.arraycopy(green, 0, copy.green, 0, green.length);
+        System.arraycopy(blue, 0, copy.blue, 0, blue.length);
+        return copy;
+    }
+
+    /**
+     * Fills the bitmap's pixels with the specified ARGB color.
+     */
+    public PlanarBitmap eraseColor(int color) {
+        Arrays.fill(alpha, (byte) (color >>> 24));
+        Arrays.fill(red, (byte) (color >> 16));
+        Arrays.fill(green, (byte) (color >> 8));
+        Arrays.fill(blue, (byte) color);
+        return this;
+    }
+
+    /**
+     * Converts the planes into a new packed ARGB bitmap.
+     *
+     * @return The new bitmap.
+     */
+    public Bitmap toBitmap() {
+        Bitmap bitmap = new Bitmap(width, height, new int[width * height], isTranslucent);
+        write(bitmap);
+        return bitmap;
+    }
+
+    public byte[] getAlpha() {
+        return alpha;
+    }
+
+    public byte[] getRed() {
+        return red;
+    }
+
+    public byte[] getGreen() {
+        return green;
+    }
+
+    public byte[] getBlue() {
+        return blue;
+    }
+}
@@ -0,0 +1,289 @@
+package jxtras.primitive.kernel;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.raster.ScanlineBuffer;
+
+/**
+ * The summed-area tables of an opaque target and the current bitmap, from which the color and
+ * the error delta of an axis-aligned rectangle are computed in constant time, whatever its size.
+ * <p>
+ * For each of the red, green and blue channels the tables hold the sums of the target
+ * <code>t</code>, of the current bitmap <code>d</code>, of <code>d * d</code> and of
+ * <code>t * d</code>. The color of a rectangle only needs the first two and is exact.
+ * <p>
+ * The red-mean weights of {@link jxtras.primitive.util.Colour#distance(int, int)} depend on the
+ * red of each pixel, which makes the red error cubic in the red channel and the blue error a
+ * product of the red and the blue channels. Those are more sums: <code>t * t</code>,
+ * <code>t * t * d</code>, <code>t * d * d</code> and <code>d * d * d</code> of the red channel,
+ * <code>t * t</code> of the blue channel, and the products of the red <code>t</code> and
+ * <code>d</code> with the blue <code>t</code>, <code>d</code>, <code>t * d</code>,
+ * <code>d * d</code> and <code>t * t</code> the delta needs. The <code>t * t * t</code> terms
+ * cancel out.
+ * <p>
+ * The error delta then only differs from the one of the kernels by their per-pixel rounding:
+ * the blend is taken as the continuous <code>d + (s - d) * alpha / 255</code>, which the 16-bit
+ * blend of the kernels is within one level of in each channel, and the red and blue terms of
+ * the distance are not shifted right by 8 bits one pixel at a time, which takes less than 2 off
+ * a pixel. A blend one level off changes the error of a pixel by at most 6,621, so the estimate
+ * is within <code>6,623</code> per pixel of the exact delta in the worst case, and within a
+ * fraction of a percent of it in practice. It is meant to rank the mutations of a rectangle
+ * cheaply, the states that matter should be scored again exactly.
+ */
+public final class IntegralImages {
+    /**
+     * The indices of the sums in an entry, the red, green and blue <code>t</code>,
+     * <code>d</code>, <code>d * d</code> and <code>t * d</code> first.
+     */
+    private static final int R = 0, G = 4, B = 8;
+    private static final int T = 0, D = 1, DD = 2, TD = 3;
+    private static final int R_TT = 12, R_TTD = 13, R_TDD = 14, R_DDD = 15;
+    private static final int B_TT = 16;
+    private static final int TR_TB = 17, TR_DB = 18, TR_TDB = 19, TR_DDB = 20;
+    private static final int DR_TB = 21, DR_DB = 22, DR_TTB = 23, DR_TDB = 24, DR_DDB = 25;
+
+    /**
+     * The number of sums per entry.
+     */
+    private static final int SUMS = 26;
+
+    private final Bitmap target;
+    private final int width, height;
+
+    /**
+     * The number of entries per row, the first row and column are all zero.
+     */
+    private final int stride;
+
+    /**
+     * The interleaved tables, entry <code>(y * stride + x) * SUMS</code> holds the sums over
+     * the pixels <code>[0, x) x [0, y)</code>.
+     */
+    private final long[] sums;
+
+    /**
+     * Computes the tables of the target and the current bitmap.
+     *
+     * @param target  The target bitmap, which must be opaque.
+     * @param current The current bitmap.
+     */
+    public IntegralImages(Bitmap target, Bitmap current) {
+        if (target.isTranslucent()) {
+            throw new IllegalArgumentException("target must be opaque");
+        }
+        if (target.getWidth() != current.getWidth() || target.getHeight() != current.getHeight()) {
+            throw new IllegalArgumentException("bitmaps must be of the same size");
+        }
+        this.target = target;
+        this.width = target.getWidth();
+        this.height = target.getHeight();
+        this.stride = width + 1;
+        this.sums = new long[stride * (height + 1) * SUMS];
+        update(current, 0, 0);
+    }
+
+    /**
+     * Recomputes the tables after the scanlines have been drawn onto the current bitmap. Every
+     * entry below and to the right of the topmost and leftmost touched pixel is recomputed.
+     *
+     * @param current The current bitmap.
+     * @param lines   The scanlines drawn onto the current bitmap.
+     */
+    public void update(Bitmap current, ScanlineBuffer lines) {
+        int minX = width, minY = height;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height || lines.x2[n] < 0 || lines.x1[n] >= width) {
+                continue;
+            }
+            minY = Math.min(minY, y);
+            minX = Math.min(minX, Math.max(lines.x1[n], 0));
+        }
+        if (minY < height) {
+            update(current, minX, minY);
+        }
+    }
+
+    /**
+     * Recomputes the entries of the tables covering the pixels <code>[x0, width) x [y0,
+     * height)</code> of the current bitmap, the others being unaffected by a change there.
+     *
+     * @param current The current bitmap.
+     * @param x0      The leftmost changed pixel.
+     * @param y0      The topmost changed pixel.
+     */
+    public void update(Bitmap current, int x0, int y0) {
+        final int[] tp = target.getPixels();
+        final int[] cp = current.getPixels();
+        final long[] sums = this.sums;
+        final long[] row = new long[SUMS];
+        for (int y = y0; y < height; y++) {
+            // The sums of the row left of x0, taken from the entries which have not changed
+            final int above = (y * stride + x0) * SUMS;
+            final int below = above + stride * SUMS;
+            for (int k = 0; k < SUMS; k++) {
+                row[k] = sums[below + k] - sums[above + k];
+            }
+            final int offset = target.rowOffset(y);
+            for (int x = x0; x < width; x++) {
+                int tc = tp[offset + x];
+                int dc = cp[offset + x];
+                int tr = (tc >> 16) & 0xFF, tg = (tc >> 8) & 0xFF, tb = tc & 0xFF;
+                int dr = (dc >> 16) & 0xFF, dg = (dc >> 8) & 0xFF, db = dc & 0xFF;
+                row[R + T] += tr;
+                row[R + D] += dr;
+                row[R + DD] += dr * dr;
+                row[R + TD] += tr * dr;
+                row[G + T] += tg;
+                row[G + D] += dg;
+                row[G + DD] += dg * dg;
+                row[G + TD] += tg * dg;
+                row[B + T] += tb;
+                row[B + D] += db;
+                row[B + DD] += db * db;
+                row[B + TD] += tb * db;
+                row[R_TT] += tr * tr;
+                row[R_TTD] += tr * tr * dr;
+                row[R_TDD] += tr * dr * dr;
+                row[R_DDD] += dr * dr * dr;
+                row[B_TT] += tb * tb;
+                row[TR_TB] += tr * tb;
+                row[TR_DB] += tr * db;
+                row[TR_TDB] += tr * tb * db;
+                row[TR_DDB] += tr * db * db;
+                row[DR_TB] += dr * tb;
+                row[DR_DB] += dr * db;
+                row[DR_TTB] += dr * tb * tb;
+                row[DR_TDB] += dr * tb * db;
+                row[DR_DDB] += dr * db * db;
+                final int e = ((y + 1) * stride + x + 1) * SUMS;
+                final int u = e - stride * SUMS;
+                for (int k = 0; k < SUMS; k++) {
+                    sums[e + k] = sums[u + k] + row[k];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns one of the sums over the pixels <code>[x1, x2] x [y1, y2]</code>.
+     */
+    private long sum(int k, int x1, int y1, int x2, int y2) {
+        final int top = y1 * stride, bottom = (y2 + 1) * stride;
+        return sums[(bottom + x2 + 1) * SUMS + k] - sums[(bottom + x1) * SUMS + k]
+                - sums[(top + x2 + 1) * SUMS + k] + sums[(top + x1) * SUMS + k];
+    }
+
+    /**
+     * Calculates the color of the pixels <code>[x1, x2] x [y1, y2]</code>, exactly as
+     * {@link SpanKernel#computeColor} does for the scanlines of that rectangle. The rectangle
+     * is clipped to the bitmaps.
+     *
+     * @param x1    The leftmost pixel, inclusive.
+     * @param y1    The topmost pixel, inclusive.
+     * @param x2    The rightmost pixel, inclusive.
+     * @param y2    The bottommost pixel, inclusive.
+     * @param alpha The alpha of the color.
+     * @return The color of the rectangle.
+     */
+    public int computeColor(int x1, int y1, int x2, int y2, int alpha) {
+        x1 = Math.max(x1, 0);
+        y1 = Math.max(y1, 0);
+        x2 = Math.min(x2, width - 1);
+        y2 = Math.min(y2, height - 1);
+        if (x1 > x2 || y1 > y2) {
+            return ScalarSpanKernel.color(0, 0, 0, 0, 0, 0, 0, alpha);
+        }
+        long total = (long) (x2 - x1 + 1) * (y2 - y1 + 1);
+        return ScalarSpanKernel.color(sum(R + T, x1, y1, x2, y2), sum(G + T, x1, y1, x2, y2),
+                sum(B + T, x1, y1, x2, y2), sum(R + D, x1, y1, x2, y2),
+                sum(G + D, x1, y1, x2, y2), sum(B + D, x1, y1, x2, y2), total, alpha);
+    }
+
+    /**
+     * Estimates the change of the total squared error if the pixels <code>[x1, x2] x [y1,
+     * y2]</code> of the current bitmap were blended with the given color. The rectangle is
+     * clipped to the bitmaps.
+     *
+     * @param x1    The leftmost pixel, inclusive.
+     * @param y1    The topmost pixel, inclusive.
+     * @param x2    The rightmost pixel, inclusive.
+     * @param y2    The bottommost pixel, inclusive.
+     * @param color The non-premultiplied ARGB color.
+     * @return The estimated change of the total squared error, negative if it improves.
+     */
+    public long estimateDelta(int x1, int y1, int x2, int y2, int color) {
+        x1 = Math.max(x1, 0);
+        y1 = Math.max(y1, 0);
+        x2 = Math.min(x2, width - 1);
+        y2 = Math.min(y2, height - 1);
+        if (x1 > x2 || y1 > y2) {
+            return 0L;
+        }
+        final double n = (double) (x2 - x1 + 1) * (y2 - y1 + 1);
+        final double a = (color >>> 24) / 255.0D;
+        final double p = 1 - a;
+        final double sr = (color >> 16) & 0xFF;
+        final double sg = (color >> 8) & 0xFF;
+        final double sb = color & 0xFF;
+        // The blend is b = p * d + q in each channel
+        final double qr = a * sr;
+        final double qb = a * sb;
+
+        final double tr = sum(R + T, x1, y1, x2, y2);
+        final double dr = sum(R + D, x1, y1, x2, y2);
+        final double ddr = sum(R + DD, x1, y1, x2, y2);
+        final double tdr = sum(R + TD, x1, y1, x2, y2);
+        final double tb = sum(B + T, x1, y1, x2, y2);
+        final double db = sum(B + D, x1, y1, x2, y2);
+        final double ddb = sum(B + DD, x1, y1, x2, y2);
+        final double tdb = sum(B + TD, x1, y1, x2, y2);
+
+        // sum((512 + 2 t + 2 b) (t - b)^2 - (512 + 2 t + 2 d) (t - d)^2), where
+        // 2 (t + x) (t - x)^2 = 2 (t^3 - t^2 x - t x^2 + x^3)
+        double red = 512 * channel(n, a, sr, tr, dr, ddr, tdr)
+                + 2 * (a * sum(R_TTD, x1, y1, x2, y2) - qr * sum(R_TT, x1, y1, x2, y2)
+                - (p * p - 1) * sum(R_TDD, x1, y1, x2, y2) - 2 * p * qr * tdr - qr * qr * tr
+                + (p * p * p - 1) * sum(R_DDD, x1, y1, x2, y2) + 3 * p * p * qr * ddr
+                + 3 * p * qr * qr * dr + qr * qr * qr * n);
+
+        final double dtbr = sum(DR_TB, x1, y1, x2, y2);
+        final double ddbr = sum(DR_DB, x1, y1, x2, y2);
+        final double dttbr = sum(DR_TTB, x1, y1, x2, y2);
+        final double dtdbr = sum(DR_TDB, x1, y1, x2, y2);
+        final double dddbr = sum(DR_DDB, x1, y1, x2, y2);
+
+        // sum((767 - 2 t - 2 b) (t' - b')^2 - (767 - 2 t - 2 d) (t' - d')^2), where the
+        // primed channel is blue, split into the terms of 767 - 2 t and of the reds
+        double blue = 767 * channel(n, a, sb, tb, db, ddb, tdb)
+                - 2 * channel(tr, a, sb, sum(TR_TB, x1, y1, x2, y2), sum(TR_DB, x1, y1, x2, y2),
+                sum(TR_DDB, x1, y1, x2, y2), sum(TR_TDB, x1, y1, x2, y2))
+                - 2 * (p * (dttbr + p * p * dddbr + qb * qb * dr - 2 * p * dtdbr - 2 * qb * dtbr
+                + 2 * p * qb * ddbr)
+                + qr * (sum(B_TT, x1, y1, x2, y2) + p * p * ddb + qb * qb * n - 2 * p * tdb
+                - 2 * qb * tb + 2 * p * qb * db)
+                - (dttbr + dddbr - 2 * dtdbr));
+
+        double green = 4 * channel(n, a, sg, sum(G + T, x1, y1, x2, y2),
+                sum(G + D, x1, y1, x2, y2), sum(G + DD, x1, y1, x2, y2),
+                sum(G + TD, x1, y1, x2, y2));
+        return Math.round((red + blue) / 256 + green);
+    }
+
+    /**
+     * Returns <code>sum(w * ((t - b)^2 - (t - d)^2))</code> for one channel, where
+     * <code>b = d + (s - d) * a</code>, expanded over the sums of <code>w</code> and of its
+     * products with the channel, <code>w</code> being 1 or another channel.
+     */
+    private static double channel(double w, double a, double s, double t, double d, double dd,
+            double td) {
+        return a * (2 * (1 - a) * s * d + a * s * s * w - (2 - a) * dd - 2 * s * t + 2 * td);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
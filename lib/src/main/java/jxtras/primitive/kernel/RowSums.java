@@ -0,0 +1,151 @@
+package jxtras.primitive.kernel;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.raster.ScanlineBuffer;
+
+/**
+ * The per-row prefix sums of the red, green and blue channels of a bitmap, so that the sum of a
+ * channel over any span of a row costs two lookups whatever its length.
+ * <p>
+ * With the sums of the target and the current bitmap, the color of a shape is computed in time
+ * proportional to its number of scanlines rather than to its area. The sums of a bitmap being
+ * drawn to are brought up to date with {@link #update(Bitmap, ScanlineBuffer)}, which only
+ * recomputes the touched part of the touched rows.
+ */
+public final class RowSums {
+    private final int width, height;
+
+    /**
+     * The number of entries per row, the prefix sums start with 0 for the empty span.
+     */
+    private final int stride;
+
+    /**
+     * The prefix sums, <code>red[y * stride + x]</code> is the sum of the pixels
+     * <code>[0, x)</code> of row <code>y</code>.
+     */
+    private final int[] red, green, blue;
+
+    /**
+     * The leftmost touched pixel of each row during an update, <code>width</code> if untouched.
+     */
+    private final int[] dirty;
+
+    /**
+     * Computes the prefix sums of all the rows of the bitmap.
+     *
+     * @param bitmap The bitmap.
+     */
+    public RowSums(Bitmap bitmap) {
+        this.width = bitmap.getWidth();
+        this.height = bitmap.getHeight();
+        this.stride = width + 1;
+        this.red = new int[height * stride];
+        this.green = new int[height * stride];
+        this.blue = new int[height * stride];
+        this.dirty = new int[height];
+        for (int y = 0; y < height; y++) {
+            dirty[y] = width;
+            update(bitmap, y, 0);
+        }
+    }
+
+    /**
+     * Recomputes the prefix sums of the rows covered by the scanlines, after they have been
+     * drawn onto the bitmap. Each row is recomputed once, from its leftmost touched pixel.
+     *
+     * @param bitmap The bitmap the sums are computed from.
+     * @param lines  The scanlines drawn onto the bitmap.
+     */
+    public void update(Bitmap bitmap, ScanlineBuffer lines) {
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y >= 0 && y < height && lines.x2[n] >= 0) {
+                dirty[y] = Math.min(dirty[y], Math.max(lines.x1[n], 0));
+            }
+        }
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y >= 0 && y < height && dirty[y] < width) {
+                update(bitmap, y, dirty[y]);
+                dirty[y] = width;
+            }
+        }
+    }
+
+    /**
+     * Recomputes the prefix sums of a row, from the given pixel to the end of the row.
+     *
+     * @param bitmap The bitmap the sums are computed from.
+     * @param y      The row.
+     * @param x      The leftmost pixel which has changed.
+     */
+    public void update(Bitmap bitmap, int y, int x) {
+        final int[] pixels = bitmap.getPixels();
+        final int offset = bitmap.rowOffset(y);
+        final int row = y * stride;
+        int r = red[row + x], g = green[row + x], b = blue[row + x];
+        for (; x < width; x++) {
+            int c = pixels[offset + x];
+            r += (c >> 16) & 0xFF;
+            g += (c >> 8) & 0xFF;
+            b += c & 0xFF;
+            red[row + x + 1] = r;
+            green[row + x + 1] = g;
+            blue[row + x + 1] = b;
+        }
+    }
+
+    /**
+     * Calculates the color of the scanlines from the prefix sums of the target and the current
+     * bitmap. Produces exactly the same result as {@link SpanKernel#computeColor}, in constant
+     * time per scanline.
+     *
+     * @param target  The sums of the target bitmap.
+     * @param current The sums of the current bitmap.
+     * @param lines   The scanlines.
+     * @param alpha   The alpha of the color.
+     * @return The color of the scanlines.
+     */
+    public static int computeColor(RowSums target, RowSums current, ScanlineBuffer lines,
+            int alpha) {
+        final int[] tr = target.red, tg = target.green, tb = target.blue;
+        final int[] cr = current.red, cg = current.green, cb = current.blue;
+        final int width = target.width;
+        final int height = target.height;
+        final int stride = target.stride;
+
+        long str = 0, stg = 0, stb = 0, scr = 0, scg = 0, scb = 0;
+        long total = 0;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+            final int i1 = y * stride + x1;
+            final int i2 = y * stride + x2 + 1;
+            final long w = SpanKernel.weight(lines.alpha[n]);
+            str += w * (tr[i2] - tr[i1]);
+            stg += w * (tg[i2] - tg[i1]);
+            stb += w * (tb[i2] - tb[i1]);
+            scr += w * (cr[i2] - cr[i1]);
+            scg += w * (cg[i2] - cg[i1]);
+            scb += w * (cb[i2] - cb[i1]);
+            total += w * (x2 - x1 + 1);
+        }
+        return ScalarSpanKernel.color(str, stg, stb, scr, scg, scb, total, alpha);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,310 @@
+package jxtras.primitive.kernel;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.image.PlanarBitmap;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.util.Colour;
+import jxtras.primitive.util.Mathematics;
+
+/**
+ * The portable {@link SpanKernel}, one pixel at a time over the raw pixel arrays.
+ */
+public final class ScalarSpanKernel implements SpanKernel {
+    @Override
+    public int computeColor(Bitmap target, Bitmap current, ScanlineBuffer lines, int alpha) {
+        final int[] tp = target.getPixels();
+        final int[] cp = current.getPixels();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+
+        // Exact channel sums weighted by the coverage, the blend is applied once at the end
+        long tr = 0, tg = 0, tb = 0, cr = 0, cg = 0, cb = 0;
+        long total = 0;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+            long ltr = 0, ltg = 0, ltb = 0, lcr = 0, lcg = 0, lcb = 0;
+            final int offset = target.rowOffset(y);
+            for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+                int tc = tp[i];
+                int cc = cp[i];
+                ltr += (tc >> 16) & 0xFF;
+                ltg += (tc >> 8) & 0xFF;
+                ltb += tc & 0xFF;
+                lcr += (cc >> 16) & 0xFF;
+                lcg += (cc >> 8) & 0xFF;
+                lcb += cc & 0xFF;
+            }
+            final long w = SpanKernel.weight(lines.alpha[n]);
+            tr += w * ltr;
+            tg += w * ltg;
+            tb += w * ltb;
+            cr += w * lcr;
+            cg += w * lcg;
+            cb += w * lcb;
+            total += w * (x2 - x1 + 1);
+        }
+        return color(tr, tg, tb, cr, cg, cb, total, alpha);
+    }
+
+    /**
+     * Turns the channel sums of the target and the current bitmap, weighted by the coverage of
+     * the scanlines, into the color of the scanlines, with the same arithmetic as
+     * {@link jxtras.primitive.Core#computeColor}.
+     */
+    static int color(long tr, long tg, long tb, long cr, long cg, long cb, long total,
+            int alpha) {
+        if (total == 0) { // Early out to avoid integer divide by 0
+            return Colour.argb(0, 0, 0, 0);
+        }
+        double a = (0x101 * 255.0d / alpha);
+        double rsum = tr * a + cr * (0x101 - a);
+        double gsum = tg * a + cg * (0x101 - a);
+        double bsum = tb * a + cb * (0x101 - a);
+        int r = Mathematics.clamp(((int)(rsum / total)) >> 8, 0, 255);
+        int g = Mathematics.clamp(((int)(gsum / total)) >> 8, 0, 255);
+        int b = Mathematics.clamp(((int)(bsum / total)) >> 8, 0, 255);
+        return Colour.argb(alpha, r, g, b);
+    }
+
+    @Override
+    public long differenceDelta(Bitmap target, Bitmap current, int color, ScanlineBuffer lines) {
+        final int m = 0xFFFF;
+        final int[] tp = target.getPixels();
+        final int[] cp = current.getPixels();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+        final boolean translucent = target.isTranslucent();
+
+        long total = 0L;
+
+        // Same premultiplication as drawLines
+        long sa = Colour.alpha(color);
+        long sr = Colour.red(color);
+        long sg = Colour.green(color);
+        long sb = Colour.blue(color);
+        sr |= sr << 8;
+        sr = sr * sa / 255;
+        sg |= sg << 8;
+        sg = sg * sa / 255;
+        sb |= sb << 8;
+        sb = sb * sa / 255;
+        sa |= sa << 8;
+
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+
+            long ma = lines.alpha[n];
+            long a = (m - sa * ma / m) * 0x101;
+            long sama = sa * ma;
+            long srma = sr * ma;
+            long sgma = sg * ma;
+            long sbma = sb * ma;
+
+            final int offset = target.rowOffset(y);
+            for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+                int tc = tp[i];
+                int ta = tc >>> 24;
+                int tr = (tc >> 16) & 0xFF;
+                int tg = (tc >> 8) & 0xFF;
+                int tb = tc & 0xFF;
+
+                int dc = cp[i];
+                int da = dc >>> 24;
+                int dr = (dc >> 16) & 0xFF;
+                int dg = (dc >> 8) & 0xFF;
+                int db = dc & 0xFF;
+
+                int br = Mathematics.clamp((int)((dr * a + srma) / m >> 8), 0, 255);
+                int bg = Mathematics.clamp((int)((dg * a + sgma) / m >> 8), 0, 255);
+                int bb = Mathematics.clamp((int)((db * a + sbma) / m >> 8), 0, 255);
+
+                if (translucent) {
+                    int ba = Mathematics.clamp((int)((da * a + sama) / m >> 8), 0, 255);
+
+                    int da1 = ta - da;
+                    int dr1 = tr - dr;
+                    int dg1 = tg - dg;
+                    int db1 = tb - db;
+
+                    int da2 = ta - ba;
+                    int dr2 = tr - br;
+                    int dg2 = tg - bg;
+                    int db2 = tb - bb;
+
+                    total -= (da1 * da1 + dr1 * dr1 + dg1 * dg1 + db1 * db1);
+                    total += (da2 * da2 + dr2 * dr2 + dg2 * dg2 + db2 * db2);
+                } else {
+                    total -= Colour.distance(tr, tg, tb, dr, dg, db);
+                    total += Colour.distance(tr, tg, tb, br, bg, bb);
+                }
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void drawLines(Bitmap image, int color, ScanlineBuffer lines) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 <= x2) {
+                image.fillSpanBlend(y, x1, x2, color, lines.alpha[n]);
+            }
+        }
+    }
+
+    @Override
+    public int computeColor(PlanarBitmap target, PlanarBitmap current, ScanlineBuffer lines,
+            int alpha) {
+        final byte[] tr = target.getRed(), tg = target.getGreen(), tb = target.getBlue();
+        final byte[] cr = current.getRed(), cg = current.getGreen(), cb = current.getBlue();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+
+        long str = 0, stg = 0, stb = 0, scr = 0, scg = 0, scb = 0;
+        long total = 0;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+            long ltr = 0, ltg = 0, ltb = 0, lcr = 0, lcg = 0, lcb = 0;
+            final int offset = target.rowOffset(y);
+            for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+                ltr += tr[i] & 0xFF;
+                ltg += tg[i] & 0xFF;
+                ltb += tb[i] & 0xFF;
+                lcr += cr[i] & 0xFF;
+                lcg += cg[i] & 0xFF;
+                lcb += cb[i] & 0xFF;
+            }
+            final long w = SpanKernel.weight(lines.alpha[n]);
+            str += w * ltr;
+            stg += w * ltg;
+            stb += w * ltb;
+            scr += w * lcr;
+            scg += w * lcg;
+            scb += w * lcb;
+            total += w * (x2 - x1 + 1);
+        }
+        return color(str, stg, stb, scr, scg, scb, total, alpha);
+    }
+
+    @Override
+    public long differenceDelta(PlanarBitmap target, PlanarBitmap current, int color,
+            ScanlineBuffer lines) {
+        final int m = 0xFFFF;
+        final byte[] tap = target.getAlpha(), trp = target.getRed();
+        final byte[] tgp = target.getGreen(), tbp = target.getBlue();
+        final byte[] cap = current.getAlpha(), crp = current.getRed();
+        final byte[] cgp = current.getGreen(), cbp = current.getBlue();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+        final boolean translucent = target.isTranslucent();
+
+        long total = 0L;
+
+        long sa = Colour.alpha(color);
+        long sr = Colour.red(color);
+        long sg = Colour.green(color);
+        long sb = Colour.blue(color);
+        sr = (sr | sr << 8) * sa / 255;
+        sg = (sg | sg << 8) * sa / 255;
+        sb = (sb | sb << 8) * sa / 255;
+        sa |= sa << 8;
+
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+
+            long ma = lines.alpha[n];
+            long a = (m - sa * ma / m) * 0x101;
+            long sama = sa * ma;
+            long srma = sr * ma;
+            long sgma = sg * ma;
+            long sbma = sb * ma;
+
+            final int offset = target.rowOffset(y);
+            for (int i = offset + x1, end = offset + x2; i <= end; i++) {
+                int tr = trp[i] & 0xFF;
+                int tg = tgp[i] & 0xFF;
+                int tb = tbp[i] & 0xFF;
+                int dr = crp[i] & 0xFF;
+                int dg = cgp[i] & 0xFF;
+                int db = cbp[i] & 0xFF;
+
+                int br = Mathematics.clamp((int)((dr * a + srma) / m >> 8), 0, 255);
+                int bg = Mathematics.clamp((int)((dg * a + sgma) / m >> 8), 0, 255);
+                int bb = Mathematics.clamp((int)((db * a + sbma) / m >> 8), 0, 255);
+
+                if (translucent) {
+                    int ta = tap[i] & 0xFF;
+                    int da = cap[i] & 0xFF;
+                    int ba = Mathematics.clamp((int)((da * a + sama) / m >> 8), 0, 255);
+
+                    int da1 = ta - da;
+                    int dr1 = tr - dr;
+                    int dg1 = tg - dg;
+                    int db1 = tb - db;
+
+                    int da2 = ta - ba;
+                    int dr2 = tr - br;
+                    int dg2 = tg - bg;
+                    int db2 = tb - bb;
+
+                    total -= (da1 * da1 + dr1 * dr1 + dg1 * dg1 + db1 * db1);
+                    total += (da2 * da2 + dr2 * dr2 + dg2 * dg2 + db2 * db2);
+                } else {
+                    total -= Colour.distance(tr, tg, tb, dr, dg, db);
+                    total += Colour.distance(tr, tg, tb, br, bg, bb);
+                }
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void drawLines(PlanarBitmap image, int color, ScanlineBuffer lines) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 <= x2) {
+                image.fillSpanBlend(y, x1, x2, color, lines.alpha[n]);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package jxtras.primitive.kernel;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.image.PlanarBitmap;
+import jxtras.primitive.raster.ScanlineBuffer;
+
+/**
+ * The <code>SpanKernel</code> evaluates and draws the scanlines of a shape over the raw pixels
+ * of the bitmaps. These are the innermost loops of the search, so they come in a portable scalar
+ * flavour and, where the platform supports it, a SIMD one; see {@link SpanKernels}.
+ * <p>
+ * All the implementations must produce exactly the same results. The scanlines may lie partly
+ * outside of the bitmaps, they are clipped once per span. Each method comes in a packed ARGB and
+ * a {@link PlanarBitmap} flavour, which also agree to the last bit.
+ */
+public interface SpanKernel {
+    /**
+     * Calculates the color of the scanlines, i.e. the color which blended with the given alpha
+     * over the current bitmap gets it the closest to the target on average, each pixel weighing
+     * as much as the coverage of its scanline, see {@link #weight(int)}.
+     *
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     * @param lines   The scanlines.
+     * @param alpha   The alpha of the color.
+     * @return The color of the scanlines.
+     */
+    int computeColor(Bitmap target, Bitmap current, ScanlineBuffer lines, int alpha);
+
+    /**
+     * Calculates the exact change of the total squared error between the target and the current
+     * bitmap if the scanlines were drawn onto the current bitmap with the given color. Nothing
+     * is written.
+     *
+     * @param target  The target bitmap.
+     * @param current The current bitmap.
+     * @param color   The color the scanlines would be drawn with.
+     * @param lines   The scanlines.
+     * @return The change of the total squared error, negative if drawing improves the image.
+     */
+    long differenceDelta(Bitmap target, Bitmap current, int color, ScanlineBuffer lines);
+
+    /**
+     * Blends the color, masked by the coverage of each scanline, onto the image.
+     *
+     * @param image The image to be drawn to.
+     * @param color The non-premultiplied ARGB color of the scanlines.
+     * @param lines The scanlines.
+     */
+    void drawLines(Bitmap image, int color, ScanlineBuffer lines);
+
+    /**
+     * Calculates the color of the scanlines over planar bitmaps.
+     *
+     * @see #computeColor(Bitmap, Bitmap, ScanlineBuffer, int)
+     */
+    int computeColor(PlanarBitmap target, PlanarBitmap current, ScanlineBuffer lines, int alpha);
+
+    /**
+     * Calculates the exact change of the total squared error over planar bitmaps.
+     *
+     * @see #differenceDelta(Bitmap, Bitmap, int, ScanlineBuffer)
+     */
+    long differenceDelta(PlanarBitmap target, PlanarBitmap current, int color,
+            ScanlineBuffer lines);
+
+    /**
+     * Blends the color, masked by the coverage of each scanline, onto the planar image.
+     *
+     * @see #drawLines(Bitmap, int, ScanlineBuffer)
+     */
+    void drawLines(PlanarBitmap image, int color, ScanlineBuffer lines);
+
+    /**
+     * Returns the weight of the pixels of a scanline in its color, the 16-bit coverage of the
+     * scanline rescaled so that a fully covered pixel weighs <code>0x10000</code>. A power of
+     * two scales the floating-point sums exactly, so fully covered scanlines get the same color
+     * as if they were not weighted, to the last bit.
+     *
+     * @param coverage The 16-bit coverage of the scanline.
+     * @return The weight of each of its pixels.
+     */
+    static long weight(int coverage) {
+        return ((long) coverage << 16) / 0xFFFF;
+    }
+}
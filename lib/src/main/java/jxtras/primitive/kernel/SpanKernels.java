@@ -0,0 +1,44 @@
+package jxtras.primitive.kernel;
+
+/**
+ * Selects the fastest {@link SpanKernel} available at runtime.
+ * <p>
+ * The SIMD kernel lives in the optional <code>simd</code> module, built on the incubating Java
+ * Vector API. It is used when its classes are on the class path and the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>, the scalar kernel is used otherwise. Setting
+ * the system property <code>jxtras.primitive.simd</code> to <code>false</code> forces the scalar
+ * kernel.
+ */
+public final class SpanKernels {
+    /**
+     * The name of the system property that enables or disables the SIMD kernel.
+     */
+    public static final String SIMD_PROPERTY = "jxtras.primitive.simd";
+
+    private static final String VECTOR_KERNEL = "jxtras.primitive.kernel.simd.VectorSpanKernel";
+
+    private static final SpanKernel INSTANCE = load();
+
+    private SpanKernels() {}
+
+    /**
+     * Returns the kernel selected for this JVM.
+     *
+     * @return The shared kernel instance.
+     */
+    public static SpanKernel get() {
+        return INSTANCE;
+    }
+
+    private static SpanKernel load() {
+        if (Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true"))) {
+            try {
+                return (SpanKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                // Not built, or the vector module is missing: fall back to the scalar code
+            }
+        }
+        return new ScalarSpanKernel();
+    }
+}
@@ -0,0 +1,382 @@
+package jxtras.primitive.raster;
+
+/**
+ * Fills polygons with anti-aliasing, emitting the exact fraction of each pixel the polygon
+ * covers as the alpha of the scanlines. A converter keeps its buffers from one polygon to the
+ * next and is not thread-safe.
+ * <p>
+ * The coordinates are those of the model, where the integer points are the pixel centers, as in
+ * the exported SVG: pixel <code>(x, y)</code> is the square <code>[x - 0.5, x + 0.5) x [y -
+ * 0.5, y + 0.5)</code>. Each edge adds its signed area to the pixels it crosses, and to the right
+ * of them the height it spans, in an accumulation buffer over the bounding box of the polygon.
+ * Summing each row from left to right then gives the winding-weighted coverage of each pixel.
+ * <p>
+ * The coverage is rounded to 8 bits, as a renderer would, and each row is emitted as runs of
+ * equal coverage: a few partially covered pixels along the edges and one solid run in between.
+ */
+public class CoverageRasterizer {
+    /**
+     * The largest distance between an ellipse and the polygon it is flattened into, in pixels.
+     */
+    static final double FLATNESS = 0.1D;
+
+    /**
+     * The accumulation buffer, <code>stride</code> cells per row of the bounding box, zero
+     * between two polygons.
+     */
+    private float[] cells = new float[1024];
+
+    /**
+     * The scratch vertices of the polygons given as integers, as separate corners or flattened
+     * from ellipses.
+     */
+    private double[] px = new double[64], py = new double[64];
+
+    /**
+     * The bounding box of the polygons being accumulated, in pixels within the canvas.
+     */
+    private int left, top, columns, rows;
+
+    private int stride;
+
+    /**
+     * Fills the polygon with integer vertices.
+     *
+     * @see #fill(double[], double[], int, FillRule, int, int, ScanlineBuffer)
+     */
+    public void fill(int[] xs, int[] ys, int n, FillRule rule, int width, int height,
+            ScanlineBuffer lines) {
+        ensureVertices(n);
+        for (int i = 0; i < n; i++) {
+            px[i] = xs[i];
+            py[i] = ys[i];
+        }
+        fill(px, py, n, rule, width, height, lines);
+    }
+
+    /**
+     * Fills the triangle with the given corners.
+     *
+     * @see #fill(double[], double[], int, FillRule, int, int, ScanlineBuffer)
+     */
+    public void fillTriangle(double x1, double y1, double x2, double y2, double x3, double y3,
+            int width, int height, ScanlineBuffer lines) {
+        px[0] = x1;
+        py[0] = y1;
+        px[1] = x2;
+        py[1] = y2;
+        px[2] = x3;
+        py[2] = y3;
+        fill(px, py, 3, FillRule.NON_ZERO, width, height, lines);
+    }
+
+    /**
+     * Fills the quadrilateral with the given corners, in order.
+     *
+     * @see #fill(double[], double[], int, FillRule, int, int, ScanlineBuffer)
+     */
+    public void fillQuad(double x1, double y1, double x2, double y2, double x3, double y3,
+            double x4, double y4, int width, int height, ScanlineBuffer lines) {
+        px[0] = x1;
+        py[0] = y1;
+        px[1] = x2;
+        py[1] = y2;
+        px[2] = x3;
+        py[2] = y3;
+        px[3] = x4;
+        py[3] = y4;
+        fill(px, py, 4, FillRule.NON_ZERO, width, height, lines);
+    }
+
+    /**
+     * Fills the ellipse, flattened into a polygon close enough not to change the coverage by
+     * more than a rounding step.
+     *
+     * @param cx     The x-coordinate of the center.
+     * @param cy     The y-coordinate of the center.
+     * @param rx     The radius along the x-axis of the ellipse.
+     * @param ry     The radius along the y-axis of the ellipse.
+     * @param angle  The angle of the x-axis of the ellipse, in radians.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the spans are appended to.
+     */
+    public void fillEllipse(double cx, double cy, double rx, double ry, double angle, int width,
+            int height, ScanlineBuffer lines) {
+        // The sagitta of a chord spanning 2 * pi / n of a circle of radius r is about
+        // r * (pi / n)^2 / 2
+        double r = Math.max(rx, ry);
+        int n = Math.max(8, (int) Math.ceil(Math.PI * Math.sqrt(r / (2 * FLATNESS))));
+        ensureVertices(n);
+        // The inscribed polygon falls short of the area of the ellipse, scale it up to match
+        double step = 2 * Math.PI / n;
+        double k = Math.sqrt(step / Math.sin(step));
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        for (int i = 0; i < n; i++) {
+            double t = step * i;
+            double ex = k * rx * Math.cos(t), ey = k * ry * Math.sin(t);
+            px[i] = cx + ex * cos - ey * sin;
+            py[i] = cy + ex * sin + ey * cos;
+        }
+        fill(px, py, n, FillRule.NON_ZERO, width, height, lines);
+    }
+
+    private void ensureVertices(int n) {
+        if (px.length < n) {
+            px = new double[Math.max(n, px.length << 1)];
+            py = new double[px.length];
+        }
+    }
+
+    /**
+     * Fills the polygon, appending the spans of its coverage clipped to the canvas to the buffer.
+     *
+     * @param xs     The x-coordinates of the vertices.
+     * @param ys     The y-coordinates of the vertices.
+     * @param n      The number of vertices.
+     * @param rule   The fill rule for self-intersecting polygons.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the spans are appended to.
+     */
+    public void fill(double[] xs, double[] ys, int n, FillRule rule, int width, int height,
+            ScanlineBuffer lines) {
+        if (n < 3) {
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (begin(minX, minY, maxX, maxY, width, height)) {
+            add(xs, ys, n, false);
+            end(rule, lines);
+        }
+    }
+
+    /**
+     * Starts accumulating the coverage of polygons, all of which lie within the given bounds.
+     * The polygons are then {@link #add(double[], double[], int, boolean) added} one at a time,
+     * and their coverage is {@link #end(FillRule, ScanlineBuffer) emitted} at once, so that a
+     * shape made of several pieces gets the coverage of their union rather than the sum of
+     * theirs.
+     *
+     * @param minX   The least x-coordinate of the polygons.
+     * @param minY   The least y-coordinate of the polygons.
+     * @param maxX   The greatest x-coordinate of the polygons.
+     * @param maxY   The greatest y-coordinate of the polygons.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @return <code>false</code> if the bounds are outside of the canvas, in which case nothing
+     *         is to be added nor emitted.
+     */
+    public boolean begin(double minX, double minY, double maxX, double maxY, int width,
+            int height) {
+        // The pixels of the bounding box within the canvas, the pixel edges being off by 0.5
+        left = Math.max((int) Math.floor(minX + 0.5D), 0);
+        top = Math.max((int) Math.floor(minY + 0.5D), 0);
+        columns = Math.min((int) Math.ceil(maxX + 0.5D), width) - left;
+        rows = Math.min((int) Math.ceil(maxY + 0.5D), height) - top;
+        if (columns <= 0 || rows <= 0) {
+            return false;
+        }
+        stride = columns + 2;
+        if (cells.length < stride * rows) {
+            cells = new float[Math.max(stride * rows, cells.length << 1)];
+        }
+        return true;
+    }
+
+    /**
+     * Accumulates the coverage of a polygon within the bounds given to
+     * {@link #begin(double, double, double, double, int, int)}.
+     *
+     * @param xs       The x-coordinates of the vertices.
+     * @param ys       The y-coordinates of the vertices.
+     * @param n        The number of vertices.
+     * @param positive <code>true</code> to add the polygon with a positive winding whatever
+     *                 the order of its vertices, so that overlapping convex pieces add up
+     *                 rather than cancel out under {@link FillRule#NON_ZERO}.
+     */
+    public void add(double[] xs, double[] ys, int n, boolean positive) {
+        boolean reverse = false;
+        if (positive) {
+            double area = 0;
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                area += (xs[j] - xs[i]) * (ys[j] + ys[i]);
+            }
+            reverse = area < 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            if (reverse) {
+                clipEdge(xs[j] + 0.5D - left, ys[j] + 0.5D - top, xs[i] + 0.5D - left,
+                        ys[i] + 0.5D - top);
+            } else {
+                clipEdge(xs[i] + 0.5D - left, ys[i] + 0.5D - top, xs[j] + 0.5D - left,
+                        ys[j] + 0.5D - top);
+            }
+        }
+    }
+
+    /**
+     * Appends the spans of the coverage accumulated since
+     * {@link #begin(double, double, double, double, int, int)} to the buffer, and clears it.
+     *
+     * @param rule  The fill rule for overlapping and self-intersecting polygons.
+     * @param lines The buffer the spans are appended to.
+     */
+    public void end(FillRule rule, ScanlineBuffer lines) {
+        final float[] cells = this.cells;
+        final int left = this.left, top = this.top, columns = this.columns;
+        for (int y = 0; y < rows; y++) {
+            final int row = y * stride;
+            float sum = 0;
+            int runStart = 0, runAlpha = 0;
+            for (int x = 0; x < columns; x++) {
+                sum += cells[row + x];
+                cells[row + x] = 0;
+                final int alpha = alpha(sum, rule);
+                if (alpha != runAlpha) {
+                    if (runAlpha != 0) {
+                        lines.add(top + y, left + runStart, left + x - 1, runAlpha);
+                    }
+                    runStart = x;
+                    runAlpha = alpha;
+                }
+            }
+            if (runAlpha != 0) {
+                lines.add(top + y, left + runStart, left + columns - 1, runAlpha);
+            }
+            cells[row + columns] = 0;
+            cells[row + columns + 1] = 0;
+        }
+    }
+
+    /**
+     * Turns the winding-weighted coverage of a pixel into a 16-bit alpha, rounded to 8 bits.
+     */
+    private static int alpha(float sum, FillRule rule) {
+        float coverage;
+        if (rule == FillRule.EVEN_ODD) {
+            coverage = Math.abs(sum) % 2.0F;
+            if (coverage > 1.0F) {
+                coverage = 2.0F - coverage;
+            }
+        } else {
+            coverage = Math.min(Math.abs(sum), 1.0F);
+        }
+        return Math.round(coverage * 255.0F) * 0x101;
+    }
+
+    /**
+     * Splits an edge where it leaves the columns of the bounding box. The parts left of it are
+     * moved onto its left side, where they still cover the whole row to their right, and the
+     * parts right of it are dropped, as they cover nothing within it.
+     */
+    private void clipEdge(double x0, double y0, double x1, double y1) {
+        if (y0 == y1) {
+            return;
+        }
+        double t0 = 0.0D;
+        while (t0 < 1.0D) {
+            // The next crossing of either side of the box after t0
+            double t1 = 1.0D;
+            if (x0 != x1) {
+                double ta = (0 - x0) / (x1 - x0);
+                double tb = (columns - x0) / (x1 - x0);
+                if (ta > t0 && ta < t1) {
+                    t1 = ta;
+                }
+                if (tb > t0 && tb < t1) {
+                    t1 = tb;
+                }
+            }
+            double ax = x0 + (x1 - x0) * t0, ay = y0 + (y1 - y0) * t0;
+            double bx = x0 + (x1 - x0) * t1, by = y0 + (y1 - y0) * t1;
+            double mx = (ax + bx) / 2;
+            if (mx < 0) {
+                line(0, ay, 0, by);
+            } else if (mx <= columns) {
+                line(ax, ay, bx, by);
+            }
+            t0 = t1;
+        }
+    }
+
+    /**
+     * Keeps a position within the box despite the rounding of the clipping.
+     */
+    private static double clamp(double x, int columns) {
+        return Math.min(Math.max(x, 0.0D), columns);
+    }
+
+    /**
+     * Accumulates the signed area of a line within the box, see
+     * https://github.com/raphlinus/font-rs for details.
+     */
+    private void line(double x0, double y0, double x1, double y1) {
+        final int columns = this.columns, rows = this.rows;
+        if (y0 == y1) {
+            return;
+        }
+        final float dir;
+        if (y0 < y1) {
+            dir = 1.0F;
+        } else {
+            dir = -1.0F;
+            double t = x0;
+            x0 = x1;
+            x1 = t;
+            t = y0;
+            y0 = y1;
+            y1 = t;
+        }
+        final double dxdy = (x1 - x0) / (y1 - y0);
+        final int first = Math.max((int) Math.floor(y0), 0);
+        final int last = Math.min((int) Math.ceil(y1), rows);
+        double x = clamp(x0 + (Math.max(y0, first) - y0) * dxdy, columns);
+        final float[] cells = this.cells;
+        for (int y = first; y < last; y++) {
+            final int row = y * stride;
+            final double dy = Math.min(y + 1, y1) - Math.max(y, y0);
+            final double xnext = clamp(x + dxdy * dy, columns);
+            final float d = (float) dy * dir;
+            final double xa = Math.min(x, xnext), xb = Math.max(x, xnext);
+            final double xaFloor = Math.floor(xa);
+            final int xai = (int) xaFloor;
+            final double xbCeil = Math.ceil(xb);
+            final int xbi = (int) xbCeil;
+            if (xbi <= xai + 1) {
+                // Within a single pixel
+                final float xmf = (float) (0.5D * (x + xnext) - xaFloor);
+                cells[row + xai] += d - d * xmf;
+                cells[row + xai + 1] += d * xmf;
+            } else {
+                final float s = (float) (1.0D / (xb - xa));
+                final float xaf = (float) (xa - xaFloor);
+                final float a0 = 0.5F * s * (1.0F - xaf) * (1.0F - xaf);
+                final float xbf = (float) (xb - xbCeil + 1.0D);
+                final float am = 0.5F * s * xbf * xbf;
+                cells[row + xai] += d * a0;
+                if (xbi == xai + 2) {
+                    cells[row + xai + 1] += d * (1.0F - a0 - am);
+                } else {
+                    final float a1 = s * (1.5F - xaf);
+                    cells[row + xai + 1] += d * (a1 - a0);
+                    for (int xi = xai + 2; xi < xbi - 1; xi++) {
+                        cells[row + xi] += d * s;
+                    }
+                    final float a2 = a1 + (xbi - xai - 3) * s;
+                    cells[row + xbi - 1] += d * (1.0F - a2 - am);
+                }
+                cells[row + xbi] += d * am;
+            }
+            x = xnext;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package jxtras.primitive.raster;
+
+/**
+ * The rule deciding which parts of a self-intersecting polygon are inside it.
+ */
+public enum FillRule {
+    /**
+     * A point is inside if a ray from it crosses the outline an odd number of times.
+     */
+    EVEN_ODD,
+
+    /**
+     * A point is inside if the outline winds around it a non-zero number of times, the default
+     * of SVG.
+     */
+    NON_ZERO
+}
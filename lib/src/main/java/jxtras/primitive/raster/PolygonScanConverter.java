@@ -0,0 +1,266 @@
+package jxtras.primitive.raster;
+
+import java.util.Arrays;
+
+/**
+ * Fills polygons with an active edge table, keeping all its state in primitive arrays which are
+ * reused from one polygon to the next. A converter is not thread-safe.
+ * <p>
+ * The edges are bucketed by their topmost row. Each row, the edges starting there join the
+ * active edges, which are kept sorted by their intersection with the row with an insertion sort,
+ * cheap since the order barely changes between rows. The intersections are stepped exactly, as
+ * an integer and a remainder over the height of the edge, so they do not drift.
+ * <p>
+ * An edge covers the rows from its top, inclusive, to its bottom, exclusive, so that a vertex
+ * shared by two edges is only counted once and horizontal edges are ignored. Likewise a span
+ * covers the pixel centers from its left intersection, inclusive, to its right one, exclusive,
+ * so that the spans of adjacent or touching polygons never overlap.
+ */
+public class PolygonScanConverter {
+    private static final int NONE = -1;
+
+    private int capacity;
+
+    /**
+     * The rows covered by each edge, <code>[top, bottom)</code>.
+     */
+    private int[] top, bottom;
+
+    /**
+     * The intersection with the current row, <code>x + remainder / dy</code>, and its step from
+     * one row to the next, <code>step + stepRemainder / dy</code>.
+     */
+    private int[] x, remainder, step, stepRemainder, dy;
+
+    /**
+     * +1 for the edges going down, -1 for those going up.
+     */
+    private int[] winding;
+
+    /**
+     * The next edge in the same bucket.
+     */
+    private int[] next;
+
+    /**
+     * The first edge of each bucket, by row relative to the first row.
+     */
+    private int[] buckets = new int[64];
+
+    /**
+     * The active edges, sorted by intersection.
+     */
+    private int[] active;
+
+    /**
+     * The scratch vertices of the polygons given as fractions or as separate corners.
+     */
+    private int[] px = new int[16], py = new int[16];
+
+    public PolygonScanConverter() {
+        ensureCapacity(16);
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= capacity) {
+            return;
+        }
+        capacity = Math.max(n, capacity << 1);
+        top = Arrays.copyOf(top == null ? new int[0] : top, capacity);
+        bottom = Arrays.copyOf(bottom == null ? new int[0] : bottom, capacity);
+        x = Arrays.copyOf(x == null ? new int[0] : x, capacity);
+        remainder = Arrays.copyOf(remainder == null ? new int[0] : remainder, capacity);
+        step = Arrays.copyOf(step == null ? new int[0] : step, capacity);
+        stepRemainder = Arrays.copyOf(stepRemainder == null ? new int[0] : stepRemainder, capacity);
+        dy = Arrays.copyOf(dy == null ? new int[0] : dy, capacity);
+        winding = Arrays.copyOf(winding == null ? new int[0] : winding, capacity);
+        next = Arrays.copyOf(next == null ? new int[0] : next, capacity);
+        active = Arrays.copyOf(active == null ? new int[0] : active, capacity);
+    }
+
+    /**
+     * Fills the polygon with fractional vertices, rounded to the nearest integers.
+     *
+     * @see #rasterize(int[], int[], int, FillRule, int, int, ScanlineBuffer)
+     */
+    public void rasterize(double[] xs, double[] ys, int n, FillRule rule, int width, int height,
+            ScanlineBuffer lines) {
+        if (px.length < n) {
+            px = new int[Math.max(n, px.length << 1)];
+            py = new int[px.length];
+        }
+        for (int i = 0; i < n; i++) {
+            px[i] = (int) Math.round(xs[i]);
+            py[i] = (int) Math.round(ys[i]);
+        }
+        rasterize(px, py, n, rule, width, height, lines);
+    }
+
+    /**
+     * Fills the quadrilateral with the given corners, in order.
+     *
+     * @see #rasterize(int[], int[], int, FillRule, int, int, ScanlineBuffer)
+     */
+    public void rasterizeQuad(int x1, int y1, int x2, int y2, int x3, int y3, int x4, int y4,
+            int width, int height, ScanlineBuffer lines) {
+        px[0] = x1;
+        py[0] = y1;
+        px[1] = x2;
+        py[1] = y2;
+        px[2] = x3;
+        py[2] = y3;
+        px[3] = x4;
+        py[3] = y4;
+        rasterize(px, py, 4, FillRule.NON_ZERO, width, height, lines);
+    }
+
+    /**
+     * Fills the polygon, appending its spans clipped to the canvas to the buffer.
+     *
+     * @param xs     The x-coordinates of the vertices.
+     * @param ys     The y-coordinates of the vertices.
+     * @param n      The number of vertices.
+     * @param rule   The fill rule for self-intersecting polygons.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the spans are appended to.
+     */
+    public void rasterize(int[] xs, int[] ys, int n, FillRule rule, int width, int height,
+            ScanlineBuffer lines) {
+        if (n < 3) {
+            return;
+        }
+        ensureCapacity(n);
+
+        // The rows any edge covers, clipped to the canvas
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        final int first = Math.max(minY, 0);
+        final int last = Math.min(maxY, height);
+        if (first >= last) {
+            return;
+        }
+        final int rows = last - first;
+        if (buckets.length < rows) {
+            buckets = new int[Math.max(rows, buckets.length << 1)];
+        }
+        Arrays.fill(buckets, 0, rows, NONE);
+
+        // Bucket the edges by their first visible row
+        int edges = 0;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            int x0 = xs[i], y0 = ys[i], x1 = xs[j], y1 = ys[j];
+            int w = 1;
+            if (y0 == y1) {
+                continue;
+            }
+            if (y0 > y1) {
+                int t = x0;
+                x0 = x1;
+                x1 = t;
+                t = y0;
+                y0 = y1;
+                y1 = t;
+                w = -1;
+            }
+            int start = Math.max(y0, first);
+            if (start >= Math.min(y1, last)) {
+                continue;
+            }
+            int e = edges++;
+            int h = y1 - y0;
+            long offset = (long) (x1 - x0) * (start - y0);
+            top[e] = start;
+            bottom[e] = y1;
+            dy[e] = h;
+            x[e] = x0 + (int) Math.floorDiv(offset, (long) h);
+            remainder[e] = (int) Math.floorMod(offset, (long) h);
+            step[e] = Math.floorDiv(x1 - x0, h);
+            stepRemainder[e] = Math.floorMod(x1 - x0, h);
+            winding[e] = w;
+            next[e] = buckets[start - first];
+            buckets[start - first] = e;
+        }
+
+        int count = 0;
+        for (int y = first; y < last; y++) {
+            // Insert the edges starting on this row, then restore the order of all of them
+            for (int e = buckets[y - first]; e != NONE; e = next[e]) {
+                active[count++] = e;
+            }
+            for (int i = 1; i < count; i++) {
+                int e = active[i];
+                int j = i - 1;
+                while (j >= 0 && isRightOf(active[j], e)) {
+                    active[j + 1] = active[j];
+                    j--;
+                }
+                active[j + 1] = e;
+            }
+
+            if (rule == FillRule.EVEN_ODD) {
+                for (int i = 0; i + 1 < count; i += 2) {
+                    addSpan(y, active[i], active[i + 1], width, lines);
+                }
+            } else {
+                int wind = 0;
+                int left = NONE;
+                for (int i = 0; i < count; i++) {
+                    int e = active[i];
+                    if (wind == 0) {
+                        left = e;
+                    }
+                    wind += winding[e];
+                    if (wind == 0) {
+                        addSpan(y, left, e, width, lines);
+                    }
+                }
+            }
+
+            // Step the edges to the next row, dropping those which end there
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int e = active[i];
+                if (y + 1 >= bottom[e]) {
+                    continue;
+                }
+                x[e] += step[e];
+                remainder[e] += stepRemainder[e];
+                if (remainder[e] >= dy[e]) {
+                    remainder[e] -= dy[e];
+                    x[e]++;
+                }
+                active[kept++] = e;
+            }
+            count = kept;
+        }
+    }
+
+    /**
+     * Returns whether the intersection of the first edge is right of that of the second, exactly.
+     */
+    private boolean isRightOf(int a, int b) {
+        if (x[a] != x[b]) {
+            return x[a] > x[b];
+        }
+        return (long) remainder[a] * dy[b] > (long) remainder[b] * dy[a];
+    }
+
+    /**
+     * Appends the span between the intersections of two edges, covering the pixel centers
+     * <code>[left, right)</code>, clipped to the canvas.
+     */
+    private void addSpan(int y, int left, int right, int width, ScanlineBuffer lines) {
+        int x1 = x[left] + (remainder[left] > 0 ? 1 : 0);
+        int x2 = x[right] + (remainder[right] > 0 ? 1 : 0) - 1;
+        x1 = Math.max(x1, 0);
+        x2 = Math.min(x2, width - 1);
+        if (x1 <= x2) {
+            lines.add(y, x1, x2, 0xFFFF);
+        }
+    }
+}
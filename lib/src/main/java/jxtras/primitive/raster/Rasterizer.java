@@ -2,13 +2,30 @@ package jxtras.primitive.raster;
 
 import jxtras.primitive.shape.Shape;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Raster is responsible for rasterizing {@link Shape} into {@link Scanline}s.
  */
 public class Rasterizer {
+    /**
+     * The polygon scan converter of each thread, reused from one polygon to the next.
+     */
+    private static final ThreadLocal<PolygonScanConverter> CONVERTER =
+            ThreadLocal.withInitial(PolygonScanConverter::new);
+
+    /**
+     * The anti-aliasing rasterizer of each thread, used for the buffers which ask for it.
+     */
+    private static final ThreadLocal<CoverageRasterizer> COVERAGE =
+            ThreadLocal.withInitial(CoverageRasterizer::new);
+
+    /**
+     * The stroke rasterizer of each thread, reused from one stroke to the next.
+     */
+    private static final ThreadLocal<StrokeRasterizer> STROKE =
+            ThreadLocal.withInitial(StrokeRasterizer::new);
+
     private final int width;
     private final int height;
 
@@ -18,14 +35,24 @@ public class Rasterizer {
     }
 
     public static List<Scanline> rasterizeLine(int x1, int y1, int x2, int y2, int width, int height) {
-        List<Scanline> scanlines = new ArrayList<Scanline>();
+        ScanlineBuffer lines = new ScanlineBuffer();
+        rasterizeLine(x1, y1, x2, y2, width, height, lines);
+        return lines.toList();
+    }
+
+    /**
+     * See http://members.chello.at/easyfilter/bresenham.html for details.
+     */
+    public static void rasterizeLine(int x1, int y1, int x2, int y2, int width, int height,
+            ScanlineBuffer lines) {
+        final int from = lines.count;
         int x = x1;
         int y = y1;
         int dx = +Math.abs(x - x2), sx = x < x2 ? 1 : -1;
         int dy = -Math.abs(y - y2), sy = y < y2 ? 1 : -1;
         int error = dx + dy, e2;
         for (; ; ) {
-            scanlines.add(new Scanline(y, x, x, 0xFFFF));
+            lines.add(y, x, x, 0xFFFF);
             if (x == x2 && y == y2) {
                 break;
             }
@@ -40,290 +67,442 @@ public class Rasterizer {
             }
         }
 
-        return Scanline.crop(scanlines, width, height);
+        // The steps along a row are one pixel each, and a line going up comes out backwards
+        lines.crop(from, width, height);
+        lines.normalize(from);
     }
 
     public static List<Scanline> rasterizeTriangle(int x1, int y1, int x2, int y2, int x3, int y3, int width, int height) {
-        List<Scanline> scanlines = new ArrayList<Scanline>();
-        /**
-         * Sort the three vertices ascending by y-coordinate.
-         * After calling following apples: y1 <= y2 <= y3
-         */
-        int x, y;
+        ScanlineBuffer lines = new ScanlineBuffer();
+        rasterizeTriangle(x1, y1, x2, y2, x3, y3, width, height, lines);
+        return lines.toList();
+    }
+
+    /**
+     * Rasterizes a filled triangle with the same coverage as
+     * {@link #rasterizePolygon(int[], int[], int, FillRule, int, int, ScanlineBuffer)}: a pixel
+     * is covered if its center is inside the triangle, the bottom and right edges excluded, which
+     * is the top-left rule. Triangles sharing an edge thus never cover a pixel twice, and
+     * degenerate triangles, whose vertices are collinear, cover nothing.
+     * <p>
+     * The rows are split at the middle vertex, each half bounded by the long edge and one short
+     * edge. The intersections of both are stepped exactly, as an integer and a remainder over
+     * the height of the edge, so the halves neither overlap nor leave a gap.
+     * <p>
+     * If the buffer is {@link ScanlineBuffer#antialias anti-aliased}, the triangle is filled by a
+     * {@link CoverageRasterizer} instead.
+     *
+     * @param x1     The x-coordinate of the first vertex.
+     * @param y1     The y-coordinate of the first vertex.
+     * @param x2     The x-coordinate of the second vertex.
+     * @param y2     The y-coordinate of the second vertex.
+     * @param x3     The x-coordinate of the third vertex.
+     * @param y3     The y-coordinate of the third vertex.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the clipped spans are appended to.
+     */
+    public static void rasterizeTriangle(int x1, int y1, int x2, int y2, int x3, int y3,
+            int width, int height, ScanlineBuffer lines) {
+        if (lines.antialias) {
+            COVERAGE.get().fillTriangle(x1, y1, x2, y2, x3, y3, width, height, lines);
+            return;
+        }
+        // Sort the vertices so that y1 <= y2 <= y3
+        int t;
         if (y1 > y3) {
-            // swap(x1, x3)
-            x = x1;
+            t = x1;
             x1 = x3;
-            x3 = x;
-            // swap(y1, y3)
-            y = y1;
+            x3 = t;
+            t = y1;
             y1 = y3;
-            y3 = y;
+            y3 = t;
         }
         if (y1 > y2) {
-            // swap(x1, x2)
-            x = x1;
+            t = x1;
             x1 = x2;
-            x2 = x;
-            // swap(y1, y2)
-            y = y1;
+            x2 = t;
+            t = y1;
             y1 = y2;
-            y2 = y;
+            y2 = t;
         }
         if (y2 > y3) {
-            // swap(x2, x3)
-            x = x2;
+            t = x2;
             x2 = x3;
-            x3 = x;
-            // swap(y2, y3)
-            y = y2;
+            x3 = t;
+            t = y2;
             y2 = y3;
-            y3 = y;
+            y3 = t;
         }
-        if (y2 == y3) {
-            rasterizeTriangleBottom(x1, y1, x2, y2, x3, y3, scanlines);
-        } else if (y1 == y2) {
-            rasterizeTriangleTop(x1, y1, x2, y2, x3, y3, scanlines);
-        } else {
-            int x4 = x1 + (int)(((double)(y2 - y1) / (double)(y3 - y1)) * (double)(x3 - x1));
-            int y4 = y2;
-            rasterizeTriangleBottom(x1, y1, x2, y2, x4, y4, scanlines);
-            rasterizeTriangleTop(x2, y2, x4, y4, x3, y3, scanlines);
-        }
-        return Scanline.crop(scanlines, width, height);
-    }
 
-    private static void rasterizeTriangleBottom(int x1, int y1, int x2, int y2, int x3, int y3,
-            List<Scanline> scanlines) {
-        double s1 = (double)(x2 - x1) / (double)(y2 - y1);
-        double s2 = (double)(x3 - x1) / (double)(y3 - y1);
-        double ax = (double)(x1);
-        double bx = (double)(x1);
-        for (int y = y1; y <= y2; y++) {
-            int a = (int)(ax);
-            int b = (int)(bx);
-            ax += s1;
-            bx += s2;
-            if (a > b) {
-                // swap(a, b)
-                int tmp = a;
-                a = b;
-                b = tmp;
-            }
-            scanlines.add(new Scanline(y, a, b, 0xFFFF));
+        // Twice the signed area, negative if the middle vertex is left of the long edge
+        final long area = (long) (x2 - x1) * (y3 - y1) - (long) (y2 - y1) * (x3 - x1);
+        if (area == 0) {
+            return;
         }
-    }
+        final boolean longIsLeft = area > 0;
+
+        // At most one span per row, written into the arrays directly
+        lines.ensureCapacity(Math.max(Math.min(y3, height) - Math.max(y1, 0), 0));
+        final int[] ys = lines.y, xs1 = lines.x1, xs2 = lines.x2, as = lines.alpha;
+        int n = lines.count;
+        for (int half = 0; half < 2; half++) {
+            final int ax = half == 0 ? x1 : x2, ay = half == 0 ? y1 : y2;
+            final int bx = half == 0 ? x2 : x3, by = half == 0 ? y2 : y3;
+            final int top = Math.max(ay, 0), bottom = Math.min(by, height);
+            if (top >= bottom) {
+                continue;
+            }
 
-    private static void rasterizeTriangleTop(int x1, int y1, int x2, int y2, int x3, int y3,
-            List<Scanline> scanlines) {
-        double s1 = (double)(x3 - x1) / (double)(y3 - y1);
-        double s2 = (double)(x3 - x2) / (double)(y3 - y2);
-        double ax = (double)(x3);
-        double bx = (double)(x3);
-        for (int y = y3; y > y1; y--) {
-            ax -= s1;
-            bx -= s2;
-            int a = (int)(ax);
-            int b = (int)(bx);
-            if (a > b) {
-                // swap(a, b)
-                int tmp = a;
-                a = b;
-                b = tmp;
+            // The left and the right edge of this half, the long edge on one side
+            final int lx = longIsLeft ? x1 : ax, ly = longIsLeft ? y1 : ay;
+            final int ldx = longIsLeft ? x3 - x1 : bx - ax, ld = longIsLeft ? y3 - y1 : by - ay;
+            final int rx = longIsLeft ? ax : x1, ry = longIsLeft ? ay : y1;
+            final int rdx = longIsLeft ? bx - ax : x3 - x1, rd = longIsLeft ? by - ay : y3 - y1;
+
+            // The ceilings of the intersections with the top row, with their remainders minus
+            // the height of the edge, in (-height, 0]
+            long offset = (long) ldx * (top - ly);
+            int lc = lx + (int) Math.floorDiv(offset, (long) ld);
+            int lr = (int) Math.floorMod(offset, (long) ld);
+            if (lr > 0) {
+                lc++;
+                lr -= ld;
+            }
+            offset = (long) rdx * (top - ry);
+            int rc = rx + (int) Math.floorDiv(offset, (long) rd);
+            int rr = (int) Math.floorMod(offset, (long) rd);
+            if (rr > 0) {
+                rc++;
+                rr -= rd;
+            }
+            final int lsq = Math.floorDiv(ldx, ld), lsr = Math.floorMod(ldx, ld);
+            final int rsq = Math.floorDiv(rdx, rd), rsr = Math.floorMod(rdx, rd);
+
+            for (int y = top; y < bottom; y++) {
+                final int a = Math.max(lc, 0);
+                final int b = Math.min(rc - 1, width - 1);
+                if (a <= b) {
+                    ys[n] = y;
+                    xs1[n] = a;
+                    xs2[n] = b;
+                    as[n] = 0xFFFF;
+                    n++;
+                }
+                // Branch-free carries, the remainders being in (-height, height) here
+                lr += lsr;
+                int carry = -lr >>> 31;
+                lc += lsq + carry;
+                lr -= ld & -carry;
+                rr += rsr;
+                carry = -rr >>> 31;
+                rc += rsq + carry;
+                rr -= rd & -carry;
             }
-            scanlines.add(new Scanline(y, a, b, 0xFFFF));
         }
+        lines.count = n;
     }
 
-    public static List<Scanline> rasterizePolygon(int[] x, int[] y, int n, int width, int height) {
-        return new PolygonRasterizer(x, y, n, width, height).rasterize();
+    /**
+     * Rasterizes a filled circle with the integer midpoint algorithm. Rows <code>cy - dy</code>
+     * and <code>cy + dy</code>, for <code>0 &lt;= dy &lt; r</code>, are covered from
+     * <code>cx - s</code> to <code>cx + s</code>, where <code>s</code> is the largest integer
+     * with <code>s * s + dy * dy &lt;= r * r</code>. No square root is taken.
+     *
+     * @param cx     The x-coordinate of the center.
+     * @param cy     The y-coordinate of the center.
+     * @param r      The radius, nothing is covered below 1.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the clipped spans are appended to.
+     */
+    public static void rasterizeCircle(int cx, int cy, int r, int width, int height,
+            ScanlineBuffer lines) {
+        rasterizeEllipse(cx, cy, r, r, width, height, lines);
     }
 
-    /*
-     * Just a class for an edge.
+    /**
+     * Rasterizes a filled axis-aligned ellipse with the integer midpoint algorithm. Rows
+     * <code>cy - dy</code> and <code>cy + dy</code>, for <code>0 &lt;= dy &lt; ry</code>, are
+     * covered from <code>cx - s</code> to <code>cx + s</code>, where <code>s</code> is the
+     * largest integer inside the ellipse, i.e. with
+     * <code>s^2 * ry^2 + dy^2 * rx^2 &lt;= rx^2 * ry^2</code>.
+     * <p>
+     * If the buffer is {@link ScanlineBuffer#antialias anti-aliased}, the ellipse is flattened
+     * and filled by a {@link CoverageRasterizer} instead.
+     *
+     * @param cx     The x-coordinate of the center.
+     * @param cy     The y-coordinate of the center.
+     * @param rx     The x-radius, nothing is covered below 1.
+     * @param ry     The y-radius, nothing is covered below 1.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the clipped spans are appended to.
      */
-    private static class Edge {
-
-        public int x1, y1;       // first vertice
-        public int x2, y2;       // second vertice
-        public double curX;      // x-coord of intersection with scanline
-        public double m;         // slope
-
-        /*
-         * Create on edge out of two vertices
-         */
-        public Edge(int x1, int y1, int x2, int y2) {
-            this.x1 = x1;
-            this.y1 = y1;
-
-            this.x2 = x2;
-            this.y2 = y2;
-
-            // m = dy / dx
-            m = (float)((float)(y1 - y2) / (float)(x1 - x2));
+    public static void rasterizeEllipse(int cx, int cy, int rx, int ry, int width, int height,
+            ScanlineBuffer lines) {
+        if (rx < 1 || ry < 1) {
+            return;
         }
-
-        /*
-         * Called when scanline intersects the first vertice of this edge.
-         * That simply means that the intersection point is this vertice.
-         */
-        public void activate() {
-            curX = x1;
+        if (lines.antialias) {
+            COVERAGE.get().fillEllipse(cx, cy, rx, ry, 0.0D, width, height, lines);
+            return;
         }
-
-        /*
-         * Update the intersection point from the scanline and this edge.
-         * Instead of explicitly calculate it we just increment with 1/m every time
-         * it is intersected by the scanline.
-         */
-        public void update() {
-            curX += (float)((float)1 / (float)m);
+        final long a2 = (long) rx * rx;
+        final long b2 = (long) ry * ry;
+        // The rows are written from the center outwards into their slots, so that they come out
+        // sorted, then clipped all at once
+        final int from = lines.count;
+        final int middle = from + ry - 1;
+        lines.ensureCapacity(2 * ry - 1);
+        final int[] ys = lines.y, x1s = lines.x1, x2s = lines.x2, alphas = lines.alpha;
+        // The decision variable rx^2 * ry^2 - dy^2 * rx^2 - s^2 * ry^2, kept >= 0 by moving s
+        // inwards as dy grows, so that s is always the half-width of the current row
+        long e = 0;
+        int s = rx;
+        for (int dy = 0; dy < ry; dy++) {
+            if (dy > 0) {
+                e -= (2L * dy - 1) * a2;
+            }
+            while (e < 0) {
+                e += (2L * s - 1) * b2;
+                s--;
+            }
+            ys[middle - dy] = cy - dy;
+            ys[middle + dy] = cy + dy;
+            x1s[middle - dy] = x1s[middle + dy] = cx - s;
+            x2s[middle - dy] = x2s[middle + dy] = cx + s;
+            alphas[middle - dy] = alphas[middle + dy] = 0xFFFF;
         }
+        lines.count = from + 2 * ry - 1;
+        lines.crop(from, width, height);
+    }
 
-        /*
-         * Called when scanline intersects the second vertice,
-         * so the intersection point is exactly this vertice and from now on
-         * we are done with this edge
-         */
-        public void deactivate() {
-            curX = x2;
+    /**
+     * Rasterizes a filled ellipse rotated about its center. The ellipse is solved exactly for
+     * each row, which gives the pixels whose center lies inside it, rather than approximating
+     * its outline with a polygon.
+     * <p>
+     * In the rows' frame the ellipse is <code>A x^2 + B x y + C y^2 &lt;= 1</code>, its half
+     * height is <code>sqrt(ry^2 cos^2 + rx^2 sin^2)</code> and each row is an interval
+     * centered on <code>-B y / 2A</code>.
+     * <p>
+     * If the buffer is {@link ScanlineBuffer#antialias anti-aliased}, the ellipse is flattened
+     * and filled by a {@link CoverageRasterizer} instead.
+     *
+     * @param cx     The x-coordinate of the center.
+     * @param cy     The y-coordinate of the center.
+     * @param rx     The x-radius before rotation, nothing is covered below 1.
+     * @param ry     The y-radius before rotation, nothing is covered below 1.
+     * @param angle  The clockwise rotation, in degrees.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the clipped spans are appended to.
+     */
+    public static void rasterizeRotatedEllipse(int cx, int cy, int rx, int ry, double angle,
+            int width, int height, ScanlineBuffer lines) {
+        if (rx < 1 || ry < 1) {
+            return;
+        }
+        if (lines.antialias) {
+            COVERAGE.get().fillEllipse(cx, cy, rx, ry, Math.toRadians(angle), width, height,
+                    lines);
+            return;
+        }
+        final double rads = Math.toRadians(angle);
+        final double c = Math.cos(rads);
+        final double s = Math.sin(rads);
+        final double a2 = (double) rx * rx;
+        final double b2 = (double) ry * ry;
+
+        final double a = c * c / a2 + s * s / b2;
+        final double b = 2 * c * s * (1 / a2 - 1 / b2);
+        final double h2 = b2 * c * c + a2 * s * s;
+
+        final double slope = -b / (2 * a);
+        final double radius = 1 / Math.sqrt(a);
+        final int dyMax = (int) Math.sqrt(h2);
+        final int dyFrom = Math.max(-dyMax, -cy);
+        final int dyTo = Math.min(dyMax, height - 1 - cy);
+        for (int dy = dyFrom; dy <= dyTo; dy++) {
+            final double t = 1 - dy * dy / h2;
+            if (t < 0) {
+                continue;
+            }
+            final double mid = slope * dy;
+            final double half = radius * Math.sqrt(t);
+            addSpan(cy + dy, cx + (int) Math.ceil(mid - half), cx + (int) Math.floor(mid + half),
+                    width, height, lines);
         }
+    }
 
+    /**
+     * Appends a span clipped to the canvas, unless nothing of it is left.
+     */
+    private static void addSpan(int y, int x1, int x2, int width, int height,
+            ScanlineBuffer lines) {
+        if (y < 0 || y >= height) {
+            return;
+        }
+        x1 = Math.max(x1, 0);
+        x2 = Math.min(x2, width - 1);
+        if (x1 <= x2) {
+            lines.add(y, x1, x2, 0xFFFF);
+        }
     }
 
-    private static class PolygonRasterizer {
-        int[] x; // x coordinates
-        int[] y; // y coordinates
-        int n;  // number of coordinates
+    public static List<Scanline> rasterizePolygon(int[] x, int[] y, int n, int width, int height) {
+        ScanlineBuffer lines = new ScanlineBuffer();
+        rasterizePolygon(x, y, n, width, height, lines);
+        return lines.toList();
+    }
 
-        int width, height;
+    /**
+     * Fills a polygon with the {@link FillRule#NON_ZERO} rule, see
+     * {@link #rasterizePolygon(int[], int[], int, FillRule, int, int, ScanlineBuffer)}.
+     */
+    public static void rasterizePolygon(int[] x, int[] y, int n, int width, int height,
+            ScanlineBuffer lines) {
+        rasterizePolygon(x, y, n, FillRule.NON_ZERO, width, height, lines);
+    }
 
-        private PolygonRasterizer(int[] x, int[] y, int n, int width, int height) {
-            this.x = x;
-            this.y = y;
-            this.n = n;
-            this.width = width;
-            this.height = height;
+    /**
+     * Fills a polygon with a {@link PolygonScanConverter} of the calling thread. A pixel is
+     * covered if its center is inside the polygon, the bottom and right edges excluded. If the
+     * buffer is {@link ScanlineBuffer#antialias anti-aliased}, the polygon is filled by a
+     * {@link CoverageRasterizer} instead, each pixel then being covered by the fraction of its
+     * area inside the polygon.
+     *
+     * @param x      The x-coordinates of the vertices.
+     * @param y      The y-coordinates of the vertices.
+     * @param n      The number of vertices.
+     * @param rule   The fill rule for self-intersecting polygons.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param lines  The buffer the spans are appended to.
+     */
+    public static void rasterizePolygon(int[] x, int[] y, int n, FillRule rule, int width,
+            int height, ScanlineBuffer lines) {
+        if (lines.antialias) {
+            COVERAGE.get().fill(x, y, n, rule, width, height, lines);
+        } else {
+            CONVERTER.get().rasterize(x, y, n, rule, width, height, lines);
         }
+    }
 
-        /**
-         * See https://imagej.nih.gov/ij/developer/source/ij/process/PolygonFiller.java.html for
-         * details.
-         */
-        public List<Scanline> rasterize() {
-            List<Scanline> scanlines = new ArrayList<Scanline>();
-
-            // create edges array from polygon vertice vector
-            // make sure that first vertice of an edge is the smaller one
-            Edge[] sortedEdges = this.createEdges();
-
-            // sort all edges by y coordinate, smallest one first, lousy bubblesort
-            Edge tmp;
-            for (int i = 0; i < sortedEdges.length - 1; i++) {
-                for (int j = 0; j < sortedEdges.length - 1; j++) {
-                    if (sortedEdges[j].y1 > sortedEdges[j + 1].y1) {
-                        // swap both edges
-                        tmp = sortedEdges[j];
-                        sortedEdges[j] = sortedEdges[j + 1];
-                        sortedEdges[j + 1] = tmp;
-                    }
-                }
-            }
-
-            // find biggest y-coord of all vertices
-            int scanlineEnd = 0;
-            for (int i = 0; i < sortedEdges.length; i++) {
-                if (scanlineEnd < sortedEdges[i].y2) {
-                    scanlineEnd = sortedEdges[i].y2;
-                }
-            }
+    /**
+     * Fills a polygon with fractional vertices, anti-aliased. The vertices are rounded to the
+     * nearest integers if the buffer is not {@link ScanlineBuffer#antialias anti-aliased}.
+     *
+     * @see #rasterizePolygon(int[], int[], int, FillRule, int, int, ScanlineBuffer)
+     */
+    public static void rasterizePolygon(double[] x, double[] y, int n, FillRule rule, int width,
+            int height, ScanlineBuffer lines) {
+        if (lines.antialias) {
+            COVERAGE.get().fill(x, y, n, rule, width, height, lines);
+            return;
+        }
+        CONVERTER.get().rasterize(x, y, n, rule, width, height, lines);
+    }
 
-            // this list holds all cutpoints from current scanline with the polygon
-            ArrayList<Integer> list = new ArrayList<Integer>();
-
-            // scanline starts at smallest y coordinate and then move scanline step by step down
-            // to biggest one
-            for (int scanline = sortedEdges[0].y1; scanline <= scanlineEnd; scanline++) {
-                //System.out.println("ScanLine: " + scanline); // DEBUG
-
-                list.clear();
-
-                // loop all edges to see which are cut by the scanline
-                for (int i = 0; i < sortedEdges.length; i++) {
-
-                    // here the scanline intersects the smaller vertice
-                    if (scanline == sortedEdges[i].y1) {
-                        if (scanline == sortedEdges[i].y2) {
-                            // the current edge is horizontal, so we add both vertices
-                            sortedEdges[i].deactivate();
-                            list.add((int)sortedEdges[i].curX);
-                        } else {
-                            sortedEdges[i].activate();
-                            // we don't insert it in the list cause this vertice is also
-                            // the (bigger) vertice of another edge and already handled
-                        }
-                    }
-
-                    // here the scanline intersects the bigger vertice
-                    if (scanline == sortedEdges[i].y2) {
-                        sortedEdges[i].deactivate();
-                        list.add((int)sortedEdges[i].curX);
-                    }
-
-                    // here the scanline intersects the edge, so calc intersection point
-                    if (scanline > sortedEdges[i].y1 && scanline < sortedEdges[i].y2) {
-                        sortedEdges[i].update();
-                        list.add((int)sortedEdges[i].curX);
-                    }
+    /**
+     * Fills a quadrilateral given by its corners, in order, without allocating the arrays of
+     * its vertices.
+     *
+     * @see #rasterizePolygon(int[], int[], int, FillRule, int, int, ScanlineBuffer)
+     */
+    public static void rasterizeQuad(int x1, int y1, int x2, int y2, int x3, int y3, int x4,
+            int y4, int width, int height, ScanlineBuffer lines) {
+        if (lines.antialias) {
+            COVERAGE.get().fillQuad(x1, y1, x2, y2, x3, y3, x4, y4, width, height, lines);
+        } else {
+            CONVERTER.get().rasterizeQuad(x1, y1, x2, y2, x3, y3, x4, y4, width, height, lines);
+        }
+    }
 
-                }
+    /**
+     * Fills a quadrilateral with fractional corners, anti-aliased. The corners are rounded to
+     * the nearest integers if the buffer is not {@link ScanlineBuffer#antialias anti-aliased}.
+     *
+     * @see #rasterizeQuad(int, int, int, int, int, int, int, int, int, int, ScanlineBuffer)
+     */
+    public static void rasterizeQuad(double x1, double y1, double x2, double y2, double x3,
+            double y3, double x4, double y4, int width, int height, ScanlineBuffer lines) {
+        if (lines.antialias) {
+            COVERAGE.get().fillQuad(x1, y1, x2, y2, x3, y3, x4, y4, width, height, lines);
+        } else {
+            CONVERTER.get().rasterizeQuad((int) Math.round(x1), (int) Math.round(y1),
+                    (int) Math.round(x2), (int) Math.round(y2), (int) Math.round(x3),
+                    (int) Math.round(y3), (int) Math.round(x4), (int) Math.round(y4), width,
+                    height, lines);
+        }
+    }
 
-                if (list.size() < 2 || list.size() % 2 != 0) {
-                    // System.out.println("This should never happen! list size: " + list.size());
-                    continue;
-                }
+    /**
+     * Strokes a polyline with a {@link StrokeRasterizer} of the calling thread, one span per
+     * covered interval of each row, or per run of equal coverage if the buffer is
+     * {@link ScanlineBuffer#antialias anti-aliased}.
+     *
+     * @param x           The x-coordinates of the vertices.
+     * @param y           The y-coordinates of the vertices.
+     * @param n           The number of vertices.
+     * @param strokeWidth The width of the stroke.
+     * @param cap         The shape of the ends.
+     * @param join        The shape of the corners.
+     * @param width       The x-bound of the whole canvas.
+     * @param height      The y-bound of the whole canvas.
+     * @param lines       The buffer the spans are appended to.
+     */
+    public static void rasterizeStroke(double[] x, double[] y, int n, double strokeWidth,
+            StrokeCap cap, StrokeJoin join, int width, int height, ScanlineBuffer lines) {
+        STROKE.get().stroke(x, y, n, strokeWidth, cap, join, width, height, lines);
+    }
 
-                // now we have to sort our list with our x-coordinates, ascendend
-                int swaptmp;
-                for (int i = 0; i < list.size(); i++) {
-                    for (int j = 0; j < list.size() - 1; j++) {
-                        if (list.get(j) > list.get(j + 1)) {
-                            swaptmp = list.get(j);
-                            list.set(j, list.get(j + 1));
-                            list.set(j + 1, swaptmp);
-                        }
-
-                    }
-                }
+    /**
+     * Strokes a polyline with integer vertices.
+     *
+     * @see #rasterizeStroke(double[], double[], int, double, StrokeCap, StrokeJoin, int, int,
+     *      ScanlineBuffer)
+     */
+    public static void rasterizeStroke(int[] x, int[] y, int n, double strokeWidth,
+            StrokeCap cap, StrokeJoin join, int width, int height, ScanlineBuffer lines) {
+        STROKE.get().stroke(x, y, n, strokeWidth, cap, join, width, height, lines);
+    }
 
-                // so draw all line segments on current scanline
-                for (int i = 0; i < list.size(); i += 2) {
-                    scanlines.add(new Scanline(scanline, list.get(i), list.get(i + 1), 0xFFFF));
-                }
+    /**
+     * Strokes a single segment, without allocating the arrays of its vertices.
+     *
+     * @see StrokeRasterizer#strokeSegment(double, double, double, double, double, StrokeCap,
+     *      int, int, ScanlineBuffer)
+     */
+    public static void rasterizeStroke(double x1, double y1, double x2, double y2,
+            double strokeWidth, StrokeCap cap, int width, int height, ScanlineBuffer lines) {
+        STROKE.get().strokeSegment(x1, y1, x2, y2, strokeWidth, cap, width, height, lines);
+    }
 
-            }
-            return Scanline.crop(scanlines, width, height);
-        }
+    /**
+     * Strokes a quadratic B&eacute;zier curve, flattened adaptively to its curvature.
+     *
+     * @see StrokeRasterizer#strokeQuadratic(double, double, double, double, double, double,
+     *      double, StrokeCap, StrokeJoin, int, int, ScanlineBuffer)
+     */
+    public static void rasterizeQuadratic(double x0, double y0, double x1, double y1, double x2,
+            double y2, double strokeWidth, StrokeCap cap, StrokeJoin join, int width, int height,
+            ScanlineBuffer lines) {
+        STROKE.get().strokeQuadratic(x0, y0, x1, y1, x2, y2, strokeWidth, cap, join, width,
+                height, lines);
+    }
 
-        /*
-         * Create from the polygon vertices an array of edges.
-         * Note that the first vertice of an edge is always the one with the smaller y
-         * coordinate one of both
-         */
-        private Edge[] createEdges() {
-            Edge[] sortedEdges = new Edge[n];
-            for (int i = 0; i < n; i++) {
-                int x1 = x[i];
-                int y1 = y[i];
-                int x2 = x[(i + 1) % n];
-                int y2 = y[(i + 1) % n];
-                if (y1 < y2) {
-                    sortedEdges[i] = new Edge(x1, y1, x2, y2);
-                } else {
-                    sortedEdges[i] = new Edge(x2, y2, x1, y1);
-                }
-            }
-            return sortedEdges;
-        }
+    /**
+     * Strokes a cubic B&eacute;zier curve, flattened adaptively to its curvature.
+     *
+     * @see StrokeRasterizer#strokeCubic(double, double, double, double, double, double, double,
+     *      double, double, StrokeCap, StrokeJoin, int, int, ScanlineBuffer)
+     */
+    public static void rasterizeCubic(double x0, double y0, double x1, double y1, double x2,
+            double y2, double x3, double y3, double strokeWidth, StrokeCap cap, StrokeJoin join,
+            int width, int height, ScanlineBuffer lines) {
+        STROKE.get().strokeCubic(x0, y0, x1, y1, x2, y2, x3, y3, strokeWidth, cap, join, width,
+                height, lines);
     }
 }
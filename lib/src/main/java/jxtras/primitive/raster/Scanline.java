@@ -74,4 +74,22 @@ public class Scanline {
         }
         return result;
     }
+
+    /**
+     * Normalizes scanlines: sorts them by row, then by leftmost x-coordinate, and resolves their
+     * overlaps, each pixel taking the greatest coverage of the scanlines over it. Each pixel is
+     * then covered by a single scanline, so it is blended once.
+     *
+     * @param scanlines The scanlines to normalize, left unchanged.
+     * @return A new list of the normalized scanlines.
+     * @see ScanlineBuffer#normalize()
+     */
+    public static List<Scanline> normalize(List<Scanline> scanlines) {
+        ScanlineBuffer lines = new ScanlineBuffer(Math.max(scanlines.size(), 1));
+        for (Scanline scanline : scanlines) {
+            lines.add(scanline.y, scanline.x1, scanline.x2, scanline.alpha);
+        }
+        lines.normalize();
+        return lines.toList();
+    }
 }
@@ -0,0 +1,365 @@
+package jxtras.primitive.raster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jxtras.primitive.util.Mathematics;
+
+/**
+ * The <code>ScanlineBuffer</code> is a reusable, primitive-backed list of {@link Scanline}s.
+ * <p>
+ * The scanlines are stored as parallel arrays so that the rasterizers can emit rows without
+ * allocating an object per row. A buffer is meant to be owned by a single thread and
+ * {@link #clear() cleared} before each rasterization.
+ */
+public class ScanlineBuffer {
+    /**
+     * The Y-coordinates of the scanlines.
+     */
+    public int[] y;
+
+    /**
+     * The leftmost X-coordinates of the scanlines.
+     */
+    public int[] x1;
+
+    /**
+     * The rightmost X-coordinates of the scanlines.
+     */
+    public int[] x2;
+
+    /**
+     * The alpha-premultiplied 16-bits coverage of the scanlines.
+     */
+    public int[] alpha;
+
+    /**
+     * The number of scanlines currently held in the buffer.
+     */
+    public int count;
+
+    /**
+     * Whether the shapes rasterized into this buffer are anti-aliased, their edge pixels then
+     * being covered by partial alpha rather than all or nothing. The flag is a setting of the
+     * buffer's owner and is kept by {@link #clear()}.
+     */
+    public boolean antialias;
+
+    /**
+     * Creates an empty buffer with a default initial capacity.
+     */
+    public ScanlineBuffer() {
+        this(256);
+    }
+
+    /**
+     * Creates an empty buffer with the given initial capacity.
+     *
+     * @param capacity The number of scanlines the buffer can hold before growing.
+     */
+    public ScanlineBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1");
+        }
+        this.y = new int[capacity];
+        this.x1 = new int[capacity];
+        this.x2 = new int[capacity];
+        this.alpha = new int[capacity];
+        this.count = 0;
+    }
+
+    /**
+     * Removes all the scanlines from the buffer, the backing arrays are kept.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Returns the number of scanlines in the buffer.
+     *
+     * @return The number of scanlines.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Appends a scanline to the buffer, growing the backing arrays if needed.
+     *
+     * @param y     The y-coordinate.
+     * @param x1    The leftmost x-coordinate.
+     * @param x2    The rightmost x-coordinate.
+     * @param alpha alpha-premultiplied 16-bits
+     */
+    public void add(int y, int x1, int x2, int alpha) {
+        if (count == this.y.length) {
+            grow();
+        }
+        this.y[count] = y;
+        this.x1[count] = x1;
+        this.x2[count] = x2;
+        this.alpha[count] = alpha;
+        count++;
+    }
+
+    /**
+     * Makes room for at least the given number of scanlines after the current ones, so that a
+     * rasterizer knowing its number of rows can write them into the arrays directly.
+     *
+     * @param n The number of scanlines to be appended.
+     */
+    public void ensureCapacity(int n) {
+        if (count + n > y.length) {
+            grow(Math.max(count + n, y.length << 1));
+        }
+    }
+
+    private void grow() {
+        grow(y.length << 1);
+    }
+
+    private void grow(int capacity) {
+        y = Arrays.copyOf(y, capacity);
+        x1 = Arrays.copyOf(x1, capacity);
+        x2 = Arrays.copyOf(x2, capacity);
+        alpha = Arrays.copyOf(alpha, capacity);
+    }
+
+    /**
+     * Crops all the scanlines in the buffer so they do not scan outside of the given area.
+     *
+     * @param w The width to crop.
+     * @param h The height to crop.
+     * @see Scanline#crop(List, int, int)
+     */
+    public void crop(int w, int h) {
+        crop(0, w, h);
+    }
+
+    /**
+     * Crops the scanlines starting at the given index so they do not scan outside of the given
+     * area. Scanlines that fall entirely outside are removed, the buffer is compacted in place.
+     *
+     * @param from The index of the first scanline to crop.
+     * @param w    The width to crop.
+     * @param h    The height to crop.
+     */
+    public void crop(int from, int w, int h) {
+        int n = from;
+        for (int i = from; i < count; i++) {
+            int sy = y[i];
+            if (sy < 0 || sy >= h) {
+                continue;
+            }
+            if (x1[i] >= w) {
+                continue;
+            }
+            if (x2[i] < 0) {
+                continue;
+            }
+            int sx1 = Mathematics.clamp(x1[i], 0, w - 1);
+            int sx2 = Mathematics.clamp(x2[i], 0, w - 1);
+            if (sx1 > sx2) {
+                continue;
+            }
+            y[n] = sy;
+            x1[n] = sx1;
+            x2[n] = sx2;
+            alpha[n] = alpha[i];
+            n++;
+        }
+        count = n;
+    }
+
+    /**
+     * Normalizes all the scanlines in the buffer.
+     *
+     * @see #normalize(int)
+     * @see Scanline#normalize(List)
+     */
+    public void normalize() {
+        normalize(0);
+    }
+
+    /**
+     * Normalizes the scanlines starting at the given index: sorts them by row, then by leftmost
+     * x-coordinate, and resolves the overlaps of the scanlines of a row, so that each pixel is
+     * covered by a single scanline and blended once. Where scanlines overlap a pixel takes the
+     * greatest of their coverages, and the resulting runs which touch and have the same coverage
+     * are merged. The rasterizers mostly emit normalized scanlines already, which is checked
+     * first in a single pass, so normalizing them costs next to nothing.
+     *
+     * @param from The index of the first scanline to normalize.
+     */
+    public void normalize(int from) {
+        if (isNormalized(from)) {
+            return;
+        }
+        final int n = count - from;
+        sort(from, n);
+        count = from;
+        for (int start = 0; start < n; ) {
+            int end = start + 1;
+            while (end < n && sortedY[end] == sortedY[start]) {
+                end++;
+            }
+            sweep(start, end);
+            start = end;
+        }
+    }
+
+    private boolean isNormalized(int from) {
+        for (int i = from + 1; i < count; i++) {
+            if (y[i] > y[i - 1]) {
+                continue;
+            }
+            if (y[i] < y[i - 1] || x1[i] <= x2[i - 1] + (alpha[i] == alpha[i - 1] ? 1 : 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the disjoint runs of the sorted scanlines <code>start</code> to <code>end - 1</code>,
+     * all of the same row, each run taking the greatest coverage of the scanlines over it.
+     */
+    private void sweep(int start, int end) {
+        final int row = sortedY[start];
+        final int first = count;
+        int actives = 0;
+        int next = start;
+        int x = Integer.MIN_VALUE;
+        while (true) {
+            // Drop the scanlines which end before x, then skip to the next one if none is left
+            int kept = 0;
+            for (int i = 0; i < actives; i++) {
+                if (sortedX2[active[i]] >= x) {
+                    active[kept++] = active[i];
+                }
+            }
+            actives = kept;
+            if (actives == 0) {
+                if (next == end) {
+                    return;
+                }
+                x = Math.max(x, sortedX1[next]);
+            }
+            while (next < end && sortedX1[next] <= x) {
+                if (sortedX2[next] >= x) {
+                    active[actives++] = next;
+                }
+                next++;
+            }
+            if (actives == 0) {
+                continue;
+            }
+
+            // The run goes on until a scanline ends or another one starts
+            int right = next < end ? sortedX1[next] - 1 : Integer.MAX_VALUE;
+            int coverage = 0;
+            for (int i = 0; i < actives; i++) {
+                right = Math.min(right, sortedX2[active[i]]);
+                coverage = Math.max(coverage, sortedAlpha[active[i]]);
+            }
+            int last = count - 1;
+            if (count > first && alpha[last] == coverage && x2[last] + 1 == x) {
+                x2[last] = right;
+            } else {
+                add(row, x, right, coverage);
+            }
+            if (right == Integer.MAX_VALUE) {
+                return;
+            }
+            x = right + 1;
+        }
+    }
+
+    /**
+     * The bits of the row and of the leftmost x-coordinate, relative to their minimum, in the
+     * sort keys.
+     */
+    private static final int KEY_BITS = 21;
+
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+
+    /**
+     * The sort keys, <code>y | x1 | index</code>, the order they give, the sorted copies of the
+     * scanlines and the scanlines over the pixel being swept, kept from one sort to the next.
+     */
+    private long[] keys;
+
+    private int[] order, active;
+
+    private int[] sortedY, sortedX1, sortedX2, sortedAlpha;
+
+    /**
+     * Copies the <code>n</code> scanlines starting at the given index into the sorted arrays, by
+     * row, then by leftmost x-coordinate. The keys are packed into longs and sorted as such when
+     * the scanlines are close enough, which they nearly always are, otherwise the indices are
+     * sorted by comparison.
+     */
+    private void sort(int from, int n) {
+        if (keys == null || keys.length < n) {
+            int capacity = Math.max(n, y.length);
+            keys = new long[capacity];
+            order = new int[capacity];
+            active = new int[capacity];
+            sortedY = new int[capacity];
+            sortedX1 = new int[capacity];
+            sortedX2 = new int[capacity];
+            sortedAlpha = new int[capacity];
+        }
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        for (int i = from; i < count; i++) {
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+            minX = Math.min(minX, x1[i]);
+            maxX = Math.max(maxX, x1[i]);
+        }
+        if (n <= KEY_MASK && (long) maxY - minY <= KEY_MASK && (long) maxX - minX <= KEY_MASK) {
+            for (int i = 0; i < n; i++) {
+                keys[i] = ((long) (y[from + i] - minY) << (2 * KEY_BITS))
+                        | ((long) (x1[from + i] - minX) << KEY_BITS) | i;
+            }
+            Arrays.sort(keys, 0, n);
+            for (int i = 0; i < n; i++) {
+                order[i] = (int) (keys[i] & KEY_MASK);
+            }
+        } else {
+            Integer[] indices = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                indices[i] = i;
+            }
+            Arrays.sort(indices, (a, b) -> y[from + a] != y[from + b]
+                    ? Integer.compare(y[from + a], y[from + b])
+                    : Integer.compare(x1[from + a], x1[from + b]));
+            for (int i = 0; i < n; i++) {
+                order[i] = indices[i];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int k = from + order[i];
+            sortedY[i] = y[k];
+            sortedX1[i] = x1[k];
+            sortedX2[i] = x2[k];
+            sortedAlpha[i] = alpha[k];
+        }
+    }
+
+    /**
+     * Creates a list of {@link Scanline} objects from the content of the buffer.
+     *
+     * @return A new list of scanlines.
+     */
+    public List<Scanline> toList() {
+        List<Scanline> scanlines = new ArrayList<Scanline>(count);
+        for (int i = 0; i < count; i++) {
+            scanlines.add(new Scanline(y[i], x1[i], x2[i], alpha[i]));
+        }
+        return scanlines;
+    }
+}
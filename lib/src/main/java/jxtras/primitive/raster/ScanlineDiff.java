@@ -0,0 +1,191 @@
+package jxtras.primitive.raster;
+
+import java.util.Arrays;
+
+/**
+ * Computes which pixels a rasterization gained and lost compared to another one, so that a
+ * measure summed over the pixels of a shape can be updated from the change alone when the shape
+ * is mutated. A differ keeps its scratch arrays from one call to the next and is not thread-safe.
+ * <p>
+ * The scanlines are taken as multisets of pixels of a given coverage: a pixel covered twice
+ * counts twice, and a pixel whose coverage changes is both removed with the old coverage and
+ * added with the new one. The scanlines need not be sorted, nor be disjoint.
+ */
+public class ScanlineDiff {
+    /**
+     * The sweep events, <code>y | alpha | x | sign</code> packed so that sorting them orders
+     * them by row, then coverage, then position.
+     */
+    private long[] events = new long[256];
+
+    private static final int SIGN_BITS = 1;
+    private static final int X_BITS = 27;
+    private static final int ALPHA_BITS = 17;
+
+    private static final int X_SHIFT = SIGN_BITS;
+    private static final int ALPHA_SHIFT = X_SHIFT + X_BITS;
+    private static final int Y_SHIFT = ALPHA_SHIFT + ALPHA_BITS;
+
+    private static final long X_MASK = (1L << X_BITS) - 1;
+    private static final long ALPHA_MASK = (1L << ALPHA_BITS) - 1;
+
+    /**
+     * Appends the pixels covered by <code>after</code> but not by <code>before</code> to
+     * <code>added</code>, and those covered by <code>before</code> but not by
+     * <code>after</code> to <code>removed</code>. Both rasterizations are clipped to the
+     * canvas first.
+     *
+     * @param before  The previous rasterization.
+     * @param after   The new rasterization.
+     * @param width   The x-bound of the whole canvas.
+     * @param height  The y-bound of the whole canvas.
+     * @param added   The buffer the gained pixels are appended to.
+     * @param removed The buffer the lost pixels are appended to.
+     * @return The number of pixels gained and lost.
+     */
+    public long diff(ScanlineBuffer before, ScanlineBuffer after, int width, int height,
+            ScanlineBuffer added, ScanlineBuffer removed) {
+        if (isMonotonic(before) && isMonotonic(after)) {
+            return merge(before, after, width, height, added, removed);
+        }
+        int n = 2 * (before.count + after.count);
+        if (events.length < n) {
+            events = new long[Math.max(n, events.length << 1)];
+        }
+        n = 0;
+        n = addEvents(before, 0, width, height, n);
+        n = addEvents(after, 1, width, height, n);
+        Arrays.sort(events, 0, n);
+
+        // Sweep the events, emitting the runs of pixels where the two multisets differ
+        long changed = 0;
+        long group = -1;
+        int net = 0, runNet = 0, runStart = 0;
+        int i = 0;
+        while (i < n) {
+            final long event = events[i];
+            final long key = event >>> ALPHA_SHIFT;
+            final int x = (int) ((event >>> X_SHIFT) & X_MASK);
+            if (key != group) {
+                group = key;
+                net = 0;
+                runNet = 0;
+            }
+            // Apply all the events at this position before looking at the count
+            while (i < n && (events[i] >>> X_SHIFT) == (event >>> X_SHIFT)) {
+                net += (events[i] & 1) == 1 ? 1 : -1;
+                i++;
+            }
+            if (net != runNet) {
+                if (runNet != 0) {
+                    final int y = (int) (key >>> ALPHA_BITS);
+                    final int alpha = (int) (key & ALPHA_MASK);
+                    changed += emit(y, runStart, x - 1, alpha, runNet, added, removed);
+                }
+                runNet = net;
+                runStart = x;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns whether the scanlines hold at most one span per row, by increasing row, which is
+     * how most rasterizers emit them.
+     */
+    private static boolean isMonotonic(ScanlineBuffer lines) {
+        for (int k = 1; k < lines.count; k++) {
+            if (lines.y[k] <= lines.y[k - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Diffs two monotonic rasterizations row by row, without sorting: a row differs by at most
+     * two runs on each side.
+     */
+    private static long merge(ScanlineBuffer before, ScanlineBuffer after, int width,
+            int height, ScanlineBuffer added, ScanlineBuffer removed) {
+        long changed = 0;
+        int i = 0, j = 0;
+        while (i < before.count || j < after.count) {
+            final int by = i < before.count ? before.y[i] : Integer.MAX_VALUE;
+            final int ay = j < after.count ? after.y[j] : Integer.MAX_VALUE;
+            final int y = Math.min(by, ay);
+            int b1 = 0, b2 = -1, a1 = 0, a2 = -1, balpha = 0, aalpha = 0;
+            if (by == y) {
+                b1 = Math.max(before.x1[i], 0);
+                b2 = Math.min(before.x2[i], width - 1);
+                balpha = before.alpha[i];
+                i++;
+            }
+            if (ay == y) {
+                a1 = Math.max(after.x1[j], 0);
+                a2 = Math.min(after.x2[j], width - 1);
+                aalpha = after.alpha[j];
+                j++;
+            }
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            if (b1 > b2 || a1 > a2 || balpha != aalpha || a2 < b1 || b2 < a1) {
+                // Nothing in common
+                changed += run(removed, y, b1, b2, balpha) + run(added, y, a1, a2, aalpha);
+                continue;
+            }
+            changed += run(added, y, a1, b1 - 1, aalpha) + run(removed, y, b1, a1 - 1, balpha);
+            changed += run(added, y, b2 + 1, a2, aalpha) + run(removed, y, a2 + 1, b2, balpha);
+        }
+        return changed;
+    }
+
+    /**
+     * Appends the run unless it is empty, and returns its number of pixels.
+     */
+    private static int run(ScanlineBuffer lines, int y, int x1, int x2, int alpha) {
+        if (x1 > x2) {
+            return 0;
+        }
+        lines.add(y, x1, x2, alpha);
+        return x2 - x1 + 1;
+    }
+
+    /**
+     * Appends the start and end events of the clipped scanlines, an after-end event being
+     * counted as a removal for the scanlines of the new rasterization and the other way round.
+     */
+    private int addEvents(ScanlineBuffer lines, int sign, int width, int height, int n) {
+        final long[] events = this.events;
+        for (int k = 0; k < lines.count; k++) {
+            final int y = lines.y[k];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[k], 0);
+            final int x2 = Math.min(lines.x2[k], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+            final long key = ((long) y << Y_SHIFT) | ((long) lines.alpha[k] << ALPHA_SHIFT);
+            events[n++] = key | ((long) x1 << X_SHIFT) | sign;
+            events[n++] = key | ((long) (x2 + 1) << X_SHIFT) | (sign ^ 1);
+        }
+        return n;
+    }
+
+    /**
+     * Appends a run as many times as its net count, to the added pixels if positive and to the
+     * removed ones if negative, and returns the number of pixels appended.
+     */
+    private static long emit(int y, int x1, int x2, int alpha, int net, ScanlineBuffer added,
+            ScanlineBuffer removed) {
+        final ScanlineBuffer lines = net > 0 ? added : removed;
+        final int times = Math.abs(net);
+        for (int t = 0; t < times; t++) {
+            lines.add(y, x1, x2, alpha);
+        }
+        return (long) times * (x2 - x1 + 1);
+    }
+}
@@ -0,0 +1,21 @@
+package jxtras.primitive.raster;
+
+/**
+ * The shape of the ends of a stroke, as the <code>stroke-linecap</code> of SVG.
+ */
+public enum StrokeCap {
+    /**
+     * The stroke ends flat at its end points.
+     */
+    BUTT,
+
+    /**
+     * The stroke ends with a half disc around its end points.
+     */
+    ROUND,
+
+    /**
+     * The stroke ends flat, half its width past its end points.
+     */
+    SQUARE
+}
@@ -0,0 +1,23 @@
+package jxtras.primitive.raster;
+
+/**
+ * The shape of the corners of a stroke, as the <code>stroke-linejoin</code> of SVG.
+ */
+public enum StrokeJoin {
+    /**
+     * The outer edges are extended until they meet, unless the corner is so sharp that the
+     * miter would be longer than {@link StrokeRasterizer#MITER_LIMIT} times the width, in which
+     * case the corner is beveled.
+     */
+    MITER,
+
+    /**
+     * The corner is rounded with a disc around the vertex.
+     */
+    ROUND,
+
+    /**
+     * The corner is cut straight between the outer edges.
+     */
+    BEVEL
+}
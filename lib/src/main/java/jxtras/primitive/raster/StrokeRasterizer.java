@@ -0,0 +1,603 @@
+package jxtras.primitive.raster;
+
+import java.util.Arrays;
+
+/**
+ * Strokes polylines with a width, caps and joins. A rasterizer keeps its buffers from one
+ * stroke to the next and is not thread-safe.
+ * <p>
+ * The stroke is the union of convex pieces, as SVG defines it: a rectangle along each
+ * segment, a half disc, a square or nothing past each end according to the cap, and a circular
+ * sector, a triangle or a quadrilateral on the outer side of each corner according to the join.
+ * Each piece covers a single interval of each row, so the intervals of all the pieces are
+ * bucketed by row, sorted and merged, and the stroke is emitted with one span per interval of
+ * the union, never covering a pixel twice. The intervals are merged before being rounded to
+ * pixels, so that a pixel center on the seam between two pieces is covered.
+ * <p>
+ * As for the polygons, a pixel is covered if its center is inside the stroke, the bottom and
+ * right edges excluded.
+ * <p>
+ * If the buffer is {@link ScanlineBuffer#antialias anti-aliased}, the pieces are filled as
+ * polygons by a {@link CoverageRasterizer} instead, the arcs of the round caps and joins being
+ * flattened, and the union of their coverage is emitted at once. The pieces are added with the
+ * same winding, so where they overlap the coverage is clamped under the non-zero rule rather
+ * than counted twice.
+ */
+public class StrokeRasterizer {
+    /**
+     * The longest miter, relative to the width of the stroke, before a corner is beveled, the
+     * default of SVG.
+     */
+    public static final double MITER_LIMIT = 4.0D;
+
+    /**
+     * The largest distance between a curve and the polyline it is flattened into, in pixels.
+     */
+    public static final double FLATNESS = 0.25D;
+
+    /**
+     * The most segments a curve is flattened into, whatever its size.
+     */
+    private static final int MAX_SEGMENTS = 256;
+
+    private static final int NONE = -1;
+
+    /**
+     * How far apart two intervals may be and still be merged, so that the rounding of the seams
+     * between the pieces does not open a gap.
+     */
+    private static final double EPSILON = 1e-9D;
+
+    /**
+     * The covered intervals <code>[lo, hi)</code>, and the next interval of the same row.
+     */
+    private double[] lo = new double[256], hi = new double[256];
+    private int[] next = new int[256];
+    private int count;
+
+    /**
+     * The first interval of each row, by row relative to <code>top</code>, and the scratch
+     * indices the intervals of a row are sorted in.
+     */
+    private int[] buckets = new int[64];
+    private int[] order = new int[16];
+
+    /**
+     * The rows the stroke may cover, <code>[top, bottom)</code>, within the canvas.
+     */
+    private int top, bottom;
+
+    /**
+     * The scratch vertices of the polylines given as integers or flattened from curves, and of
+     * the convex pieces.
+     */
+    private double[] px = new double[64], py = new double[64];
+    private final double[] qx = new double[4], qy = new double[4], qs = new double[4];
+
+    private int width;
+
+    /**
+     * Whether the pieces of the stroke being rasterized are filled with anti-aliasing.
+     */
+    private boolean antialias;
+
+    /**
+     * The rasterizer the pieces are filled with when anti-aliased, and their scratch vertices.
+     */
+    private final CoverageRasterizer coverage = new CoverageRasterizer();
+    private double[] sx = new double[64], sy = new double[64];
+
+    /**
+     * Strokes the polyline with integer vertices.
+     *
+     * @see #stroke(double[], double[], int, double, StrokeCap, StrokeJoin, int, int,
+     *      ScanlineBuffer)
+     */
+    public void stroke(int[] xs, int[] ys, int n, double strokeWidth, StrokeCap cap,
+            StrokeJoin join, int width, int height, ScanlineBuffer lines) {
+        ensureVertices(n);
+        for (int i = 0; i < n; i++) {
+            px[i] = xs[i];
+            py[i] = ys[i];
+        }
+        stroke(px, py, n, strokeWidth, cap, join, width, height, lines);
+    }
+
+    /**
+     * Strokes the segment between the given points.
+     *
+     * @see #stroke(double[], double[], int, double, StrokeCap, StrokeJoin, int, int,
+     *      ScanlineBuffer)
+     */
+    public void strokeSegment(double x1, double y1, double x2, double y2, double strokeWidth,
+            StrokeCap cap, int width, int height, ScanlineBuffer lines) {
+        px[0] = x1;
+        py[0] = y1;
+        px[1] = x2;
+        py[1] = y2;
+        stroke(px, py, 2, strokeWidth, cap, StrokeJoin.ROUND, width, height, lines);
+    }
+
+    /**
+     * Strokes a quadratic B&eacute;zier curve, flattened into as few segments as keep it within
+     * {@link #FLATNESS} of the polyline.
+     * <p>
+     * The chords of a curve whose second derivative is bounded by <code>M</code> stray at most
+     * <code>M h^2 / 8</code> from it over a parameter step <code>h</code>. For a quadratic curve
+     * <code>M = 2 |p0 - 2 p1 + p2|</code>, which gives the number of segments, and the points
+     * are then stepped by forward differences, with two additions per coordinate.
+     *
+     * @see #stroke(double[], double[], int, double, StrokeCap, StrokeJoin, int, int,
+     *      ScanlineBuffer)
+     */
+    public void strokeQuadratic(double x0, double y0, double x1, double y1, double x2,
+            double y2, double strokeWidth, StrokeCap cap, StrokeJoin join, int width, int height,
+            ScanlineBuffer lines) {
+        // B(t) = a t^2 + b t + p0
+        final double ax = x0 - 2 * x1 + x2, ay = y0 - 2 * y1 + y2;
+        final double bx = 2 * (x1 - x0), by = 2 * (y1 - y0);
+        final int n = segments(2 * Math.sqrt(ax * ax + ay * ay));
+        ensureVertices(n + 1);
+
+        final double h = 1.0D / n, h2 = h * h;
+        double x = x0, y = y0;
+        double dx = ax * h2 + bx * h, dy = ay * h2 + by * h;
+        final double ddx = 2 * ax * h2, ddy = 2 * ay * h2;
+        px[0] = x;
+        py[0] = y;
+        for (int i = 1; i < n; i++) {
+            x += dx;
+            y += dy;
+            dx += ddx;
+            dy += ddy;
+            px[i] = x;
+            py[i] = y;
+        }
+        // The last point exactly, whatever the rounding of the steps
+        px[n] = x2;
+        py[n] = y2;
+        stroke(px, py, n + 1, strokeWidth, cap, join, width, height, lines);
+    }
+
+    /**
+     * Strokes a cubic B&eacute;zier curve, flattened into as few segments as keep it within
+     * {@link #FLATNESS} of the polyline. The second derivative of a cubic curve is bounded by
+     * six times the largest of <code>|p0 - 2 p1 + p2|</code> and <code>|p1 - 2 p2 + p3|</code>.
+     *
+     * @see #strokeQuadratic(double, double, double, double, double, double, double, StrokeCap,
+     *      StrokeJoin, int, int, ScanlineBuffer)
+     */
+    public void strokeCubic(double x0, double y0, double x1, double y1, double x2, double y2,
+            double x3, double y3, double strokeWidth, StrokeCap cap, StrokeJoin join, int width,
+            int height, ScanlineBuffer lines) {
+        final double ex = x0 - 2 * x1 + x2, ey = y0 - 2 * y1 + y2;
+        final double fx = x1 - 2 * x2 + x3, fy = y1 - 2 * y2 + y3;
+        final int n = segments(6 * Math.sqrt(Math.max(ex * ex + ey * ey, fx * fx + fy * fy)));
+        ensureVertices(n + 1);
+
+        // B(t) = a t^3 + b t^2 + c t + p0
+        final double ax = x3 - x0 + 3 * (x1 - x2), ay = y3 - y0 + 3 * (y1 - y2);
+        final double bx = 3 * ex, by = 3 * ey;
+        final double cx = 3 * (x1 - x0), cy = 3 * (y1 - y0);
+        final double h = 1.0D / n, h2 = h * h, h3 = h2 * h;
+        double x = x0, y = y0;
+        double dx = ax * h3 + bx * h2 + cx * h, dy = ay * h3 + by * h2 + cy * h;
+        double ddx = 6 * ax * h3 + 2 * bx * h2, ddy = 6 * ay * h3 + 2 * by * h2;
+        final double dddx = 6 * ax * h3, dddy = 6 * ay * h3;
+        px[0] = x;
+        py[0] = y;
+        for (int i = 1; i < n; i++) {
+            x += dx;
+            y += dy;
+            dx += ddx;
+            dy += ddy;
+            ddx += dddx;
+            ddy += dddy;
+            px[i] = x;
+            py[i] = y;
+        }
+        px[n] = x3;
+        py[n] = y3;
+        stroke(px, py, n + 1, strokeWidth, cap, join, width, height, lines);
+    }
+
+    /**
+     * Returns the number of segments keeping the chords of a curve whose second derivative is
+     * bounded by <code>m</code> within {@link #FLATNESS} of it: <code>m / (8 n^2) &lt;=
+     * FLATNESS</code>.
+     */
+    private static int segments(double m) {
+        final int n = (int) Math.ceil(Math.sqrt(m / (8 * FLATNESS)));
+        return Math.min(Math.max(n, 1), MAX_SEGMENTS);
+    }
+
+    private void ensureVertices(int n) {
+        if (px.length < n) {
+            px = new double[Math.max(n, px.length << 1)];
+            py = new double[px.length];
+        }
+    }
+
+    /**
+     * Strokes the polyline, appending the spans of the stroke clipped to the canvas to the
+     * buffer, by row and without overlap. Repeated vertices are skipped, and a polyline of a
+     * single point is stroked as a dot if the caps are round or square.
+     *
+     * @param xs          The x-coordinates of the vertices.
+     * @param ys          The y-coordinates of the vertices.
+     * @param n           The number of vertices.
+     * @param strokeWidth The width of the stroke.
+     * @param cap         The shape of the ends.
+     * @param join        The shape of the corners.
+     * @param width       The x-bound of the whole canvas.
+     * @param height      The y-bound of the whole canvas.
+     * @param lines       The buffer the spans are appended to.
+     */
+    public void stroke(double[] xs, double[] ys, int n, double strokeWidth, StrokeCap cap,
+            StrokeJoin join, int width, int height, ScanlineBuffer lines) {
+        if (n < 1 || !(strokeWidth > 0)) {
+            return;
+        }
+        final double hw = strokeWidth / 2;
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        // No piece reaches further from the vertices than the longest miter
+        final double extent = hw * MITER_LIMIT;
+        this.antialias = lines.antialias;
+        if (antialias) {
+            if (!coverage.begin(minX - extent, minY - extent, maxX + extent, maxY + extent,
+                    width, height)) {
+                return;
+            }
+        } else {
+            this.width = width;
+            this.top = Math.max((int) Math.floor(minY - extent), 0);
+            this.bottom = Math.min((int) Math.ceil(maxY + extent) + 1, height);
+            if (top >= bottom) {
+                return;
+            }
+            final int rows = bottom - top;
+            if (buckets.length < rows) {
+                buckets = new int[Math.max(rows, buckets.length << 1)];
+            }
+            Arrays.fill(buckets, 0, rows, NONE);
+            this.count = 0;
+        }
+
+        // The direction of the previous segment, zero before the first one
+        double pdx = 0, pdy = 0;
+        int first = 0, last = 0;
+        for (int i = 1; i < n; i++) {
+            final double dx = xs[i] - xs[last];
+            final double dy = ys[i] - ys[last];
+            final double length = Math.sqrt(dx * dx + dy * dy);
+            if (length == 0) {
+                continue;
+            }
+            final double ux = dx / length, uy = dy / length;
+            if (last == first) {
+                addCap(xs[last], ys[last], -ux, -uy, hw, cap);
+            } else {
+                addJoin(xs[last], ys[last], pdx, pdy, ux, uy, hw, join);
+            }
+            addRectangle(xs[last], ys[last], ux, uy, 0.0D, length, hw);
+            pdx = ux;
+            pdy = uy;
+            last = i;
+        }
+        if (last == first) {
+            // A single point, which only the caps make visible
+            if (cap == StrokeCap.ROUND) {
+                addSector(xs[first], ys[first], hw, 0, 0, 0, 0);
+            } else if (cap == StrokeCap.SQUARE) {
+                addRectangle(xs[first], ys[first], 1.0D, 0.0D, -hw, hw, hw);
+            }
+        } else {
+            addCap(xs[last], ys[last], pdx, pdy, hw, cap);
+        }
+        if (antialias) {
+            coverage.end(FillRule.NON_ZERO, lines);
+        } else {
+            merge(lines);
+        }
+    }
+
+    /**
+     * Adds the cap of an end point, <code>(ux, uy)</code> being the unit direction pointing
+     * away from the stroke.
+     */
+    private void addCap(double x, double y, double ux, double uy, double hw, StrokeCap cap) {
+        if (cap == StrokeCap.ROUND) {
+            addSector(x, y, hw, ux, uy, 0, 0);
+        } else if (cap == StrokeCap.SQUARE) {
+            addRectangle(x, y, ux, uy, 0.0D, hw, hw);
+        }
+    }
+
+    /**
+     * Adds the join of a corner between a segment of unit direction <code>(ax, ay)</code> and
+     * the next one, of unit direction <code>(bx, by)</code>.
+     */
+    private void addJoin(double x, double y, double ax, double ay, double bx, double by,
+            double hw, StrokeJoin join) {
+        final double cross = ax * by - ay * bx;
+        if (cross == 0) {
+            // Straight on, or folded back onto itself, which only a round join covers
+            if (join == StrokeJoin.ROUND && ax * bx + ay * by < 0) {
+                addSector(x, y, hw, ax, ay, 0, 0);
+            }
+            return;
+        }
+        if (join == StrokeJoin.ROUND) {
+            // The sector past the end of the first segment and before the start of the next
+            addSector(x, y, hw, ax, ay, -bx, -by);
+            return;
+        }
+        // The outer side of the corner is the one it turns away from
+        final double s = cross > 0 ? -hw : hw;
+        final double nax = -ay * s, nay = ax * s;
+        final double nbx = -by * s, nby = bx * s;
+        final double cos = ax * bx + ay * by;
+        // The miter is 1 / sin(theta / 2) times the width, theta being the inner angle
+        if (join == StrokeJoin.MITER && (1 + cos) / 2 * MITER_LIMIT * MITER_LIMIT >= 1) {
+            final double k = 1 / (1 + cos);
+            addQuad(x, y, x + nax, y + nay, x + (nax + nbx) * k, y + (nay + nby) * k,
+                    x + nbx, y + nby);
+        } else {
+            addQuad(x, y, x + nax, y + nay, x + nbx, y + nby, x + nbx, y + nby);
+        }
+    }
+
+    /**
+     * Adds the intervals of the part of a disc where <code>(ax, ay) . (q - c) &gt;= 0</code> and
+     * <code>(bx, by) . (q - c) &gt;= 0</code>, a zero vector not restricting it: the whole disc,
+     * a half disc or a narrower sector.
+     */
+    private void addSector(double cx, double cy, double r, double ax, double ay, double bx,
+            double by) {
+        if (antialias) {
+            fillSector(cx, cy, r, ax, ay, bx, by);
+            return;
+        }
+        final int first = Math.max((int) Math.ceil(cy - r), top);
+        final int last = Math.min((int) Math.ceil(cy + r), bottom);
+        // Each half-plane bounds dx on one side, at -ay / ax * dy, or the whole row
+        final double ka = ax != 0 ? -ay / ax : 0.0D;
+        final double kb = bx != 0 ? -by / bx : 0.0D;
+        for (int y = first; y < last; y++) {
+            final double dy = y - cy;
+            final double half = Math.sqrt(Math.max(r * r - dy * dy, 0.0D));
+            double lo = -half, hi = half;
+            final double da = ka * dy, db = kb * dy;
+            if (ax > 0) {
+                lo = da > lo ? da : lo;
+            } else if (ax < 0) {
+                hi = da < hi ? da : hi;
+            } else if (ay * dy < 0) {
+                continue;
+            }
+            if (bx > 0) {
+                lo = db > lo ? db : lo;
+            } else if (bx < 0) {
+                hi = db < hi ? db : hi;
+            } else if (by * dy < 0) {
+                continue;
+            }
+            if (lo < hi) {
+                addInterval(y, cx + lo, cx + hi);
+            }
+        }
+    }
+
+    /**
+     * Fills the part of a disc {@link #addSector(double, double, double, double, double, double,
+     * double) addSector} adds the intervals of, flattened into a polygon: the arc between the
+     * two half-planes and the center, or the whole disc.
+     */
+    private void fillSector(double cx, double cy, double r, double ax, double ay, double bx,
+            double by) {
+        // The arc [from, from + span], each half-plane keeping the half turn around its normal
+        double from = -Math.PI, span = 2 * Math.PI;
+        if (ax != 0 || ay != 0) {
+            final double a = Math.atan2(ay, ax);
+            from = a - Math.PI / 2;
+            span = Math.PI;
+            if (bx != 0 || by != 0) {
+                // The turn from the first normal to the second one, within a half turn
+                final double turn = Math.atan2(ax * by - ay * bx, ax * bx + ay * by);
+                from += Math.max(turn, 0.0D);
+                span -= Math.abs(turn);
+            }
+        }
+        if (!(span > 0) || !(r > 0)) {
+            return;
+        }
+        // As many segments as the ellipses of the coverage rasterizer, for the part of the turn
+        final int full = Math.max(8,
+                (int) Math.ceil(Math.PI * Math.sqrt(r / (2 * CoverageRasterizer.FLATNESS))));
+        final int segments = Math.max(1, (int) Math.ceil(full * span / (2 * Math.PI)));
+        final boolean disc = span >= 2 * Math.PI;
+        final int n = disc ? segments : segments + 2;
+        if (sx.length < n) {
+            sx = new double[Math.max(n, sx.length << 1)];
+            sy = new double[sx.length];
+        }
+        final double step = span / segments;
+        final int points = disc ? segments : segments + 1;
+        // The chords fall short of the area of the arc, the points between the ends are moved
+        // out to match it, as for the ellipses
+        final double k = Math.sqrt(step / Math.sin(step));
+        for (int i = 0; i < points; i++) {
+            final double t = from + step * i;
+            final double radius = disc || i > 0 && i < segments ? k * r : r;
+            sx[i] = cx + radius * Math.cos(t);
+            sy[i] = cy + radius * Math.sin(t);
+        }
+        if (!disc) {
+            sx[n - 1] = cx;
+            sy[n - 1] = cy;
+        }
+        coverage.add(sx, sy, n, true);
+    }
+
+    /**
+     * Adds the intervals of the rectangle of the points <code>(x, y) + s u + t n</code>, for
+     * <code>from &lt;= s &lt;= to</code> and <code>-hw &lt;= t &lt;= hw</code>, where
+     * <code>u = (ux, uy)</code> is a unit direction and <code>n = (-uy, ux)</code> its normal.
+     * Each row is the intersection of the two slabs, without searching for the edges it
+     * crosses.
+     */
+    private void addRectangle(double x, double y, double ux, double uy, double from, double to,
+            double hw) {
+        if (antialias) {
+            final double nx = -uy * hw, ny = ux * hw;
+            addQuad(x + from * ux - nx, y + from * uy - ny, x + to * ux - nx, y + to * uy - ny,
+                    x + to * ux + nx, y + to * uy + ny, x + from * ux + nx, y + from * uy + ny);
+            return;
+        }
+        final double ey = Math.abs(ux) * hw;
+        final double minY = y + Math.min(from * uy, to * uy) - ey;
+        final double maxY = y + Math.max(from * uy, to * uy) + ey;
+        final int first = Math.max((int) Math.ceil(minY), top);
+        final int last = Math.min((int) Math.ceil(maxY), bottom);
+        final double iux = ux != 0 ? 1 / ux : 0.0D;
+        final double iuy = uy != 0 ? 1 / uy : 0.0D;
+        for (int row = first; row < last; row++) {
+            final double dy = row - y;
+            double lo = Double.NEGATIVE_INFINITY, hi = Double.POSITIVE_INFINITY;
+            // from <= ux dx + uy dy <= to
+            final double s = uy * dy;
+            if (ux > 0) {
+                lo = (from - s) * iux;
+                hi = (to - s) * iux;
+            } else if (ux < 0) {
+                lo = (to - s) * iux;
+                hi = (from - s) * iux;
+            } else if (s < from || s > to) {
+                continue;
+            }
+            // -hw <= ux dy - uy dx <= hw
+            final double t = ux * dy;
+            if (uy != 0) {
+                final double a = (t - hw) * iuy, b = (t + hw) * iuy;
+                final double l = uy > 0 ? a : b, h = uy > 0 ? b : a;
+                lo = l > lo ? l : lo;
+                hi = h < hi ? h : hi;
+            } else if (t > hw || t < -hw) {
+                continue;
+            }
+            if (lo < hi) {
+                addInterval(row, x + lo, x + hi);
+            }
+        }
+    }
+
+    /**
+     * Adds the intervals of a convex quadrilateral, given in either winding. A triangle is
+     * given with its last vertex repeated.
+     */
+    private void addQuad(double x0, double y0, double x1, double y1, double x2, double y2,
+            double x3, double y3) {
+        final double[] qx = this.qx, qy = this.qy, qs = this.qs;
+        qx[0] = x0;
+        qy[0] = y0;
+        qx[1] = x1;
+        qy[1] = y1;
+        qx[2] = x2;
+        qy[2] = y2;
+        qx[3] = x3;
+        qy[3] = y3;
+        if (antialias) {
+            coverage.add(qx, qy, 4, true);
+            return;
+        }
+        for (int i = 0; i < 4; i++) {
+            final int j = (i + 1) & 3;
+            qs[i] = qy[i] == qy[j] ? 0.0D : (qx[j] - qx[i]) / (qy[j] - qy[i]);
+        }
+        final double minY = Math.min(Math.min(y0, y1), Math.min(y2, y3));
+        final double maxY = Math.max(Math.max(y0, y1), Math.max(y2, y3));
+        final int first = Math.max((int) Math.ceil(minY), top);
+        final int last = Math.min((int) Math.ceil(maxY), bottom);
+        for (int y = first; y < last; y++) {
+            double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < 4; i++) {
+                final int j = (i + 1) & 3;
+                final double ya = qy[i], yb = qy[j];
+                if (ya == yb || y < Math.min(ya, yb) || y > Math.max(ya, yb)) {
+                    continue;
+                }
+                final double x = qx[i] + (y - ya) * qs[i];
+                lo = x < lo ? x : lo;
+                hi = x > hi ? x : hi;
+            }
+            if (lo < hi) {
+                addInterval(y, lo, hi);
+            }
+        }
+    }
+
+    /**
+     * Adds the interval <code>[lo, hi)</code> of a row within the rows of the stroke.
+     */
+    private void addInterval(int y, double lo, double hi) {
+        if (count == next.length) {
+            this.lo = Arrays.copyOf(this.lo, count << 1);
+            this.hi = Arrays.copyOf(this.hi, count << 1);
+            this.next = Arrays.copyOf(next, count << 1);
+        }
+        this.lo[count] = lo;
+        this.hi[count] = hi;
+        next[count] = buckets[y - top];
+        buckets[y - top] = count;
+        count++;
+    }
+
+    /**
+     * Sorts the intervals of each row and appends the pixel centers of their union, clipped to
+     * the canvas, to the buffer.
+     */
+    private void merge(ScanlineBuffer lines) {
+        final double[] lo = this.lo, hi = this.hi;
+        for (int y = top; y < bottom; y++) {
+            int n = 0;
+            for (int k = buckets[y - top]; k != NONE; k = next[k]) {
+                if (n == order.length) {
+                    order = Arrays.copyOf(order, n << 1);
+                }
+                order[n++] = k;
+            }
+            // Few intervals overlap a row, an insertion sort is enough
+            for (int i = 1; i < n; i++) {
+                final int k = order[i];
+                int j = i - 1;
+                while (j >= 0 && lo[order[j]] > lo[k]) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = k;
+            }
+            int i = 0;
+            while (i < n) {
+                final double from = lo[order[i]];
+                double to = hi[order[i]];
+                i++;
+                while (i < n && lo[order[i]] <= to + EPSILON) {
+                    to = hi[order[i]] > to ? hi[order[i]] : to;
+                    i++;
+                }
+                final int x1 = Math.max((int) Math.ceil(from), 0);
+                final int x2 = Math.min((int) Math.ceil(to) - 1, width - 1);
+                if (x1 <= x2) {
+                    lines.add(y, x1, x2, 0xFFFF);
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.util.Mathematics;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.util.RandomSource;
+import jxtras.primitive.raster.Rasterizer;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 /**
  * The {@code Circle} class defines a circle with the specified
@@ -53,12 +51,25 @@ public class Circle implements Shape {
      *
      * @param width  The width of the bounds
      * @param height The height of the bounds
+     * @param rnd    The source of randomness
      * @return The new circle
      */
-    public static Circle random(int width, int height) {
-        int centerX = ThreadLocalRandom.current().nextInt(width);
-        int centerY = ThreadLocalRandom.current().nextInt(height);
-        int radius = ThreadLocalRandom.current().nextInt(32) + 1;
+    public static Circle random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
+
+    /**
+     * Creates a random circle anchored at the given point.
+     *
+     * @param centerX The x-coordinate of the anchor point.
+     * @param centerY The y-coordinate of the anchor point.
+     * @param width   The x-bound of the whole canvas.
+     * @param height  The y-bound of the whole canvas.
+     * @param rnd     The source of randomness.
+     * @return The new shape.
+     */
+    public static Circle random(int centerX, int centerY, int width, int height, RandomSource rnd) {
+        int radius = rnd.nextInt(32) + 1;
         return new Circle(centerX, centerY, radius, width, height);
     }
 
@@ -68,45 +79,22 @@ public class Circle implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        final List<Scanline> scanlines = new ArrayList<Scanline>();
-        for (int dy = 0; dy < r; dy++) {
-            int y1 = cy - dy;
-            int y2 = cy + dy;
-            if ((y1 < 0 || y1 >= height) && (y2 < 0 || y2 >= height)) {
-                continue;
-            }
-            int s = (int) Math.sqrt((double) (r * r - dy * dy));
-            int x1 = cx - s;
-            int x2 = cx + s;
-            if (x1 < 0) {
-                x1 = 0;
-            }
-            if (x2 >= width) {
-                x2 = width - 1;
-            }
-            if (y1 >= 0 && y1 < height) {
-                scanlines.add(new Scanline(y1, x1, x2, 0xFFFF));
-            }
-            if (y2 >= 0 && y2 < height && dy > 0) {
-                scanlines.add(new Scanline(y2, x1, x2, 0xFFFF));
-            }
-        }
-        return scanlines;
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeCircle(cx, cy, r, width, height, lines);
     }
 
     @Override
-    public void mutate() {
+    public void mutate(RandomSource rnd) {
         final int mutationStepSize = 16;
-        int rnd = ThreadLocalRandom.current().nextInt(2);
-        switch (rnd) {
+        int index = rnd.nextInt(2);
+        switch (index) {
             case 0:
-                cx = Mathematics.clamp((int)(cx + ThreadLocalRandom.current().nextGaussian() * mutationStepSize), 0, width - 1);
-                cy = Mathematics.clamp((int)(cy + ThreadLocalRandom.current().nextGaussian() * mutationStepSize), 0, height - 1);
+                cx = Mathematics.clamp((int)(cx + rnd.nextGaussian() * mutationStepSize), 0, width - 1);
+                cy = Mathematics.clamp((int)(cy + rnd.nextGaussian() * mutationStepSize), 0, height - 1);
                 break;
 
             case 1:
-                r = Mathematics.clamp((int)(r + ThreadLocalRandom.current().nextGaussian() * mutationStepSize), 1, width - 1);
+                r = Mathematics.clamp((int)(r + rnd.nextGaussian() * mutationStepSize), 1, width - 1);
                 r = Mathematics.clamp(r, 1, height - 1);
                 break;
         }
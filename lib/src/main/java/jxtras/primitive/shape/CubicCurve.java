@@ -1,12 +1,11 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.util.Mathematics;
+import jxtras.primitive.util.RandomSource;
 import jxtras.primitive.raster.Rasterizer;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.raster.StrokeCap;
+import jxtras.primitive.raster.StrokeJoin;
 
 /**
  * The {@code CubiCurve} class defines a cubic B&eacute;zier parametric curve segment
@@ -94,19 +93,31 @@ public class CubicCurve implements Shape {
         this.height = height;
     }
 
-    public static CubicCurve random(int width, int height) {
-        int x1 = ThreadLocalRandom.current().nextInt(width);
-        int y1 = ThreadLocalRandom.current().nextInt(height);
-        int ctrlX1 = x1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int ctrlY1 = y1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int ctrlX2 = ctrlX1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int ctrlY2 = ctrlY1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int x2 = ctrlX2 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int y2 = ctrlY2 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        double strokeWidth = 1.0D / 2;
+    public static CubicCurve random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
+
+    /**
+     * Creates a random cubic curve anchored at the given point.
+     *
+     * @param x1     The x-coordinate of the anchor point.
+     * @param y1     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static CubicCurve random(int x1, int y1, int width, int height, RandomSource rnd) {
+        int ctrlX1 = x1 + (int)(rnd.nextDouble() * 40) - 20;
+        int ctrlY1 = y1 + (int)(rnd.nextDouble() * 40) - 20;
+        int ctrlX2 = ctrlX1 + (int)(rnd.nextDouble() * 40) - 20;
+        int ctrlY2 = ctrlY1 + (int)(rnd.nextDouble() * 40) - 20;
+        int x2 = ctrlX2 + (int)(rnd.nextDouble() * 40) - 20;
+        int y2 = ctrlY2 + (int)(rnd.nextDouble() * 40) - 20;
+        double strokeWidth = 1.0D;
 
         CubicCurve curve = new CubicCurve(x1, y1, ctrlX1, ctrlY1, ctrlX2, ctrlY2, x2, y2, strokeWidth, width, height);
-        curve.mutate();
+        curve.mutate(rnd);
 
         return curve;
     }
@@ -119,61 +130,39 @@ public class CubicCurve implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        final int pointCount = 20;
-        int[] xx = new int[pointCount + 1];
-        int[] yy = new int[pointCount + 1];
-        for (int i = 0; i <= pointCount; i++) {
-            // See https://en.wikipedia.org/wiki/B%C3%A9zier_curve#Cubic_B%C3%A9zier_curves
-            double t = (double)i / (double)pointCount;
-            double u = 1 - t;
-            // @formatter:off
-            xx[i] = (int)(x1 * u * u * u + 3 * ctrlX1 * u * u * t + 3 * ctrlX2 * u * t * t + x2 * t * t * t);
-            yy[i] = (int)(y1 * u * u * u + 3 * ctrlY1 * u * u * t + 3 * ctrlY2 * u * t * t + y2 * t * t * t);
-            // @formatter:on
-        }
-
-        List<Scanline> scanlines = new ArrayList<Scanline>();
-        for (int i = 0; i < pointCount; i++) {
-            int x1 = xx[i];
-            int y1 = yy[i];
-
-            int x2 = xx[i + 1];
-            int y2 = yy[i + 1];
-
-            scanlines.addAll(Rasterizer.rasterizeLine(x1, y1, x2, y2, width, height));
-        }
-        return scanlines;
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeCubic(x1, y1, ctrlX1, ctrlY1, ctrlX2, ctrlY2, x2, y2, strokeWidth,
+                StrokeCap.ROUND, StrokeJoin.ROUND, width, height, lines);
     }
 
     @Override
-    public void mutate() {
+    public void mutate(RandomSource rnd) {
         final int m = 16;
         do {
-            final int rnd = ThreadLocalRandom.current().nextInt(5);
-            switch (rnd) {
+            final int index = rnd.nextInt(5);
+            switch (index) {
                 case 0:
-                    x1 = Mathematics.clamp(x1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    y1 = Mathematics.clamp(y1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    x1 = Mathematics.clamp(x1 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    y1 = Mathematics.clamp(y1 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 1:
-                    ctrlX1 = Mathematics.clamp(ctrlX1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    ctrlY1 = Mathematics.clamp(ctrlY1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    ctrlX1 = Mathematics.clamp(ctrlX1 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    ctrlY1 = Mathematics.clamp(ctrlY1 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 2:
-                    ctrlX2 = Mathematics.clamp(ctrlX2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    ctrlY2 = Mathematics.clamp(ctrlY2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    ctrlX2 = Mathematics.clamp(ctrlX2 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    ctrlY2 = Mathematics.clamp(ctrlY2 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 3:
-                    x2 = Mathematics.clamp(x2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    y2 = Mathematics.clamp(y2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    x2 = Mathematics.clamp(x2 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    y2 = Mathematics.clamp(y2 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 4:
-                    strokeWidth = Mathematics.clamp(strokeWidth + ThreadLocalRandom.current().nextGaussian(), 1, 16);
+                    strokeWidth = Mathematics.clamp(strokeWidth + rnd.nextGaussian(), 1, 16);
                     break;
             }
         } while (!isValid());
@@ -208,8 +197,7 @@ public class CubicCurve implements Shape {
     @Override
     public String svg(String attrs) {
         // @formatter:off
-        // TODO(tonykwok): support stroke-with
-        return String.format("<path %s stroke-width=\"%f\" d=\"M %f %f C %f %f, %f %f, %f %f\" />", attrs, 1.0 /*strokeWidth*/,
+        return String.format("<path %s stroke-width=\"%f\" d=\"M %f %f C %f %f, %f %f, %f %f\" />", attrs, strokeWidth,
                 (double)x1, (double)y1, (double)ctrlX1, (double)ctrlY1, (double)ctrlX2, (double)ctrlY2, (double)x2, (double)y2);
         // @formatter:on
     }
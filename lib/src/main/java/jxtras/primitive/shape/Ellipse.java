@@ -1,11 +1,9 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.util.Mathematics;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.util.RandomSource;
+import jxtras.primitive.raster.Rasterizer;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 /**
  * The <code>Ellipse</code> class describes an ellipse based on its center coordinate, and both
@@ -51,11 +49,23 @@ public class Ellipse implements Shape {
         this.height = height;
     }
 
-    public static Ellipse random(int width, int height) {
-        final int cx = ThreadLocalRandom.current().nextInt(width);
-        final int cy = ThreadLocalRandom.current().nextInt(height);
-        final int rx = ThreadLocalRandom.current().nextInt(32) + 1;
-        final int ry = ThreadLocalRandom.current().nextInt(32) + 1;
+    public static Ellipse random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
+
+    /**
+     * Creates a random ellipse anchored at the given point.
+     *
+     * @param cx     The x-coordinate of the anchor point.
+     * @param cy     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Ellipse random(int cx, int cy, int width, int height, RandomSource rnd) {
+        final int rx = rnd.nextInt(32) + 1;
+        final int ry = rnd.nextInt(32) + 1;
 
         return new Ellipse(cx, cy, rx, ry, width, height);
     }
@@ -66,49 +76,25 @@ public class Ellipse implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        final List<Scanline> scanlines = new ArrayList<Scanline>();
-        final double aspect = (double) rx  / (double) ry;
-        for (int dy = 0; dy < ry; dy++) {
-            int y1 = cy - dy;
-            int y2 = cy + dy;
-            if ((y1 < 0 || y1 >= height) && (y2 < 0 || y2 >= height)) {
-                continue;
-            }
-            int s = (int) (Math.sqrt((double) (ry * ry - dy * dy)) * aspect);
-            int x1 = cx - s;
-            int x2 = cx + s;
-            if (x1 < 0) {
-                x1 = 0;
-            }
-            if (x2 >= width) {
-                x2 = width - 1;
-            }
-            if (y1 >= 0 && y1 < height) {
-                scanlines.add(new Scanline(y1, x1, x2, 0xFFFF));
-            }
-            if (y2 >= 0 && y2 < height && dy > 0) {
-                scanlines.add(new Scanline(y2, x1, x2, 0xFFFF));
-            }
-        }
-        return scanlines;
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeEllipse(cx, cy, rx, ry, width, height, lines);
     }
 
     @Override
-    public void mutate() {
-        final int rnd = ThreadLocalRandom.current().nextInt(3);
-        switch (rnd) {
+    public void mutate(RandomSource rnd) {
+        final int index = rnd.nextInt(3);
+        switch (index) {
             case 0:
-                cx = Mathematics.clamp(cx + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-                cy = Mathematics.clamp(cy + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+                cx = Mathematics.clamp(cx + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+                cy = Mathematics.clamp(cy + (int)(rnd.nextGaussian() * 16), 0, height - 1);
                 break;
 
             case 1:
-                rx = Mathematics.clamp(rx + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, width - 1);
+                rx = Mathematics.clamp(rx + (int)(rnd.nextGaussian() * 16), 1, width - 1);
                 break;
 
             case 2:
-                ry = Mathematics.clamp(ry + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, height - 1);
+                ry = Mathematics.clamp(ry + (int)(rnd.nextGaussian() * 16), 1, height - 1);
                 break;
         }
     }
@@ -1,11 +1,10 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.util.Mathematics;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.util.RandomSource;
+import jxtras.primitive.raster.Rasterizer;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.raster.StrokeCap;
 
 /**
  * The <code>Line</code> class describes a line connecting two points.
@@ -28,12 +27,24 @@ public class Line implements Shape {
         this.height = height;
     }
 
-    public static Line random(int width, int height) {
-        int x1 = ThreadLocalRandom.current().nextInt(width);
-        int y1 = ThreadLocalRandom.current().nextInt(height);
-        int x2 = x1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int y2 = y1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        double strokeWidth = 1.0D / 2;
+    public static Line random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
+
+    /**
+     * Creates a random line anchored at the given point.
+     *
+     * @param x1     The x-coordinate of the anchor point.
+     * @param y1     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Line random(int x1, int y1, int width, int height, RandomSource rnd) {
+        int x2 = x1 + (int)(rnd.nextDouble() * 40) - 20;
+        int y2 = y1 + (int)(rnd.nextDouble() * 40) - 20;
+        double strokeWidth = 1.0D;
         return new Line(x1, y1, x2, y2, strokeWidth, width, height);
     }
 
@@ -42,53 +53,28 @@ public class Line implements Shape {
         return new Line(x1, y1, x2, y2, strokeWidth, width, height);
     }
 
-    /**
-     * See http://members.chello.at/easyfilter/bresenham.html for details.
-     */
     @Override
-    public List<Scanline> rasterize() {
-        List<Scanline> scanlines = new ArrayList<Scanline>();
-
-        int x = x1;
-        int y = y1;
-        int dx = +Math.abs(x - x2), sx = x < x2 ? 1 : -1;
-        int dy = -Math.abs(y - y2), sy = y < y2 ? 1 : -1;
-        int error = dx + dy, e2;
-        for (;;) {
-            scanlines.add(new Scanline(y, x, x, 0xFFFF));
-            if (x == x2 && y == y2) {
-                break;
-            }
-            e2 = 2 * error;
-            if (e2 >= dy) {
-                error += dy;
-                x += sx;
-            }
-            if (e2 <= dx) {
-                error += dx;
-                y += sy;
-            }
-        }
-
-        return Scanline.crop(scanlines, width, height);
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeStroke(x1, y1, x2, y2, strokeWidth, StrokeCap.ROUND, width, height,
+                lines);
     }
 
     @Override
-    public void mutate() {
-        final int rnd = ThreadLocalRandom.current().nextInt(3);
-        switch (rnd) {
+    public void mutate(RandomSource rnd) {
+        final int index = rnd.nextInt(3);
+        switch (index) {
             case 0:
-                x1 = Mathematics.clamp(x1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-                y1 = Mathematics.clamp(y1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+                x1 = Mathematics.clamp(x1 + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+                y1 = Mathematics.clamp(y1 + (int)(rnd.nextGaussian() * 16), 0, height - 1);
                 break;
 
             case 1:
-                x2 = Mathematics.clamp(x2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-                y2 = Mathematics.clamp(y2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+                x2 = Mathematics.clamp(x2 + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+                y2 = Mathematics.clamp(y2 + (int)(rnd.nextGaussian() * 16), 0, height - 1);
                 break;
 
             case 2:
-                strokeWidth = Mathematics.clamp(strokeWidth + ThreadLocalRandom.current().nextGaussian(), 1, 16);
+                strokeWidth = Mathematics.clamp(strokeWidth + rnd.nextGaussian(), 1, 16);
                 break;
         }
     }
@@ -100,14 +86,13 @@ public class Line implements Shape {
 
     @Override
     public double[] raw() {
-        return new double[]{x1, y1, x2, y2};
+        return new double[]{x1, y1, x2, y2, strokeWidth};
     }
 
     @Override
     public String svg(String attrs) {
         // @formatter:off
-        // TODO(tonykwok): support stroke-with
-        return String.format("<line %s stroke-width=\"%f\" x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" />", attrs, 1.0 /*strokeWidth*/, x1, y1, x2, y2);
+        return String.format("<line %s stroke-width=\"%f\" x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" />", attrs, strokeWidth, x1, y1, x2, y2);
         // @formatter:on
     }
 }
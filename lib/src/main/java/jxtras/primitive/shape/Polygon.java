@@ -1,12 +1,12 @@
 package jxtras.primitive.shape;
 
 import java.util.Arrays;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 import jxtras.primitive.util.Mathematics;
+import jxtras.primitive.util.RandomSource;
+import jxtras.primitive.raster.FillRule;
 import jxtras.primitive.raster.Rasterizer;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 public class Polygon implements Shape {
     /**
@@ -39,23 +39,56 @@ public class Polygon implements Shape {
         this.height = height;
     }
 
-    public static Polygon random(int width, int height) {
-        return random(4, false, width, height);
+    public static Polygon random(int width, int height, RandomSource rnd) {
+        return random(4, false, width, height, rnd);
     }
 
-    public static Polygon random(int order, boolean convex, int width, int height) {
+    /**
+     * Creates a random quadrilateral anchored at the given point.
+     *
+     * @param x      The x-coordinate of the anchor point.
+     * @param y      The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Polygon random(int x, int y, int width, int height, RandomSource rnd) {
+        return random(4, false, x, y, width, height, rnd);
+    }
+
+    public static Polygon random(int order, boolean convex, int width, int height,
+            RandomSource rnd) {
+        return random(order, convex, (int)(rnd.nextDouble(width)), (int)(rnd.nextDouble(height)),
+                width, height, rnd);
+    }
+
+    /**
+     * Creates a random polygon anchored at the given point.
+     *
+     * @param order  The number of vertices.
+     * @param convex Whether the polygon must be kept convex.
+     * @param x0     The x-coordinate of the anchor point.
+     * @param y0     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Polygon random(int order, boolean convex, int x0, int y0, int width,
+            int height, RandomSource rnd) {
         int[] x = new int[order];
         int[] y = new int[order];
 
-        x[0] = (int)(ThreadLocalRandom.current().nextDouble(width));
-        y[0] = (int)(ThreadLocalRandom.current().nextDouble(height));
+        x[0] = x0;
+        y[0] = y0;
         for (int i = 1; i < order; i++) {
-            x[i] = y[0] + (int)(ThreadLocalRandom.current().nextDouble(40)) - 20;
-            y[i] = y[0] + (int)(ThreadLocalRandom.current().nextDouble(40)) - 20;
+            x[i] = y[0] + (int)(rnd.nextDouble(40)) - 20;
+            y[i] = y[0] + (int)(rnd.nextDouble(40)) - 20;
         }
 
         Polygon polygon = new Polygon(x, y, order, convex, width, height);
-        polygon.mutate();
+        polygon.mutate(rnd);
         return polygon;
     }
 
@@ -66,21 +99,21 @@ public class Polygon implements Shape {
     }
 
     /**
-     * See https://imagej.nih.gov/ij/developer/source/ij/process/PolygonFiller.java.html for
-     * details.
+     * Fills the polygon with the {@link FillRule#NON_ZERO} rule, which is also the default of
+     * the SVG it is exported to.
      */
     @Override
-    public List<Scanline> rasterize() {
-        return Rasterizer.rasterizePolygon(x, y, order, width, height);
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizePolygon(x, y, order, FillRule.NON_ZERO, width, height, lines);
     }
 
     @Override
-    public void mutate() {
+    public void mutate(RandomSource rnd) {
         final int mutationStepSize = 16;
         do {
-            if (ThreadLocalRandom.current().nextDouble() < 0.25D) {
-                int i = ThreadLocalRandom.current().nextInt(order);
-                int j = ThreadLocalRandom.current().nextInt(order);
+            if (rnd.nextDouble() < 0.25D) {
+                int i = rnd.nextInt(order);
+                int j = rnd.nextInt(order);
                 if (i == j) {
                     continue;
                 }
@@ -93,10 +126,10 @@ public class Polygon implements Shape {
                 y[i] = y[j];
                 y[j] = yi;
             } else {
-                int i = ThreadLocalRandom.current().nextInt(order);
-                x[i] = Mathematics.clamp((int)(x[i] + ThreadLocalRandom.current().nextGaussian() * mutationStepSize), -mutationStepSize,
+                int i = rnd.nextInt(order);
+                x[i] = Mathematics.clamp((int)(x[i] + rnd.nextGaussian() * mutationStepSize), -mutationStepSize,
                         width - 1 + mutationStepSize);
-                y[i] = Mathematics.clamp((int)(y[i] + ThreadLocalRandom.current().nextGaussian() * mutationStepSize), -mutationStepSize,
+                y[i] = Mathematics.clamp((int)(y[i] + rnd.nextGaussian() * mutationStepSize), -mutationStepSize,
                         height - 1 + mutationStepSize);
             }
         } while (!isVaild());
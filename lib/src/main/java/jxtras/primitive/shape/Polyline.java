@@ -1,67 +1,79 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 import jxtras.primitive.util.Mathematics;
+import jxtras.primitive.util.RandomSource;
 import jxtras.primitive.raster.Rasterizer;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.raster.StrokeCap;
+import jxtras.primitive.raster.StrokeJoin;
 
 public class Polyline implements Shape {
     private final int[] x;
     private final int[] y;
+    private double strokeWidth;
 
     private final int width;
     private final int height;
 
-    private Polyline(int[] x, int[] y, int width, int height) {
+    private Polyline(int[] x, int[] y, double strokeWidth, int width, int height) {
         this.x = x;
         this.y = y;
+        this.strokeWidth = strokeWidth;
         this.width = width;
         this.height = height;
     }
 
-    public static Polyline random(int width, int height) {
+    public static Polyline random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
+
+    /**
+     * Creates a random polyline anchored at the given point.
+     *
+     * @param x0     The x-coordinate of the anchor point.
+     * @param y0     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Polyline random(int x0, int y0, int width, int height, RandomSource rnd) {
         int[] x = new int[4];
         int[] y = new int[4];
 
-        x[0] = ThreadLocalRandom.current().nextInt(width);
-        y[0] = ThreadLocalRandom.current().nextInt(height);
+        x[0] = x0;
+        y[0] = y0;
         for (int i = 1; i < 4; i++) {
-            x[i] = x[0] + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-            y[i] = y[0] + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
+            x[i] = x[0] + (int)(rnd.nextDouble() * 40) - 20;
+            y[i] = y[0] + (int)(rnd.nextDouble() * 40) - 20;
         }
 
-        return new Polyline(x, y, width, height);
+        return new Polyline(x, y, 1.0D, width, height);
     }
 
     @Override
     public Polyline copy() {
-        return new Polyline(Arrays.copyOf(x, x.length), Arrays.copyOf(y, y.length), width, height);
+        return new Polyline(Arrays.copyOf(x, x.length), Arrays.copyOf(y, y.length), strokeWidth,
+                width, height);
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        List<Scanline> scanlines = new ArrayList<Scanline>();
-        for (int i = 0; i < x.length - 1; i++) {
-            int x1 = x[i];
-            int y1 = y[i];
-
-            int x2 = x[i + 1];
-            int y2 = y[i + 1];
-
-            scanlines.addAll(Rasterizer.rasterizeLine(x1, y1, x2, y2, width, height));
-        }
-        return scanlines;
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeStroke(x, y, x.length, strokeWidth, StrokeCap.ROUND, StrokeJoin.ROUND,
+                width, height, lines);
     }
 
     @Override
-    public void mutate() {
-        int i = ThreadLocalRandom.current().nextInt(x.length);
-        x[i] = Mathematics.clamp(x[i] + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-        y[i] = Mathematics.clamp(y[i] + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+    public void mutate(RandomSource rnd) {
+        int i = rnd.nextInt(x.length + 1);
+        if (i == x.length) {
+            strokeWidth = Mathematics.clamp(strokeWidth + rnd.nextGaussian(), 1, 16);
+            return;
+        }
+        x[i] = Mathematics.clamp(x[i] + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+        y[i] = Mathematics.clamp(y[i] + (int)(rnd.nextGaussian() * 16), 0, height - 1);
     }
 
     @Override
@@ -71,18 +83,19 @@ public class Polyline implements Shape {
 
     @Override
     public double[] raw() {
-        double[] raw = new double[x.length + y.length];
+        double[] raw = new double[x.length + y.length + 1];
         for (int i = 0; i < x.length; i++) {
             raw[i * 2 + 0] = x[i];
             raw[i * 2 + 1] = y[i];
         }
+        raw[raw.length - 1] = strokeWidth;
         return raw;
     }
 
     @Override
     public String svg(String attrs) {
         StringBuilder svg = new StringBuilder();
-        svg.append(String.format("<polyline %s stroke-width=\"%f\" points=\"", attrs, 1.0f));
+        svg.append(String.format("<polyline %s stroke-width=\"%f\" points=\"", attrs, strokeWidth));
 
         for (int a = 0; a < x.length; a++) {
             svg.append(String.format("%d,%d", x[a], y[a]));
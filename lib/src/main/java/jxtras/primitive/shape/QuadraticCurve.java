@@ -1,12 +1,11 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.raster.Rasterizer;
+import jxtras.primitive.raster.StrokeCap;
+import jxtras.primitive.raster.StrokeJoin;
 import jxtras.primitive.util.Mathematics;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.util.RandomSource;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 /**
  * The {@code QuadraticCurve} class defines a quadratic B&eacute;zier parametric
@@ -74,17 +73,29 @@ public class QuadraticCurve implements Shape {
         this.height = height;
     }
 
-    public static QuadraticCurve random(int width, int height) {
-        int x1 = ThreadLocalRandom.current().nextInt(width);
-        int y1 = ThreadLocalRandom.current().nextInt(height);
-        int x2 = x1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int y2 = y1 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int x3 = x2 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        int y3 = y2 + (int)(ThreadLocalRandom.current().nextDouble() * 40) - 20;
-        double strokeWidth = 1.0D / 2;
+    public static QuadraticCurve random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
+
+    /**
+     * Creates a random quadratic curve anchored at the given point.
+     *
+     * @param x1     The x-coordinate of the anchor point.
+     * @param y1     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static QuadraticCurve random(int x1, int y1, int width, int height, RandomSource rnd) {
+        int x2 = x1 + (int)(rnd.nextDouble() * 40) - 20;
+        int y2 = y1 + (int)(rnd.nextDouble() * 40) - 20;
+        int x3 = x2 + (int)(rnd.nextDouble() * 40) - 20;
+        int y3 = y2 + (int)(rnd.nextDouble() * 40) - 20;
+        double strokeWidth = 1.0D;
 
         QuadraticCurve instance = new QuadraticCurve(x1, y1, x2, y2, x3, y3, strokeWidth, width, height);
-        instance.mutate();
+        instance.mutate(rnd);
 
         return instance;
     }
@@ -95,54 +106,34 @@ public class QuadraticCurve implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        final int pointCount = 20;
-        int[] xx = new int[pointCount + 1];
-        int[] yy = new int[pointCount + 1];
-        for (int i = 0; i <= pointCount; i++) {
-            // See https://en.wikipedia.org/wiki/B%C3%A9zier_curve#Quadratic_B%C3%A9zier_curves
-            double t = (double) i / (double) pointCount;
-            double u = 1 - t;
-            xx[i] = (int)(x1 * u * u + 2 * ctrlX * u * t + x2 * t * t);
-            yy[i] = (int)(y1 * u * u + 2 * ctrlY * u * t + y2 * t * t);
-        }
-
-        List<Scanline> scanlines = new ArrayList<Scanline>();
-        for (int i = 0; i < pointCount; i++) {
-            int x1 = xx[i];
-            int y1 = yy[i];
-
-            int x2 = xx[i + 1];
-            int y2 = yy[i + 1];
-
-            scanlines.addAll(Rasterizer.rasterizeLine(x1, y1, x2, y2, width, height));
-        }
-        return scanlines;
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeQuadratic(x1, y1, ctrlX, ctrlY, x2, y2, strokeWidth, StrokeCap.ROUND,
+                StrokeJoin.ROUND, width, height, lines);
     }
 
     @Override
-    public void mutate() {
+    public void mutate(RandomSource rnd) {
         final int m = 16;
         do {
-            final int rnd = ThreadLocalRandom.current().nextInt(4);
-            switch (rnd) {
+            final int index = rnd.nextInt(4);
+            switch (index) {
                 case 0:
-                    x1 = Mathematics.clamp(x1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    y1 = Mathematics.clamp(y1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    x1 = Mathematics.clamp(x1 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    y1 = Mathematics.clamp(y1 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 1:
-                    ctrlX = Mathematics.clamp(ctrlX + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    ctrlY = Mathematics.clamp(ctrlY + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    ctrlX = Mathematics.clamp(ctrlX + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    ctrlY = Mathematics.clamp(ctrlY + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 2:
-                    x2 = Mathematics.clamp(x2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    y2 = Mathematics.clamp(y2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    x2 = Mathematics.clamp(x2 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    y2 = Mathematics.clamp(y2 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 3:
-                    strokeWidth = Mathematics.clamp(strokeWidth + ThreadLocalRandom.current().nextGaussian(), 1, 16);
+                    strokeWidth = Mathematics.clamp(strokeWidth + rnd.nextGaussian(), 1, 16);
                     break;
             }
         } while (!isValid());
@@ -174,7 +165,6 @@ public class QuadraticCurve implements Shape {
     @Override
     public String svg(String attrs) {
         // @formatter:off
-        // TODO(tonykwok): support stroke-with
         return String.format("<path %s stroke-width=\"%f\" d=\"M %f %f Q %f %f, %f %f\" />",
                 attrs, strokeWidth, (double)x1, (double)y1, (double)ctrlX, (double)ctrlY, (double)x2, (double)y2);
         // @formatter:on
@@ -1,11 +1,8 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.util.Mathematics;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.util.RandomSource;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 /**
  * The <code>Rectangle</code> class describes rectangles, defined by their corner's position.
@@ -29,12 +26,23 @@ public class Rectangle implements Shape {
         this.height = height;
     }
 
-    public static Rectangle random(int width, int height) {
-        int x1 = ThreadLocalRandom.current().nextInt(width);
-        int y1 = ThreadLocalRandom.current().nextInt(height);
+    public static Rectangle random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
 
-        int x2 = Mathematics.clamp(x1 + ThreadLocalRandom.current().nextInt(32) + 1, 0, width - 1);
-        int y2 = Mathematics.clamp(y1 + ThreadLocalRandom.current().nextInt(32) + 1, 0, height - 1);
+    /**
+     * Creates a random rectangle anchored at the given point.
+     *
+     * @param x1     The x-coordinate of the anchor point.
+     * @param y1     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Rectangle random(int x1, int y1, int width, int height, RandomSource rnd) {
+        int x2 = Mathematics.clamp(x1 + rnd.nextInt(32) + 1, 0, width - 1);
+        int y2 = Mathematics.clamp(y1 + rnd.nextInt(32) + 1, 0, height - 1);
 
         return new Rectangle(x1, y1, x2, y2, width, height);
     }
@@ -45,8 +53,7 @@ public class Rectangle implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        List<Scanline> scanlines = new ArrayList<Scanline>();
+    public void rasterize(ScanlineBuffer lines) {
         int minX = Math.min(x1, x2);
         int maxX = Math.max(x1, x2);
 
@@ -54,28 +61,63 @@ public class Rectangle implements Shape {
         int maxY = Math.max(y1, y2);
         for (int y = minY; y < maxY; y++) {
             if (x1 != x2) {
-                scanlines.add(new Scanline(y, minX, maxX, 0xFFFF));
+                lines.add(y, minX, maxX, 0xFFFF);
             }
         }
-        return scanlines;
     }
 
     @Override
-    public void mutate() {
-        int rnd = ThreadLocalRandom.current().nextInt(2);
-        switch (rnd) {
+    public void mutate(RandomSource rnd) {
+        int index = rnd.nextInt(2);
+        switch (index) {
             case 0:
-                x1 = Mathematics.clamp(x1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-                y1 = Mathematics.clamp(y1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+                x1 = Mathematics.clamp(x1 + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+                y1 = Mathematics.clamp(y1 + (int)(rnd.nextGaussian() * 16), 0, height - 1);
                 break;
 
             case 1:
-                x2 = Mathematics.clamp(x2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-                y2 = Mathematics.clamp(y2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+                x2 = Mathematics.clamp(x2 + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+                y2 = Mathematics.clamp(y2 + (int)(rnd.nextGaussian() * 16), 0, height - 1);
                 break;
         }
     }
 
+    /**
+     * Returns the leftmost column covered by the rectangle, inclusive.
+     */
+    public int getLeft() {
+        return Math.min(x1, x2);
+    }
+
+    /**
+     * Returns the topmost row covered by the rectangle, inclusive.
+     */
+    public int getTop() {
+        return Math.min(y1, y2);
+    }
+
+    /**
+     * Returns the rightmost column covered by the rectangle, inclusive.
+     */
+    public int getRight() {
+        return Math.max(x1, x2);
+    }
+
+    /**
+     * Returns the row below the rectangle, i.e. the bottommost row covered is exclusive, as
+     * rasterized by {@link #rasterize(ScanlineBuffer)}.
+     */
+    public int getBottom() {
+        return Math.max(y1, y2);
+    }
+
+    /**
+     * Returns whether the rectangle covers no pixel at all.
+     */
+    public boolean isEmpty() {
+        return x1 == x2 || y1 == y2;
+    }
+
     @Override
     public ShapeType getType() {
         return ShapeType.RECTANGLE;
@@ -1,11 +1,9 @@
 package jxtras.primitive.shape;
 
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.util.Mathematics;
+import jxtras.primitive.util.RandomSource;
 import jxtras.primitive.raster.Rasterizer;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 public class RotatedEllipse implements Shape {
     private int cx;
@@ -28,12 +26,24 @@ public class RotatedEllipse implements Shape {
         this.height = height;
     }
 
-    public static RotatedEllipse random(int width, int height) {
-        int cx = ThreadLocalRandom.current().nextInt(width);
-        int cy = ThreadLocalRandom.current().nextInt(height);
-        int rx = ThreadLocalRandom.current().nextInt(32) + 1;
-        int ry = ThreadLocalRandom.current().nextInt(32) + 1;
-        int angle = ThreadLocalRandom.current().nextInt(360);
+    public static RotatedEllipse random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
+
+    /**
+     * Creates a random rotated ellipse anchored at the given point.
+     *
+     * @param cx     The x-coordinate of the anchor point.
+     * @param cy     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static RotatedEllipse random(int cx, int cy, int width, int height, RandomSource rnd) {
+        int rx = rnd.nextInt(32) + 1;
+        int ry = rnd.nextInt(32) + 1;
+        int angle = rnd.nextInt(360);
 
         return new RotatedEllipse(cx, cy, rx, ry, angle, width, height);
     }
@@ -44,49 +54,29 @@ public class RotatedEllipse implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        int pointCount = 20;
-        int[] x = new int[pointCount];
-        int[] y = new int[pointCount];
-
-        double rads = angle * (Math.PI / 180.0);
-        double c = Math.cos(rads);
-        double s = Math.sin(rads);
-
-        for (int i = 0; i < pointCount; i++) {
-            double rot = ((360.0 / pointCount) * i) * (Math.PI / 180.0);
-            double crx = rx * Math.cos(rot);
-            double cry = ry * Math.sin(rot);
-
-            int tx = (int)(crx * c - cry * s + cx);
-            int ty = (int)(crx * s + cry * c + cy);
-
-            x[i] = tx;
-            y[i] = ty;
-        }
-
-        return Rasterizer.rasterizePolygon(x, y, pointCount, width, height);
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeRotatedEllipse(cx, cy, rx, ry, angle, width, height, lines);
     }
 
     @Override
-    public void mutate() {
-        int rnd = ThreadLocalRandom.current().nextInt(4);
-        switch (rnd) {
+    public void mutate(RandomSource rnd) {
+        int index = rnd.nextInt(4);
+        switch (index) {
             case 0:
-                cx = Mathematics.clamp(cx + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-                cy = Mathematics.clamp(cy + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+                cx = Mathematics.clamp(cx + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+                cy = Mathematics.clamp(cy + (int)(rnd.nextGaussian() * 16), 0, height - 1);
                 break;
 
             case 1:
-                rx = Mathematics.clamp(rx + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, width - 1);
+                rx = Mathematics.clamp(rx + (int)(rnd.nextGaussian() * 16), 1, width - 1);
                 break;
 
             case 2:
-                ry = Mathematics.clamp(ry + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, height - 1);
+                ry = Mathematics.clamp(ry + (int)(rnd.nextGaussian() * 16), 1, height - 1);
                 break;
 
             case 3:
-                angle = angle + (int)(ThreadLocalRandom.current().nextGaussian() * 32);
+                angle = angle + (int)(rnd.nextGaussian() * 32);
                 break;
         }
     }
@@ -3,6 +3,8 @@ package jxtras.primitive.shape;
 import java.util.List;
 
 import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.util.RandomSource;
 
 /**
  * The <code>Shape</code> interface defines the necessary methods for
@@ -21,13 +23,30 @@ public interface Shape {
      *
      * @return Array of raster scanlines representing the shape.
      */
-    List<Scanline> rasterize();
+    default List<Scanline> rasterize() {
+        ScanlineBuffer lines = new ScanlineBuffer();
+        rasterize(lines);
+        lines.normalize();
+        return lines.toList();
+    }
+
+    /**
+     * Appends the raster scanline representation of the shape to the given buffer. Unlike
+     * {@link #rasterize()} this does not allocate, so it is the one to use in the hot loops.
+     * The scanlines need not be sorted nor disjoint, the callers {@link ScanlineBuffer#normalize()
+     * normalize} them before evaluating or drawing them.
+     *
+     * @param lines The buffer to append the scanlines to.
+     */
+    void rasterize(ScanlineBuffer lines);
 
     /**
      * Modifies the shape a little, typically with a random component.
      * For improving the shape's fit to a image (trial-and-error style).
+     *
+     * @param rnd The source of randomness.
      */
-    void mutate();
+    void mutate(RandomSource rnd);
 
     /**
      * Gets the ShapeType of the shape.
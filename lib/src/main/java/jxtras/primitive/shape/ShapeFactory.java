@@ -1,7 +1,8 @@
 package jxtras.primitive.shape;
 
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
+
+import jxtras.primitive.util.RandomSource;
 
 public class ShapeFactory {
     /**
@@ -10,34 +11,35 @@ public class ShapeFactory {
      * @param type   The type of shape to create.
      * @param width  The x-bound of the whole canvas.
      * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
      * @return The new shape.
      */
-    public static Shape createShapeOf(ShapeType type, int width, int height) {
+    public static Shape createShapeOf(ShapeType type, int width, int height, RandomSource rnd) {
         switch (type) {
             case CIRCLE:
-                return Circle.random(width, height);
+                return Circle.random(width, height, rnd);
             case CUBIC_CURVE:
-                return CubicCurve.random(width, height);
+                return CubicCurve.random(width, height, rnd);
             case ELLIPSE:
-                return Ellipse.random(width, height);
+                return Ellipse.random(width, height, rnd);
             case LINE:
-                return Line.random(width, height);
+                return Line.random(width, height, rnd);
             case POLYGON:
-                return Polygon.random(width, height);
+                return Polygon.random(width, height, rnd);
             case POLYLINE:
-                return Polyline.random(width, height);
+                return Polyline.random(width, height, rnd);
             case QUADRATIC_CURVE:
-                return QuadraticCurve.random(width, height);
+                return QuadraticCurve.random(width, height, rnd);
             case RECTANGLE:
-                return Rectangle.random(width, height);
+                return Rectangle.random(width, height, rnd);
             case ROTATED_RECTANGLE:
-                return RotatedRectangle.random(width, height);
+                return RotatedRectangle.random(width, height, rnd);
             case ROTATED_ELLIPSE:
-                return RotatedEllipse.random(width, height);
+                return RotatedEllipse.random(width, height, rnd);
             case TRIANGLE:
-                return Triangle.random(width, height);
+                return Triangle.random(width, height, rnd);
             case TEST:
-                return TestRR.random(width, height);
+                return TestRR.random(width, height, rnd);
         }
         throw new IllegalArgumentException("Unsupported shape type: " + type);
     }
@@ -48,16 +50,85 @@ public class ShapeFactory {
      * @param shapeTypes The types of shape to possibly create.
      * @param width      The x-bound of the whole canvas.
      * @param height     The y-bound of the whole canvas.
+     * @param rnd        The source of randomness.
+     * @return The new shape.
+     */
+    public static Shape randomShapeOf(List<ShapeType> shapeTypes, int width, int height,
+            RandomSource rnd) {
+        if (shapeTypes == null) {
+            throw new IllegalArgumentException("The \"shapeTypes\" argument must not be null");
+        }
+        if (shapeTypes.size() < 1) {
+            throw new IllegalArgumentException("At least one shape type must be specified");
+        }
+        int index = rnd.nextInt(shapeTypes.size());
+        return createShapeOf(shapeTypes.get(index), width, height, rnd);
+    }
+
+    /**
+     * Creates a new shape of the specified type, anchored at the given point, e.g. its center
+     * or its first vertex.
+     *
+     * @param type   The type of shape to create.
+     * @param x      The x-coordinate of the anchor point.
+     * @param y      The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Shape createShapeOf(ShapeType type, int x, int y, int width, int height,
+            RandomSource rnd) {
+        switch (type) {
+            case CIRCLE:
+                return Circle.random(x, y, width, height, rnd);
+            case CUBIC_CURVE:
+                return CubicCurve.random(x, y, width, height, rnd);
+            case ELLIPSE:
+                return Ellipse.random(x, y, width, height, rnd);
+            case LINE:
+                return Line.random(x, y, width, height, rnd);
+            case POLYGON:
+                return Polygon.random(x, y, width, height, rnd);
+            case POLYLINE:
+                return Polyline.random(x, y, width, height, rnd);
+            case QUADRATIC_CURVE:
+                return QuadraticCurve.random(x, y, width, height, rnd);
+            case RECTANGLE:
+                return Rectangle.random(x, y, width, height, rnd);
+            case ROTATED_RECTANGLE:
+                return RotatedRectangle.random(x, y, width, height, rnd);
+            case ROTATED_ELLIPSE:
+                return RotatedEllipse.random(x, y, width, height, rnd);
+            case TRIANGLE:
+                return Triangle.random(x, y, width, height, rnd);
+            case TEST:
+                // The test shape is always placed at the same spot
+                return TestRR.random(width, height, rnd);
+        }
+        throw new IllegalArgumentException("Unsupported shape type: " + type);
+    }
+
+    /**
+     * Creates a random shape from the types supplied, anchored at the given point.
+     *
+     * @param shapeTypes The types of shape to possibly create.
+     * @param x          The x-coordinate of the anchor point.
+     * @param y          The y-coordinate of the anchor point.
+     * @param width      The x-bound of the whole canvas.
+     * @param height     The y-bound of the whole canvas.
+     * @param rnd        The source of randomness.
      * @return The new shape.
      */
-    public static Shape randomShapeOf(List<ShapeType> shapeTypes, int width, int height) {
+    public static Shape randomShapeOf(List<ShapeType> shapeTypes, int x, int y, int width,
+            int height, RandomSource rnd) {
         if (shapeTypes == null) {
             throw new IllegalArgumentException("The \"shapeTypes\" argument must not be null");
         }
         if (shapeTypes.size() < 1) {
             throw new IllegalArgumentException("At least one shape type must be specified");
         }
-        int index = ThreadLocalRandom.current().nextInt(shapeTypes.size());
-        return createShapeOf(shapeTypes.get(index), width, height);
+        int index = rnd.nextInt(shapeTypes.size());
+        return createShapeOf(shapeTypes.get(index), x, y, width, height, rnd);
     }
 }
@@ -1,11 +1,9 @@
 package jxtras.primitive.shape;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
+import jxtras.primitive.raster.Rasterizer;
 import jxtras.primitive.util.Mathematics;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.util.RandomSource;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 public class TestRR implements Shape {
     int x;
@@ -32,14 +30,14 @@ public class TestRR implements Shape {
         this.height = height;
     }
 
-    public static TestRR random(int width, int height) {
-        int x = 140;//ThreadLocalRandom.current().nextInt(width);
-        int y = 140;//ThreadLocalRandom.current().nextInt(height);
+    public static TestRR random(int width, int height, RandomSource rnd) {
+        int x = 140;//rnd.nextInt(width);
+        int y = 140;//rnd.nextInt(height);
 
-        int sx = 100;//ThreadLocalRandom.current().nextInt(32) + 1;
-        int sy = 50;//ThreadLocalRandom.current().nextInt(32) + 1;
+        int sx = 100;//rnd.nextInt(32) + 1;
+        int sy = 50;//rnd.nextInt(32) + 1;
 
-        int angle = 0;//ThreadLocalRandom.current().nextInt(360);
+        int angle = 0;//rnd.nextInt(360);
         {
             int ox = x + sx / 2;
             int oy = y + sy / 2;
@@ -55,7 +53,7 @@ public class TestRR implements Shape {
         angle = 0;
 
         TestRR rotatedRectangle = new TestRR(x, y, sx, sy, angle, width, height);
-        rotatedRectangle.mutate();
+        rotatedRectangle.mutate(rnd);
 
         return rotatedRectangle;
     }
@@ -66,82 +64,36 @@ public class TestRR implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        double[] xy = new double[2];
-
-        double sx = (double) this.sx;
-        double sy = (double) this.sy;
+    public void rasterize(ScanlineBuffer lines) {
+        // The corners relative to the anchor, rotated by the angle
+        double hx = this.sx / 2.0D, hy = this.sy / 2.0D;
         double angle = Mathematics.deg2rad((double) this.angle);
-        Mathematics.rotate(-sx/2, -sy/2, angle, xy);
-        double rx1 = xy[0], ry1 = xy[1];
-        Mathematics.rotate(sx/2, -sy/2, angle, xy);
-        double rx2 = xy[0], ry2 = xy[1];
-        Mathematics.rotate(sx/2, sy/2, angle, xy);
-        double rx3 = xy[0], ry3 = xy[1];
-        Mathematics.rotate(-sx/2, sy/2, angle, xy);
-        double rx4 = xy[0], ry4 = xy[1];
-
-        int x1 = (int) rx1 + x, y1 = (int) ry1 + y;
-        int x2 = (int) rx2 + x, y2 = (int) ry2 + y;
-        int x3 = (int) rx3 + x, y3 = (int) ry3 + y;
-        int x4 = (int) rx4 + x, y4 = (int) ry4 + y;
-
-        int miny = Math.min(y1, Math.min(y2, Math.min(y3, y4)));
-        int maxy = Math.max(y1, Math.max(y2, Math.max(y3, y4)));
-        int n = maxy - miny + 1;
-        int[] min = new int[n];
-        int[] max = new int[n];
-        for (int i = 0; i < n; i++) {
-            min[i] = width;
-        }
-        int[] xs = new int[]{x1, x2, x3, x4, x1};
-        int[] ys = new int[]{y1, y2, y3, y4, y1};
-        // TODO: this could be better probably
-        for (int i = 0; i < 4; i++) {
-            double x = (double) xs[i];
-            double y = (double) ys[i];
-            double dx = (double) (xs[i+1]-xs[i]);
-            double dy = (double) (ys[i+1]-ys[i]);
-            int count = (int) (Math.sqrt(dx*dx+dy*dy)) * 2;
-            for (int j = 0; j < count; j++) {
-                double t = (double)j / (double)(count-1);
-                int xi = (int)(x + dx*t);
-                int yi = (int)(y+dy*t) - miny;
-                min[yi] = Math.min(min[yi], xi);
-                max[yi] = Math.max(max[yi], xi);
-            }
-        }
-        List<Scanline> scanlines = new ArrayList<Scanline>();
-        for (int i = 0; i < n; i++) {
-            int y = miny + i;
-            if (y < 0 || y >= height) {
-                continue;
-            }
-            int a = Math.max(min[i], 0);
-            int b = Math.min(max[i], width - 1);
-            if (b >= a) {
-                scanlines.add(new Scanline(y, a, b, 0xFFFF));
-            }
-        }
-        return scanlines;
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        double rx1 = -hx * cos + hy * sin, ry1 = -hx * sin - hy * cos;
+        double rx2 = hx * cos + hy * sin, ry2 = hx * sin - hy * cos;
+        double rx3 = hx * cos - hy * sin, ry3 = hx * sin + hy * cos;
+        double rx4 = -hx * cos - hy * sin, ry4 = -hx * sin + hy * cos;
+
+        Rasterizer.rasterizeQuad((int) rx1 + x, (int) ry1 + y, (int) rx2 + x, (int) ry2 + y,
+                (int) rx3 + x, (int) ry3 + y, (int) rx4 + x, (int) ry4 + y, width, height, lines);
     }
 
     @Override
-    public void mutate() {
-        final int rnd = ThreadLocalRandom.current().nextInt(3);
-        switch (rnd) {
+    public void mutate(RandomSource rnd) {
+        final int index = rnd.nextInt(3);
+        switch (index) {
             case 0:
-                x = 140;//Util.clamp(x + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, width - 1);
-                y = 140;//Util.clamp(y + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 0, height - 1);
+                x = 140;//Util.clamp(x + (int)(rnd.nextGaussian() * 16), 0, width - 1);
+                y = 140;//Util.clamp(y + (int)(rnd.nextGaussian() * 16), 0, height - 1);
                 break;
 
             case 1:
-                sx = 100;//Util.clamp(sx + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, width - 1);
-                sy = 50;//Util.clamp(sy + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, height - 1);
+                sx = 100;//Util.clamp(sx + (int)(rnd.nextGaussian() * 16), 1, width - 1);
+                sy = 50;//Util.clamp(sy + (int)(rnd.nextGaussian() * 16), 1, height - 1);
                 break;
 
             case 3:
-                //angle = angle + (int)(ThreadLocalRandom.current().nextGaussian() * 32);
+                //angle = angle + (int)(rnd.nextGaussian() * 32);
                 int ox = x + sx / 2;
                 int oy = y + sy / 2;
 
@@ -157,8 +109,8 @@ public class TestRR implements Shape {
         }
 
 //        while (!isValid()) {
-//            sx = Util.clampInt(sx + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, width - 1);
-//            sy = Util.clampInt(sy + (int)(ThreadLocalRandom.current().nextGaussian() * 16), 1, height - 1);
+//            sx = Util.clampInt(sx + (int)(rnd.nextGaussian() * 16), 1, width - 1);
+//            sy = Util.clampInt(sy + (int)(rnd.nextGaussian() * 16), 1, height - 1);
 //        }
     }
 
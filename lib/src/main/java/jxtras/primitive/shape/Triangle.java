@@ -1,11 +1,9 @@
 package jxtras.primitive.shape;
 
-import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-
 import jxtras.primitive.util.Mathematics;
+import jxtras.primitive.util.RandomSource;
 import jxtras.primitive.raster.Rasterizer;
-import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
 
 public class Triangle implements Shape {
     private int x1;
@@ -31,18 +29,29 @@ public class Triangle implements Shape {
         this.height = height;
     }
 
-    public static Triangle random(int width, int height) {
-        int x1 = ThreadLocalRandom.current().nextInt(width);
-        int y1 = ThreadLocalRandom.current().nextInt(height);
-
-        int x2 = x1 + ThreadLocalRandom.current().nextInt(31) - 15;
-        int y2 = y1 + ThreadLocalRandom.current().nextInt(31) - 15;
+    public static Triangle random(int width, int height, RandomSource rnd) {
+        return random(rnd.nextInt(width), rnd.nextInt(height), width, height, rnd);
+    }
 
-        int x3 = x1 + ThreadLocalRandom.current().nextInt(31) - 15;
-        int y3 = y1 + ThreadLocalRandom.current().nextInt(31) - 15;
+    /**
+     * Creates a random triangle anchored at the given point.
+     *
+     * @param x1     The x-coordinate of the anchor point.
+     * @param y1     The y-coordinate of the anchor point.
+     * @param width  The x-bound of the whole canvas.
+     * @param height The y-bound of the whole canvas.
+     * @param rnd    The source of randomness.
+     * @return The new shape.
+     */
+    public static Triangle random(int x1, int y1, int width, int height, RandomSource rnd) {
+        int x2 = x1 + rnd.nextInt(31) - 15;
+        int y2 = y1 + rnd.nextInt(31) - 15;
+
+        int x3 = x1 + rnd.nextInt(31) - 15;
+        int y3 = y1 + rnd.nextInt(31) - 15;
 
         Triangle triangle = new Triangle(x1, y1, x2, y2, x3, y3, width, height);
-        triangle.mutate();
+        triangle.mutate(rnd);
 
         return triangle;
     }
@@ -53,29 +62,29 @@ public class Triangle implements Shape {
     }
 
     @Override
-    public List<Scanline> rasterize() {
-        return Rasterizer.rasterizeTriangle(x1, y1, x2, y2, x3, y3, width, height);
+    public void rasterize(ScanlineBuffer lines) {
+        Rasterizer.rasterizeTriangle(x1, y1, x2, y2, x3, y3, width, height, lines);
     }
 
     @Override
-    public void mutate() {
+    public void mutate(RandomSource rnd) {
         final int m = 16;
         do {
-            int rnd = ThreadLocalRandom.current().nextInt(3);
-            switch (rnd) {
+            int index = rnd.nextInt(3);
+            switch (index) {
                 case 0:
-                    x1 = Mathematics.clamp(x1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    y1 = Mathematics.clamp(y1 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    x1 = Mathematics.clamp(x1 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    y1 = Mathematics.clamp(y1 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 1:
-                    x2 = Mathematics.clamp(x2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    y2 = Mathematics.clamp(y2 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    x2 = Mathematics.clamp(x2 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    y2 = Mathematics.clamp(y2 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
 
                 case 2:
-                    x3 = Mathematics.clamp(x3 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, width - 1 + m);
-                    y3 = Mathematics.clamp(y3 + (int)(ThreadLocalRandom.current().nextGaussian() * 16), -m, height - 1 + m);
+                    x3 = Mathematics.clamp(x3 + (int)(rnd.nextGaussian() * 16), -m, width - 1 + m);
+                    y3 = Mathematics.clamp(y3 + (int)(rnd.nextGaussian() * 16), -m, height - 1 + m);
                     break;
             }
         } while (!isValid());
@@ -0,0 +1,91 @@
+package jxtras.primitive.util;
+
+/**
+ * Samples indices from a discrete distribution in constant time, using Vose's alias method.
+ * <p>
+ * The table is built once from a set of non-negative weights, each sample then costs one
+ * uniform integer and one uniform double. Tables are immutable and can be shared between
+ * threads, each one sampling with its own {@link RandomSource}.
+ */
+public final class AliasTable {
+    private final int size;
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Builds the table for the given weights. If all the weights are zero the distribution is
+     * uniform.
+     *
+     * @param weights The non-negative weight of each index.
+     * @param size    The number of weights to use, starting from the first one.
+     */
+    public AliasTable(long[] weights, int size) {
+        if (size < 1 || size > weights.length) {
+            throw new IllegalArgumentException("size must be in [1, weights.length]");
+        }
+        this.size = size;
+        this.probability = new double[size];
+        this.alias = new int[size];
+
+        double sum = 0.0D;
+        for (int i = 0; i < size; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("weights must be >= 0");
+            }
+            sum += weights[i];
+        }
+
+        // Scale the weights so that they average to 1, then pair each under-full entry with
+        // an over-full one which donates its excess as the alias
+        double[] scaled = probability;
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int ns = 0, nl = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = sum > 0 ? weights[i] * size / sum : 1.0D;
+            if (scaled[i] < 1.0D) {
+                small[ns++] = i;
+            } else {
+                large[nl++] = i;
+            }
+        }
+        while (ns > 0 && nl > 0) {
+            int s = small[--ns];
+            int l = large[--nl];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0D;
+            if (scaled[l] < 1.0D) {
+                small[ns++] = l;
+            } else {
+                large[nl++] = l;
+            }
+        }
+        // Whatever is left is full, up to rounding errors
+        while (nl > 0) {
+            probability[large[--nl]] = 1.0D;
+        }
+        while (ns > 0) {
+            probability[small[--ns]] = 1.0D;
+        }
+    }
+
+    /**
+     * Returns the number of indices of the distribution.
+     *
+     * @return The number of indices.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Samples an index, with a probability proportional to its weight.
+     *
+     * @param rnd The source of randomness.
+     * @return The index, between 0 (inclusive) and {@link #size()} (exclusive).
+     */
+    public int next(RandomSource rnd) {
+        int i = rnd.nextInt(size);
+        return rnd.nextDouble() < probability[i] ? i : alias[i];
+    }
+}
@@ -164,4 +164,16 @@ public class Colour {
         int b = b1 - b2;
         return ((((512 + rmean) * r * r) >> 8) + 4 * g * g + (((767 - rmean) * b * b) >> 8));
     }
+
+    /**
+     * Unpacked variant of {@link #distance(int, int)}, for kernels which have already split
+     * the colors into channels.
+     */
+    public static int distance(int r1, int g1, int b1, int r2, int g2, int b2) {
+        int rmean = (r1 + r2) << 1;
+        int r = r1 - r2;
+        int g = g1 - g2;
+        int b = b1 - b2;
+        return (((512 + rmean) * r * r) >> 8) + 4 * g * g + (((767 - rmean) * b * b) >> 8);
+    }
 }
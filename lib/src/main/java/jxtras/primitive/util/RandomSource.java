@@ -0,0 +1,102 @@
+package jxtras.primitive.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * A fast, seedable and splittable source of pseudo-random numbers.
+ * <p>
+ * Instances are not thread-safe, each thread (i.e. each worker) is expected to own its own
+ * instance, usually obtained by {@link #split() splitting} a seeded root. Given the same seed
+ * and the same sequence of calls, the same numbers are produced.
+ */
+public final class RandomSource {
+    private final SplittableRandom random;
+
+    /**
+     * The second gaussian produced by the polar method, if not consumed yet.
+     */
+    private double nextNextGaussian;
+    private boolean haveNextNextGaussian;
+
+    /**
+     * Creates a new random source with a seed that is likely to be different from any other.
+     */
+    public RandomSource() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Creates a new random source using the given seed.
+     *
+     * @param seed The initial seed.
+     */
+    public RandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private RandomSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Constructs and returns a new random source that shares no mutable state with this one.
+     * The new source is fully determined by the state of this one.
+     *
+     * @return The new random source.
+     */
+    public RandomSource split() {
+        return new RandomSource(random.split());
+    }
+
+    /**
+     * Returns a pseudo-random int value between 0 (inclusive) and the bound (exclusive).
+     *
+     * @param bound The upper bound (exclusive), must be positive.
+     * @return The random value.
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Returns a pseudo-random double value between 0 (inclusive) and 1 (exclusive).
+     *
+     * @return The random value.
+     */
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    /**
+     * Returns a pseudo-random double value between 0 (inclusive) and the bound (exclusive).
+     *
+     * @param bound The upper bound (exclusive), must be positive.
+     * @return The random value.
+     */
+    public double nextDouble(double bound) {
+        return random.nextDouble(bound);
+    }
+
+    /**
+     * Returns a pseudo-random, Gaussian ("normally") distributed double value with mean 0.0
+     * and standard deviation 1.0, using the polar method like {@link java.util.Random}.
+     *
+     * @return The random value.
+     */
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        double v1, v2, s;
+        do {
+            v1 = 2 * random.nextDouble() - 1;
+            v2 = 2 * random.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+}
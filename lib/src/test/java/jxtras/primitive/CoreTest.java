@@ -0,0 +1,101 @@
+package jxtras.primitive;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.kernel.ScalarSpanKernel;
+import jxtras.primitive.kernel.SpanKernel;
+import jxtras.primitive.raster.Scanline;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.shape.Shape;
+import jxtras.primitive.shape.ShapeFactory;
+import jxtras.primitive.shape.ShapeType;
+import jxtras.primitive.util.RandomSource;
+
+/**
+ * Checks the fused {@link ScalarSpanKernel} against the reference path it replaces, which
+ * computes the color with {@link Core#computeColor(Bitmap, Bitmap, List, int)}, draws the
+ * scanlines onto a copy of the current bitmap with {@link Core#copyLines(Bitmap, Bitmap, List)}
+ * and {@link Core#drawLines(Bitmap, int, List)}, then scores it with
+ * {@link Core#differencePartial(Bitmap, Bitmap, Bitmap, double, List)}.
+ */
+public class CoreTest {
+    private final SpanKernel kernel = new ScalarSpanKernel();
+
+    @Test
+    public void colorsMatchReference() {
+        Random rnd = new Random(1L);
+        RandomSource shapes = new RandomSource(1L);
+        for (int i = 0; i < 100; i++) {
+            Bitmap target = random(rnd, 1 + rnd.nextInt(120), 1 + rnd.nextInt(120));
+            Bitmap current = random(rnd, target.getWidth(), target.getHeight());
+            for (int k = 0; k < 50; k++) {
+                ScanlineBuffer lines = rasterize(rnd, shapes, target);
+                int alpha = 1 + rnd.nextInt(255);
+                assertEquals(Core.computeColor(target, current, lines.toList(), alpha),
+                        kernel.computeColor(target, current, lines, alpha));
+            }
+        }
+    }
+
+    @Test
+    public void energiesMatchReference() {
+        Random rnd = new Random(2L);
+        RandomSource shapes = new RandomSource(2L);
+        for (int i = 0; i < 100; i++) {
+            Bitmap target = random(rnd, 1 + rnd.nextInt(120), 1 + rnd.nextInt(120));
+            Bitmap current = random(rnd, target.getWidth(), target.getHeight());
+            Bitmap buffer = current.copy();
+            double score = Core.differenceFull(target, current);
+            long total = Core.differenceTotal(target, current);
+            assertEquals(score, Core.score(target, total), 1e-12D);
+            for (int k = 0; k < 50; k++) {
+                ScanlineBuffer lines = rasterize(rnd, shapes, target);
+                List<Scanline> scanlines = lines.toList();
+                int color = Core.computeColor(target, current, scanlines, 1 + rnd.nextInt(255));
+
+                Core.copyLines(buffer, current, scanlines);
+                Core.drawLines(buffer, color, scanlines);
+                double expected = Core.differencePartial(target, current, buffer, score,
+                        scanlines);
+                double actual = Core.score(target,
+                        total + kernel.differenceDelta(target, current, color, lines));
+                assertEquals(expected, actual, 1e-9D);
+
+                Bitmap drawn = current.copy();
+                kernel.drawLines(drawn, color, lines);
+                assertArrayEquals(buffer.getPixels(), drawn.getPixels());
+                Core.copyLines(buffer, current, scanlines);
+            }
+        }
+    }
+
+    private static Bitmap random(Random rnd, int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | rnd.nextInt(0x1000000);
+        }
+        return new Bitmap(width, height, pixels, false);
+    }
+
+    /**
+     * Returns the normalized scanlines of a random shape of any type, anti-aliased half of the
+     * time so that the partial coverages are checked too.
+     */
+    private static ScanlineBuffer rasterize(Random rnd, RandomSource shapes, Bitmap bitmap) {
+        ShapeType[] types = ShapeType.values();
+        Shape shape = ShapeFactory.createShapeOf(types[rnd.nextInt(types.length)],
+                bitmap.getWidth(), bitmap.getHeight(), shapes);
+        ScanlineBuffer lines = new ScanlineBuffer();
+        lines.antialias = rnd.nextBoolean();
+        shape.rasterize(lines);
+        lines.normalize();
+        return lines;
+    }
+}
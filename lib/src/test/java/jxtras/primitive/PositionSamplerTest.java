@@ -0,0 +1,62 @@
+package jxtras.primitive;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.util.RandomSource;
+
+/**
+ * Checks that {@link PositionSampler} copes with the negative tile errors the red-mean distance
+ * gives between saturated red and blue colors.
+ */
+public class PositionSamplerTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    @Test
+    public void negativeErrorsAreSampledUniformly() {
+        // Red and magenta: no red nor green difference, a negative blue term
+        ErrorMap errors = new ErrorMap(fill(0xFFFF00FF), fill(0xFFFF0000));
+        assertTrue(errors.getTotal() < 0);
+
+        PositionSampler sampler = new PositionSampler(errors);
+        RandomSource rnd = new RandomSource(10L);
+        for (int i = 0; i < 10000; i++) {
+            int position = sampler.next(rnd);
+            assertTrue(position >= 0 && position < WIDTH * HEIGHT);
+        }
+    }
+
+    @Test
+    public void negativeErrorsOnlyGetTheFloor() {
+        // The left half is saturated as above, the right half differs in green
+        Bitmap target = fill(0xFFFF00FF);
+        Bitmap current = fill(0xFFFF0000);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = WIDTH / 2; x < WIDTH; x++) {
+                target.setPixel(x, y, 0xFF00FF00);
+                current.setPixel(x, y, 0xFF000000);
+            }
+        }
+        PositionSampler sampler = new PositionSampler(new ErrorMap(target, current));
+        RandomSource rnd = new RandomSource(11L);
+        int left = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (sampler.next(rnd) % WIDTH < WIDTH / 2) {
+                left++;
+            }
+        }
+        // Each left tile weighs a tenth of the mean, i.e. a twentieth of a right tile
+        assertTrue("left " + left, left > 200 && left < 800);
+    }
+
+    private static Bitmap fill(int color) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, color);
+        return new Bitmap(WIDTH, HEIGHT, pixels, false);
+    }
+}
@@ -0,0 +1,112 @@
+package jxtras.primitive.kernel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.raster.ScanlineBuffer;
+
+/**
+ * Checks the colors and the error deltas of {@link IntegralImages} against the ones
+ * {@link ScalarSpanKernel} computes pixel by pixel for the scanlines of the same rectangles.
+ */
+public class IntegralImagesTest {
+    /**
+     * The bound on the difference between the estimated and the exact delta, per pixel.
+     */
+    private static final long BOUND = 6623L;
+
+    private final SpanKernel kernel = new ScalarSpanKernel();
+
+    @Test
+    public void colorsMatchKernel() {
+        Random rnd = new Random(14L);
+        for (int i = 0; i < 100; i++) {
+            Bitmap target = random(rnd, 1 + rnd.nextInt(120), 1 + rnd.nextInt(120));
+            Bitmap current = random(rnd, target.getWidth(), target.getHeight());
+            IntegralImages integrals = new IntegralImages(target, current);
+            for (int k = 0; k < 50; k++) {
+                int[] r = rectangle(rnd, target);
+                int alpha = 1 + rnd.nextInt(255);
+                assertEquals(kernel.computeColor(target, current, lines(r), alpha),
+                        integrals.computeColor(r[0], r[1], r[2], r[3], alpha));
+            }
+        }
+    }
+
+    @Test
+    public void deltasWithinBoundOfKernel() {
+        Random rnd = new Random(15L);
+        double error = 0, total = 0;
+        for (int i = 0; i < 100; i++) {
+            Bitmap target = random(rnd, 1 + rnd.nextInt(120), 1 + rnd.nextInt(120));
+            Bitmap current = random(rnd, target.getWidth(), target.getHeight());
+            IntegralImages integrals = new IntegralImages(target, current);
+            for (int k = 0; k < 50; k++) {
+                int[] r = rectangle(rnd, target);
+                ScanlineBuffer lines = lines(r);
+                int color = kernel.computeColor(target, current, lines, 1 + rnd.nextInt(255));
+                long exact = kernel.differenceDelta(target, current, color, lines);
+                long estimate = integrals.estimateDelta(r[0], r[1], r[2], r[3], color);
+                long pixels = (long) (r[2] - r[0] + 1) * (r[3] - r[1] + 1);
+                assertTrue(exact + " vs " + estimate,
+                        Math.abs(exact - estimate) <= BOUND * pixels);
+                error += Math.abs(exact - estimate);
+                total += Math.abs(exact);
+            }
+        }
+        assertTrue("relative error " + error / total, error / total < 0.01D);
+    }
+
+    @Test
+    public void updatedTablesMatchFreshOnes() {
+        Random rnd = new Random(16L);
+        for (int i = 0; i < 20; i++) {
+            Bitmap target = random(rnd, 1 + rnd.nextInt(120), 1 + rnd.nextInt(120));
+            Bitmap current = random(rnd, target.getWidth(), target.getHeight());
+            IntegralImages integrals = new IntegralImages(target, current);
+            for (int k = 0; k < 10; k++) {
+                ScanlineBuffer lines = lines(rectangle(rnd, target));
+                kernel.drawLines(current, kernel.computeColor(target, current, lines, 128), lines);
+                integrals.update(current, lines);
+            }
+            IntegralImages fresh = new IntegralImages(target, current);
+            for (int k = 0; k < 50; k++) {
+                int[] r = rectangle(rnd, target);
+                int color = 0x80000000 | rnd.nextInt(0x1000000);
+                assertEquals(fresh.estimateDelta(r[0], r[1], r[2], r[3], color),
+                        integrals.estimateDelta(r[0], r[1], r[2], r[3], color));
+            }
+        }
+    }
+
+    private static Bitmap random(Random rnd, int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | rnd.nextInt(0x1000000);
+        }
+        return new Bitmap(width, height, pixels, false);
+    }
+
+    /**
+     * Returns a random rectangle <code>{x1, y1, x2, y2}</code> inside the bitmap.
+     */
+    private static int[] rectangle(Random rnd, Bitmap bitmap) {
+        int x1 = rnd.nextInt(bitmap.getWidth()), y1 = rnd.nextInt(bitmap.getHeight());
+        int x2 = x1 + rnd.nextInt(bitmap.getWidth() - x1);
+        int y2 = y1 + rnd.nextInt(bitmap.getHeight() - y1);
+        return new int[] {x1, y1, x2, y2};
+    }
+
+    private static ScanlineBuffer lines(int[] r) {
+        ScanlineBuffer lines = new ScanlineBuffer();
+        for (int y = r[1]; y <= r[3]; y++) {
+            lines.add(y, r[0], r[2], 0xFFFF);
+        }
+        return lines;
+    }
+}
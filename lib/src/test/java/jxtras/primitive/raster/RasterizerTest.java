@@ -0,0 +1,210 @@
+package jxtras.primitive.raster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link Rasterizer#rasterizeTriangle(int, int, int, int, int, int, int, int,
+ * ScanlineBuffer)} against the general polygon scan converter, which it must match span for
+ * span, and the top-left rule it follows.
+ */
+public class RasterizerTest {
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 80;
+
+    @Test
+    public void randomTrianglesMatchPolygons() {
+        Random rnd = new Random(17L);
+        for (int i = 0; i < 50000; i++) {
+            int[] x = new int[3], y = new int[3];
+            for (int k = 0; k < 3; k++) {
+                x[k] = rnd.nextInt(WIDTH + 60) - 30;
+                y[k] = rnd.nextInt(HEIGHT + 60) - 30;
+            }
+            assertMatchesPolygon(x, y);
+        }
+    }
+
+    @Test
+    public void degenerateTrianglesCoverNothing() {
+        Random rnd = new Random(18L);
+        for (int i = 0; i < 10000; i++) {
+            int x0 = rnd.nextInt(WIDTH), y0 = rnd.nextInt(HEIGHT);
+            int dx = rnd.nextInt(21) - 10, dy = rnd.nextInt(21) - 10;
+            int a = rnd.nextInt(9) - 4, b = rnd.nextInt(9) - 4;
+            int[] x = {x0, x0 + a * dx, x0 + b * dx};
+            int[] y = {y0, y0 + a * dy, y0 + b * dy};
+            ScanlineBuffer lines = new ScanlineBuffer();
+            Rasterizer.rasterizeTriangle(x[0], y[0], x[1], y[1], x[2], y[2], WIDTH, HEIGHT,
+                    lines);
+            assertEquals(0, lines.count);
+            assertMatchesPolygon(x, y);
+        }
+    }
+
+    @Test
+    public void flatTopAndBottomTrianglesMatchPolygons() {
+        Random rnd = new Random(19L);
+        for (int i = 0; i < 20000; i++) {
+            int flat = rnd.nextInt(HEIGHT + 20) - 10;
+            int apex = rnd.nextInt(HEIGHT + 20) - 10;
+            int[] x = {rnd.nextInt(WIDTH + 20) - 10, rnd.nextInt(WIDTH + 20) - 10,
+                    rnd.nextInt(WIDTH + 20) - 10};
+            int[] y = {flat, flat, apex};
+            assertMatchesPolygon(x, y);
+            assertMatchesPolygon(new int[] {x[2], x[0], x[1]}, new int[] {y[2], y[0], y[1]});
+        }
+    }
+
+    @Test
+    public void offCanvasTrianglesMatchPolygons() {
+        Random rnd = new Random(20L);
+        for (int i = 0; i < 20000; i++) {
+            int[] x = new int[3], y = new int[3];
+            for (int k = 0; k < 3; k++) {
+                x[k] = rnd.nextInt(4 * WIDTH) - 2 * WIDTH;
+                y[k] = rnd.nextInt(4 * HEIGHT) - 2 * HEIGHT;
+            }
+            assertMatchesPolygon(x, y);
+        }
+    }
+
+    @Test
+    public void trianglesSharingAnEdgeNeverOverlap() {
+        Random rnd = new Random(21L);
+        for (int i = 0; i < 20000; i++) {
+            int ax = rnd.nextInt(WIDTH), ay = rnd.nextInt(HEIGHT);
+            int bx = rnd.nextInt(WIDTH), by = rnd.nextInt(HEIGHT);
+            int cx = rnd.nextInt(WIDTH), cy = rnd.nextInt(HEIGHT);
+            int dx = rnd.nextInt(WIDTH), dy = rnd.nextInt(HEIGHT);
+            long sc = side(ax, ay, bx, by, cx, cy), sd = side(ax, ay, bx, by, dx, dy);
+            if (sc == 0 || sd == 0 || (sc > 0) == (sd > 0)) {
+                continue;
+            }
+            int[] counts = new int[WIDTH * HEIGHT];
+            cover(counts, ax, ay, bx, by, cx, cy);
+            cover(counts, bx, by, ax, ay, dx, dy);
+            for (int count : counts) {
+                assertTrue("pixel covered twice", count <= 1);
+            }
+        }
+    }
+
+    @Test
+    public void antialiasedStrokesCoverTheirArea() {
+        Random rnd = new Random(22L);
+        for (int i = 0; i < 2000; i++) {
+            double x1 = 10 + rnd.nextDouble() * (WIDTH - 20);
+            double y1 = 10 + rnd.nextDouble() * (HEIGHT - 20);
+            double x2 = 10 + rnd.nextDouble() * (WIDTH - 20);
+            double y2 = 10 + rnd.nextDouble() * (HEIGHT - 20);
+            double strokeWidth = 0.5 + rnd.nextDouble() * 8;
+            StrokeCap cap = StrokeCap.values()[rnd.nextInt(StrokeCap.values().length)];
+            ScanlineBuffer lines = new ScanlineBuffer();
+            lines.antialias = true;
+            Rasterizer.rasterizeStroke(new double[] {x1, x2}, new double[] {y1, y2}, 2,
+                    strokeWidth, cap, StrokeJoin.ROUND, WIDTH, HEIGHT, lines);
+
+            double coverage = 0;
+            for (int n = 0; n < lines.count; n++) {
+                assertTrue(n == 0 || lines.y[n] > lines.y[n - 1] || lines.x1[n] > lines.x2[n - 1]);
+                coverage += (lines.x2[n] - lines.x1[n] + 1) * (lines.alpha[n] / 65535.0D);
+            }
+            double length = Math.hypot(x2 - x1, y2 - y1);
+            double area = length * strokeWidth;
+            if (cap == StrokeCap.ROUND) {
+                area += Math.PI * strokeWidth * strokeWidth / 4;
+            } else if (cap == StrokeCap.SQUARE) {
+                area += strokeWidth * strokeWidth;
+            }
+            // The coverage of each pixel is rounded to 8 bits
+            assertEquals(area, coverage, 0.01D * area + 0.5D);
+        }
+    }
+
+    @Test
+    public void quadsMatchPolygons() {
+        Random rnd = new Random(23L);
+        for (int i = 0; i < 20000; i++) {
+            double[] x = new double[4], y = new double[4];
+            for (int k = 0; k < 4; k++) {
+                x[k] = rnd.nextDouble() * (WIDTH + 60) - 30;
+                y[k] = rnd.nextDouble() * (HEIGHT + 60) - 30;
+            }
+            for (boolean antialias : new boolean[] {false, true}) {
+                ScanlineBuffer quad = new ScanlineBuffer();
+                quad.antialias = antialias;
+                Rasterizer.rasterizeQuad(x[0], y[0], x[1], y[1], x[2], y[2], x[3], y[3], WIDTH,
+                        HEIGHT, quad);
+                ScanlineBuffer polygon = new ScanlineBuffer();
+                polygon.antialias = antialias;
+                Rasterizer.rasterizePolygon(x, y, 4, FillRule.NON_ZERO, WIDTH, HEIGHT, polygon);
+                assertSameSpans(polygon, quad);
+            }
+        }
+    }
+
+    @Test
+    public void degenerateEllipsesLeaveTheBufferAlone() {
+        for (boolean antialias : new boolean[] {false, true}) {
+            for (int[] r : new int[][] {{0, 0}, {5, 0}, {0, 5}, {-1, 3}}) {
+                ScanlineBuffer lines = new ScanlineBuffer();
+                lines.antialias = antialias;
+                lines.add(7, 3, 9, 0x8000);
+                Rasterizer.rasterizeEllipse(40, 30, r[0], r[1], WIDTH, HEIGHT, lines);
+                Rasterizer.rasterizeRotatedEllipse(40, 30, r[0], r[1], 30, WIDTH, HEIGHT, lines);
+                Rasterizer.rasterizeCircle(40, 30, Math.min(r[0], r[1]), WIDTH, HEIGHT, lines);
+                assertEquals(1, lines.count);
+                assertEquals(7, lines.y[0]);
+                assertEquals(3, lines.x1[0]);
+                assertEquals(9, lines.x2[0]);
+                assertEquals(0x8000, lines.alpha[0]);
+            }
+        }
+    }
+
+    private static long side(int ax, int ay, int bx, int by, int px, int py) {
+        return (long) (bx - ax) * (py - ay) - (long) (by - ay) * (px - ax);
+    }
+
+    private static void cover(int[] counts, int x1, int y1, int x2, int y2, int x3, int y3) {
+        ScanlineBuffer lines = new ScanlineBuffer();
+        Rasterizer.rasterizeTriangle(x1, y1, x2, y2, x3, y3, WIDTH, HEIGHT, lines);
+        for (int n = 0; n < lines.count; n++) {
+            for (int x = lines.x1[n]; x <= lines.x2[n]; x++) {
+                counts[lines.y[n] * WIDTH + x]++;
+            }
+        }
+    }
+
+    private static void assertMatchesPolygon(int[] x, int[] y) {
+        ScanlineBuffer triangle = new ScanlineBuffer();
+        Rasterizer.rasterizeTriangle(x[0], y[0], x[1], y[1], x[2], y[2], WIDTH, HEIGHT,
+                triangle);
+        ScanlineBuffer polygon = new ScanlineBuffer();
+        Rasterizer.rasterizePolygon(x, y, 3, FillRule.NON_ZERO, WIDTH, HEIGHT, polygon);
+
+        String message = "triangle (" + x[0] + ", " + y[0] + "), (" + x[1] + ", " + y[1]
+                + "), (" + x[2] + ", " + y[2] + ")";
+        assertSameSpans(message, polygon, triangle);
+    }
+
+    private static void assertSameSpans(ScanlineBuffer expected, ScanlineBuffer actual) {
+        assertSameSpans(null, expected, actual);
+    }
+
+    private static void assertSameSpans(String message, ScanlineBuffer expected,
+            ScanlineBuffer actual) {
+        assertEquals(message, expected.count, actual.count);
+        for (int n = 0; n < expected.count; n++) {
+            assertEquals(message, expected.y[n], actual.y[n]);
+            assertEquals(message, expected.x1[n], actual.x1[n]);
+            assertEquals(message, expected.x2[n], actual.x2[n]);
+            assertEquals(message, expected.alpha[n], actual.alpha[n]);
+        }
+    }
+}
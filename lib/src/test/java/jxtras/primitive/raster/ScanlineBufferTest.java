@@ -0,0 +1,81 @@
+package jxtras.primitive.raster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link ScanlineBuffer#normalize()} leaves each pixel covered by a single scanline
+ * with the greatest coverage of those over it, against a map of the coverage of every pixel.
+ */
+public class ScanlineBufferTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 10;
+
+    @Test
+    public void overlapsTakeTheGreatestCoverage() {
+        Random rnd = new Random(22L);
+        int[] alphas = {0x4000, 0x8000, 0xFFFF};
+        for (int i = 0; i < 20000; i++) {
+            ScanlineBuffer lines = new ScanlineBuffer(1);
+            int[] expected = new int[WIDTH * HEIGHT];
+            for (int k = rnd.nextInt(12); k >= 0; k--) {
+                int y = rnd.nextInt(HEIGHT);
+                int x1 = rnd.nextInt(WIDTH);
+                int x2 = x1 + rnd.nextInt(WIDTH - x1);
+                int alpha = alphas[rnd.nextInt(alphas.length)];
+                lines.add(y, x1, x2, alpha);
+                for (int x = x1; x <= x2; x++) {
+                    expected[y * WIDTH + x] = Math.max(expected[y * WIDTH + x], alpha);
+                }
+            }
+            lines.normalize();
+
+            int[] actual = new int[WIDTH * HEIGHT];
+            for (int n = 0; n < lines.count; n++) {
+                if (n > 0 && lines.y[n] == lines.y[n - 1]) {
+                    // Disjoint, and merged if they touch with the same coverage
+                    assertTrue(lines.x1[n] > lines.x2[n - 1] + (lines.alpha[n]
+                            == lines.alpha[n - 1] ? 1 : 0));
+                } else {
+                    assertTrue(n == 0 || lines.y[n] > lines.y[n - 1]);
+                }
+                for (int x = lines.x1[n]; x <= lines.x2[n]; x++) {
+                    assertEquals("pixel covered twice", 0, actual[lines.y[n] * WIDTH + x]);
+                    actual[lines.y[n] * WIDTH + x] = lines.alpha[n];
+                }
+            }
+            for (int p = 0; p < expected.length; p++) {
+                assertEquals("pixel " + p, expected[p], actual[p]);
+            }
+        }
+    }
+
+    @Test
+    public void farApartScanlinesAreSorted() {
+        ScanlineBuffer lines = new ScanlineBuffer();
+        lines.add(1, 1 << 30, (1 << 30) + 5, 0xFFFF);
+        lines.add(1, -(1 << 30), 10, 0xFFFF);
+        lines.add(-(1 << 30), 0, 3, 0x8000);
+        lines.add(1, 5, Integer.MAX_VALUE, 0x8000);
+        lines.normalize();
+
+        assertEquals(5, lines.count);
+        assertSpan(lines, 0, -(1 << 30), 0, 3, 0x8000);
+        assertSpan(lines, 1, 1, -(1 << 30), 10, 0xFFFF);
+        assertSpan(lines, 2, 1, 11, (1 << 30) - 1, 0x8000);
+        assertSpan(lines, 3, 1, 1 << 30, (1 << 30) + 5, 0xFFFF);
+        assertSpan(lines, 4, 1, (1 << 30) + 6, Integer.MAX_VALUE, 0x8000);
+    }
+
+    private static void assertSpan(ScanlineBuffer lines, int n, int y, int x1, int x2,
+            int alpha) {
+        assertEquals(y, lines.y[n]);
+        assertEquals(x1, lines.x1[n]);
+        assertEquals(x2, lines.x2[n]);
+        assertEquals(alpha, lines.alpha[n]);
+    }
+}
@@ -0,0 +1,590 @@
+package jxtras.primitive.kernel.simd;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import jxtras.primitive.image.Bitmap;
+import jxtras.primitive.image.PlanarBitmap;
+import jxtras.primitive.kernel.ScalarSpanKernel;
+import jxtras.primitive.kernel.SpanKernel;
+import jxtras.primitive.raster.ScanlineBuffer;
+import jxtras.primitive.util.Colour;
+
+/**
+ * The SIMD {@link SpanKernel}, processing each span in chunks of packed ARGB pixels with the
+ * Java Vector API, the pixels left over at the end of a span are processed one at a time.
+ * <p>
+ * The blend <code>(d * a + s * ma) / 0xFFFF &gt;&gt; 8</code> of the scalar kernel does not fit
+ * in 32-bit lanes. Since <code>a = k * 0x101</code> and <code>0x101 * 255 = 0xFFFF</code>, it
+ * equals <code>((d * k + s * ma / 0x101) &gt;&gt; 8) / 255</code>, which does, and the division
+ * by 255 is done with shifts. Once clamped to 255 the results are the same to the last bit.
+ * <p>
+ * The planes of a {@link PlanarBitmap} are loaded as bytes and widened to the same integer
+ * lanes, so no shifting and masking is needed to get at the channels. On platforms whose
+ * vectors hold fewer than 8 integers the planar methods fall back to the scalar kernel.
+ */
+public final class VectorSpanKernel implements SpanKernel {
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * The number of chunks after which the 32-bit error lanes are flushed into the total, low
+     * enough for the largest per-pixel error not to overflow them.
+     */
+    private static final int FLUSH = 1024;
+
+    /**
+     * The shortest span worth processing in chunks, shorter ones are processed one pixel at a
+     * time since setting up and reducing the lanes would cost more than it saves.
+     */
+    private static final int MIN_SPAN = 4 * I.length();
+
+    /**
+     * The bytes of as many pixels as there are integer lanes, <code>null</code> if too few for
+     * a byte vector.
+     */
+    private static final VectorSpecies<Byte> B = I.length() >= 8
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(8 * I.length())) : null;
+
+    private static final SpanKernel SCALAR = new ScalarSpanKernel();
+
+    @Override
+    public int computeColor(Bitmap target, Bitmap current, ScanlineBuffer lines, int alpha) {
+        final int[] tp = target.getPixels();
+        final int[] cp = current.getPixels();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+        final int step = I.length();
+
+        long tr = 0, tg = 0, tb = 0, cr = 0, cg = 0, cb = 0;
+        long total = 0;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+            final int offset = target.rowOffset(y);
+            final int end = offset + x2 + 1;
+            int i = offset + x1;
+            long ltr = 0, ltg = 0, ltb = 0, lcr = 0, lcg = 0, lcb = 0;
+            if (end - i >= MIN_SPAN) {
+                IntVector vtr = IntVector.zero(I), vtg = vtr, vtb = vtr;
+                IntVector vcr = vtr, vcg = vtr, vcb = vtr;
+                for (int bound = i + I.loopBound(end - i); i < bound; i += step) {
+                    IntVector t = IntVector.fromArray(I, tp, i);
+                    IntVector c = IntVector.fromArray(I, cp, i);
+                    vtr = vtr.add(t.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+                    vtg = vtg.add(t.lanewise(VectorOperators.LSHR, 8).and(0xFF));
+                    vtb = vtb.add(t.and(0xFF));
+                    vcr = vcr.add(c.lanewise(VectorOperators.LSHR, 16).and(0xFF));
+                    vcg = vcg.add(c.lanewise(VectorOperators.LSHR, 8).and(0xFF));
+                    vcb = vcb.add(c.and(0xFF));
+                }
+                ltr = vtr.reduceLanesToLong(VectorOperators.ADD);
+                ltg = vtg.reduceLanesToLong(VectorOperators.ADD);
+                ltb = vtb.reduceLanesToLong(VectorOperators.ADD);
+                lcr = vcr.reduceLanesToLong(VectorOperators.ADD);
+                lcg = vcg.reduceLanesToLong(VectorOperators.ADD);
+                lcb = vcb.reduceLanesToLong(VectorOperators.ADD);
+            }
+            for (; i < end; i++) {
+                int tc = tp[i];
+                int cc = cp[i];
+                ltr += (tc >> 16) & 0xFF;
+                ltg += (tc >> 8) & 0xFF;
+                ltb += tc & 0xFF;
+                lcr += (cc >> 16) & 0xFF;
+                lcg += (cc >> 8) & 0xFF;
+                lcb += cc & 0xFF;
+            }
+            final long w = SpanKernel.weight(lines.alpha[n]);
+            tr += w * ltr;
+            tg += w * ltg;
+            tb += w * ltb;
+            cr += w * lcr;
+            cg += w * lcg;
+            cb += w * lcb;
+            total += w * (x2 - x1 + 1);
+        }
+        return color(tr, tg, tb, cr, cg, cb, total, alpha);
+    }
+
+    /**
+     * Turns the channel sums into the color of the scanlines, with the same arithmetic as the
+     * scalar kernel.
+     */
+    private static int color(long tr, long tg, long tb, long cr, long cg, long cb, long total,
+            int alpha) {
+        if (total == 0) { // Early out to avoid integer divide by 0
+            return Colour.argb(0, 0, 0, 0);
+        }
+        double a = (0x101 * 255.0d / alpha);
+        double rsum = tr * a + cr * (0x101 - a);
+        double gsum = tg * a + cg * (0x101 - a);
+        double bsum = tb * a + cb * (0x101 - a);
+        int r = Math.min(Math.max(((int)(rsum / total)) >> 8, 0), 255);
+        int g = Math.min(Math.max(((int)(gsum / total)) >> 8, 0), 255);
+        int b = Math.min(Math.max(((int)(bsum / total)) >> 8, 0), 255);
+        return Colour.argb(alpha, r, g, b);
+    }
+
+    @Override
+    public long differenceDelta(Bitmap target, Bitmap current, int color, ScanlineBuffer lines) {
+        final int m = 0xFFFF;
+        final int[] tp = target.getPixels();
+        final int[] cp = current.getPixels();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+        final boolean translucent = target.isTranslucent();
+        final int step = I.length();
+
+        long sa = Colour.alpha(color);
+        long sr = Colour.red(color);
+        long sg = Colour.green(color);
+        long sb = Colour.blue(color);
+        sr = (sr | sr << 8) * sa / 255;
+        sg = (sg | sg << 8) * sa / 255;
+        sb = (sb | sb << 8) * sa / 255;
+        sa |= sa << 8;
+
+        long total = 0L;
+        IntVector acc = IntVector.zero(I);
+        int chunks = 0;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+
+            final long ma = lines.alpha[n];
+            final int k = (int) (m - sa * ma / m);
+            final int ka = (int) (sa * ma / 0x101);
+            final int kr = (int) (sr * ma / 0x101);
+            final int kg = (int) (sg * ma / 0x101);
+            final int kb = (int) (sb * ma / 0x101);
+
+            final int offset = target.rowOffset(y);
+            final int end = offset + x2 + 1;
+            int i = offset + x1;
+            final int bound = end - i >= MIN_SPAN ? i + I.loopBound(end - i) : i;
+            for (; i < bound; i += step) {
+                IntVector t = IntVector.fromArray(I, tp, i);
+                IntVector c = IntVector.fromArray(I, cp, i);
+
+                IntVector tr = t.lanewise(VectorOperators.LSHR, 16).and(0xFF);
+                IntVector tg = t.lanewise(VectorOperators.LSHR, 8).and(0xFF);
+                IntVector tb = t.and(0xFF);
+                IntVector dr = c.lanewise(VectorOperators.LSHR, 16).and(0xFF);
+                IntVector dg = c.lanewise(VectorOperators.LSHR, 8).and(0xFF);
+                IntVector db = c.and(0xFF);
+
+                IntVector br = blend(dr, k, kr);
+                IntVector bg = blend(dg, k, kg);
+                IntVector bb = blend(db, k, kb);
+
+                if (translucent) {
+                    IntVector ta = t.lanewise(VectorOperators.LSHR, 24);
+                    IntVector da = c.lanewise(VectorOperators.LSHR, 24);
+                    IntVector ba = blend(da, k, ka);
+                    acc = acc.add(squares(ta, tr, tg, tb, ba, br, bg, bb))
+                            .sub(squares(ta, tr, tg, tb, da, dr, dg, db));
+                } else {
+                    acc = acc.add(distance(tr, tg, tb, br, bg, bb))
+                            .sub(distance(tr, tg, tb, dr, dg, db));
+                }
+                if (++chunks == FLUSH) {
+                    total += acc.reduceLanesToLong(VectorOperators.ADD);
+                    acc = IntVector.zero(I);
+                    chunks = 0;
+                }
+            }
+            for (; i < end; i++) {
+                int tc = tp[i];
+                int ta = tc >>> 24;
+                int tr = (tc >> 16) & 0xFF;
+                int tg = (tc >> 8) & 0xFF;
+                int tb = tc & 0xFF;
+
+                int dc = cp[i];
+                int da = dc >>> 24;
+                int dr = (dc >> 16) & 0xFF;
+                int dg = (dc >> 8) & 0xFF;
+                int db = dc & 0xFF;
+
+                int br = blend(dr, k, kr);
+                int bg = blend(dg, k, kg);
+                int bb = blend(db, k, kb);
+
+                if (translucent) {
+                    int ba = blend(da, k, ka);
+                    total += squares(ta, tr, tg, tb, ba, br, bg, bb)
+                            - squares(ta, tr, tg, tb, da, dr, dg, db);
+                } else {
+                    total += Colour.distance(tr, tg, tb, br, bg, bb)
+                            - Colour.distance(tr, tg, tb, dr, dg, db);
+                }
+            }
+        }
+        return total + acc.reduceLanesToLong(VectorOperators.ADD);
+    }
+
+    @Override
+    public void drawLines(Bitmap image, int color, ScanlineBuffer lines) {
+        final int m = 0xFFFF;
+        final int[] pixels = image.getPixels();
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int step = I.length();
+
+        long sa = Colour.alpha(color);
+        long sr = Colour.red(color);
+        long sg = Colour.green(color);
+        long sb = Colour.blue(color);
+        sr = (sr | sr << 8) * sa / 255;
+        sg = (sg | sg << 8) * sa / 255;
+        sb = (sb | sb << 8) * sa / 255;
+        sa |= sa << 8;
+
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+
+            final long ma = lines.alpha[n];
+            final int k = (int) (m - sa * ma / m);
+            final int ka = (int) (sa * ma / 0x101);
+            final int kr = (int) (sr * ma / 0x101);
+            final int kg = (int) (sg * ma / 0x101);
+            final int kb = (int) (sb * ma / 0x101);
+
+            final int offset = image.rowOffset(y);
+            final int end = offset + x2 + 1;
+            int i = offset + x1;
+            for (int bound = i + I.loopBound(end - i); i < bound; i += step) {
+                IntVector c = IntVector.fromArray(I, pixels, i);
+                IntVector ba = blend(c.lanewise(VectorOperators.LSHR, 24), k, ka);
+                IntVector br = blend(c.lanewise(VectorOperators.LSHR, 16).and(0xFF), k, kr);
+                IntVector bg = blend(c.lanewise(VectorOperators.LSHR, 8).and(0xFF), k, kg);
+                IntVector bb = blend(c.and(0xFF), k, kb);
+                ba.lanewise(VectorOperators.LSHL, 24)
+                        .or(br.lanewise(VectorOperators.LSHL, 16))
+                        .or(bg.lanewise(VectorOperators.LSHL, 8))
+                        .or(bb)
+                        .intoArray(pixels, i);
+            }
+            for (; i < end; i++) {
+                int dc = pixels[i];
+                int ba = blend(dc >>> 24, k, ka);
+                int br = blend((dc >> 16) & 0xFF, k, kr);
+                int bg = blend((dc >> 8) & 0xFF, k, kg);
+                int bb = blend(dc & 0xFF, k, kb);
+                pixels[i] = (ba << 24) | (br << 16) | (bg << 8) | bb;
+            }
+        }
+    }
+
+    @Override
+    public int computeColor(PlanarBitmap target, PlanarBitmap current, ScanlineBuffer lines,
+            int alpha) {
+        if (B == null) {
+            return SCALAR.computeColor(target, current, lines, alpha);
+        }
+        final byte[] tr = target.getRed(), tg = target.getGreen(), tb = target.getBlue();
+        final byte[] cr = current.getRed(), cg = current.getGreen(), cb = current.getBlue();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+        final int step = I.length();
+
+        long str = 0, stg = 0, stb = 0, scr = 0, scg = 0, scb = 0;
+        long total = 0;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+            final int offset = target.rowOffset(y);
+            final int end = offset + x2 + 1;
+            int i = offset + x1;
+            long ltr = 0, ltg = 0, ltb = 0, lcr = 0, lcg = 0, lcb = 0;
+            if (end - i >= MIN_SPAN) {
+                IntVector vtr = IntVector.zero(I), vtg = vtr, vtb = vtr;
+                IntVector vcr = vtr, vcg = vtr, vcb = vtr;
+                for (int bound = i + I.loopBound(end - i); i < bound; i += step) {
+                    vtr = vtr.add(load(tr, i));
+                    vtg = vtg.add(load(tg, i));
+                    vtb = vtb.add(load(tb, i));
+                    vcr = vcr.add(load(cr, i));
+                    vcg = vcg.add(load(cg, i));
+                    vcb = vcb.add(load(cb, i));
+                }
+                ltr = vtr.reduceLanesToLong(VectorOperators.ADD);
+                ltg = vtg.reduceLanesToLong(VectorOperators.ADD);
+                ltb = vtb.reduceLanesToLong(VectorOperators.ADD);
+                lcr = vcr.reduceLanesToLong(VectorOperators.ADD);
+                lcg = vcg.reduceLanesToLong(VectorOperators.ADD);
+                lcb = vcb.reduceLanesToLong(VectorOperators.ADD);
+            }
+            for (; i < end; i++) {
+                ltr += tr[i] & 0xFF;
+                ltg += tg[i] & 0xFF;
+                ltb += tb[i] & 0xFF;
+                lcr += cr[i] & 0xFF;
+                lcg += cg[i] & 0xFF;
+                lcb += cb[i] & 0xFF;
+            }
+            final long w = SpanKernel.weight(lines.alpha[n]);
+            str += w * ltr;
+            stg += w * ltg;
+            stb += w * ltb;
+            scr += w * lcr;
+            scg += w * lcg;
+            scb += w * lcb;
+            total += w * (x2 - x1 + 1);
+        }
+        return color(str, stg, stb, scr, scg, scb, total, alpha);
+    }
+
+    @Override
+    public long differenceDelta(PlanarBitmap target, PlanarBitmap current, int color,
+            ScanlineBuffer lines) {
+        if (B == null) {
+            return SCALAR.differenceDelta(target, current, color, lines);
+        }
+        final int m = 0xFFFF;
+        final byte[] tap = target.getAlpha(), trp = target.getRed();
+        final byte[] tgp = target.getGreen(), tbp = target.getBlue();
+        final byte[] cap = current.getAlpha(), crp = current.getRed();
+        final byte[] cgp = current.getGreen(), cbp = current.getBlue();
+        final int width = target.getWidth();
+        final int height = target.getHeight();
+        final boolean translucent = target.isTranslucent();
+        final int step = I.length();
+
+        long sa = Colour.alpha(color);
+        long sr = Colour.red(color);
+        long sg = Colour.green(color);
+        long sb = Colour.blue(color);
+        sr = (sr | sr << 8) * sa / 255;
+        sg = (sg | sg << 8) * sa / 255;
+        sb = (sb | sb << 8) * sa / 255;
+        sa |= sa << 8;
+
+        long total = 0L;
+        IntVector acc = IntVector.zero(I);
+        int chunks = 0;
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+
+            final long ma = lines.alpha[n];
+            final int k = (int) (m - sa * ma / m);
+            final int ka = (int) (sa * ma / 0x101);
+            final int kr = (int) (sr * ma / 0x101);
+            final int kg = (int) (sg * ma / 0x101);
+            final int kb = (int) (sb * ma / 0x101);
+
+            final int offset = target.rowOffset(y);
+            final int end = offset + x2 + 1;
+            int i = offset + x1;
+            final int bound = end - i >= MIN_SPAN ? i + I.loopBound(end - i) : i;
+            for (; i < bound; i += step) {
+                IntVector tr = load(trp, i);
+                IntVector tg = load(tgp, i);
+                IntVector tb = load(tbp, i);
+                IntVector dr = load(crp, i);
+                IntVector dg = load(cgp, i);
+                IntVector db = load(cbp, i);
+
+                IntVector br = blend(dr, k, kr);
+                IntVector bg = blend(dg, k, kg);
+                IntVector bb = blend(db, k, kb);
+
+                if (translucent) {
+                    IntVector ta = load(tap, i);
+                    IntVector da = load(cap, i);
+                    IntVector ba = blend(da, k, ka);
+                    acc = acc.add(squares(ta, tr, tg, tb, ba, br, bg, bb))
+                            .sub(squares(ta, tr, tg, tb, da, dr, dg, db));
+                } else {
+                    acc = acc.add(distance(tr, tg, tb, br, bg, bb))
+                            .sub(distance(tr, tg, tb, dr, dg, db));
+                }
+                if (++chunks == FLUSH) {
+                    total += acc.reduceLanesToLong(VectorOperators.ADD);
+                    acc = IntVector.zero(I);
+                    chunks = 0;
+                }
+            }
+            for (; i < end; i++) {
+                int tr = trp[i] & 0xFF;
+                int tg = tgp[i] & 0xFF;
+                int tb = tbp[i] & 0xFF;
+                int dr = crp[i] & 0xFF;
+                int dg = cgp[i] & 0xFF;
+                int db = cbp[i] & 0xFF;
+
+                int br = blend(dr, k, kr);
+                int bg = blend(dg, k, kg);
+                int bb = blend(db, k, kb);
+
+                if (translucent) {
+                    int ta = tap[i] & 0xFF;
+                    int da = cap[i] & 0xFF;
+                    int ba = blend(da, k, ka);
+                    total += squares(ta, tr, tg, tb, ba, br, bg, bb)
+                            - squares(ta, tr, tg, tb, da, dr, dg, db);
+                } else {
+                    total += Colour.distance(tr, tg, tb, br, bg, bb)
+                            - Colour.distance(tr, tg, tb, dr, dg, db);
+                }
+            }
+        }
+        return total + acc.reduceLanesToLong(VectorOperators.ADD);
+    }
+
+    @Override
+    public void drawLines(PlanarBitmap image, int color, ScanlineBuffer lines) {
+        if (B == null) {
+            SCALAR.drawLines(image, color, lines);
+            return;
+        }
+        final int m = 0xFFFF;
+        final byte[] ap = image.getAlpha(), rp = image.getRed();
+        final byte[] gp = image.getGreen(), bp = image.getBlue();
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int step = I.length();
+
+        long sa = Colour.alpha(color);
+        long sr = Colour.red(color);
+        long sg = Colour.green(color);
+        long sb = Colour.blue(color);
+        sr = (sr | sr << 8) * sa / 255;
+        sg = (sg | sg << 8) * sa / 255;
+        sb = (sb | sb << 8) * sa / 255;
+        sa |= sa << 8;
+
+        for (int n = 0; n < lines.count; n++) {
+            final int y = lines.y[n];
+            if (y < 0 || y >= height) {
+                continue;
+            }
+            final int x1 = Math.max(lines.x1[n], 0);
+            final int x2 = Math.min(lines.x2[n], width - 1);
+            if (x1 > x2) {
+                continue;
+            }
+
+            final long ma = lines.alpha[n];
+            final int k = (int) (m - sa * ma / m);
+            final int ka = (int) (sa * ma / 0x101);
+            final int kr = (int) (sr * ma / 0x101);
+            final int kg = (int) (sg * ma / 0x101);
+            final int kb = (int) (sb * ma / 0x101);
+
+            final int offset = image.rowOffset(y);
+            final int end = offset + x2 + 1;
+            int i = offset + x1;
+            for (int bound = i + I.loopBound(end - i); i < bound; i += step) {
+                store(blend(load(ap, i), k, ka), ap, i);
+                store(blend(load(rp, i), k, kr), rp, i);
+                store(blend(load(gp, i), k, kg), gp, i);
+                store(blend(load(bp, i), k, kb), bp, i);
+            }
+            for (; i < end; i++) {
+                ap[i] = (byte) blend(ap[i] & 0xFF, k, ka);
+                rp[i] = (byte) blend(rp[i] & 0xFF, k, kr);
+                gp[i] = (byte) blend(gp[i] & 0xFF, k, kg);
+                bp[i] = (byte) blend(bp[i] & 0xFF, k, kb);
+            }
+        }
+    }
+
+    /**
+     * Loads the unsigned bytes of a plane, widened to integer lanes.
+     */
+    private static IntVector load(byte[] plane, int i) {
+        return ((IntVector) ByteVector.fromArray(B, plane, i)
+                .convertShape(VectorOperators.B2I, I, 0)).and(0xFF);
+    }
+
+    /**
+     * Narrows integer lanes in the range [0, 255] and stores them into a plane.
+     */
+    private static void store(IntVector v, byte[] plane, int i) {
+        ((ByteVector) v.convertShape(VectorOperators.I2B, B, 0)).intoArray(plane, i);
+    }
+
+    /**
+     * Blends a channel, <code>min(255, ((d * k + s) &gt;&gt; 8) / 255)</code>.
+     */
+    private static IntVector blend(IntVector d, int k, int s) {
+        IntVector z = d.mul(k).add(s).lanewise(VectorOperators.LSHR, 8);
+        return z.add(1).add(z.lanewise(VectorOperators.LSHR, 8))
+                .lanewise(VectorOperators.LSHR, 8).min(255);
+    }
+
+    private static int blend(int d, int k, int s) {
+        int z = (d * k + s) >>> 8;
+        return Math.min((z + 1 + (z >>> 8)) >>> 8, 255);
+    }
+
+    private static IntVector distance(IntVector r1, IntVector g1, IntVector b1, IntVector r2,
+            IntVector g2, IntVector b2) {
+        IntVector rmean = r1.add(r2).lanewise(VectorOperators.LSHL, 1);
+        IntVector r = r1.sub(r2);
+        IntVector g = g1.sub(g2);
+        IntVector b = b1.sub(b2);
+        IntVector dr = rmean.add(512).mul(r).mul(r).lanewise(VectorOperators.ASHR, 8);
+        IntVector dg = g.mul(g).lanewise(VectorOperators.LSHL, 2);
+        IntVector db = rmean.neg().add(767).mul(b).mul(b).lanewise(VectorOperators.ASHR, 8);
+        return dr.add(dg).add(db);
+    }
+
+    private static IntVector squares(IntVector a1, IntVector r1, IntVector g1, IntVector b1,
+            IntVector a2, IntVector r2, IntVector g2, IntVector b2) {
+        IntVector a = a1.sub(a2);
+        IntVector r = r1.sub(r2);
+        IntVector g = g1.sub(g2);
+        IntVector b = b1.sub(b2);
+        return a.mul(a).add(r.mul(r)).add(g.mul(g)).add(b.mul(b));
+    }
+
+    private static int squares(int a1, int r1, int g1, int b1, int a2, int r2, int g2, int b2) {
+        int a = a1 - a2;
+        int r = r1 - r2;
+        int g = g1 - g2;
+        int b = b1 - b2;
+        return a * a + r * r + g * g + b * b;
+    }
+}